@@ -0,0 +1,11 @@
+-- Order lines, written in the same transaction as the order.
+-- product_id has no foreign key so deleting a product keeps the order history.
+CREATE TABLE order_items (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id BIGINT NOT NULL REFERENCES orders (id) ON DELETE CASCADE,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL
+);
+
+CREATE INDEX idx_order_items_order_id ON order_items (order_id);
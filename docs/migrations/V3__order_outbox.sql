@@ -0,0 +1,9 @@
+-- Order events written in the same transaction as the order and deleted by
+-- the relay once delivered. The primary key is the only index the relay needs.
+CREATE TABLE order_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,13 @@
+-- Order count and revenue per day, updated in the same transaction as the
+-- orders. Filled here from the existing orders; POST /api/orders/stats/backfill
+-- rebuilds any range later.
+CREATE TABLE order_daily_stats (
+    day DATE PRIMARY KEY,
+    order_count BIGINT NOT NULL,
+    revenue DECIMAL(16,2) NOT NULL
+);
+
+INSERT INTO order_daily_stats (day, order_count, revenue)
+SELECT CAST(order_date AS DATE), COUNT(*), SUM(total)
+FROM orders
+GROUP BY 1;
@@ -0,0 +1,5 @@
+-- Indexes for GET /api/orders/search. The id column makes each index match the
+-- keyset order (order_date, id), so a page is a bounded index range scan.
+-- CONCURRENTLY keeps orders writable while they build; run outside a transaction.
+CREATE INDEX CONCURRENTLY idx_orders_status_order_date ON orders (status, order_date, id);
+CREATE INDEX CONCURRENTLY idx_orders_order_date ON orders (order_date, id);
@@ -0,0 +1,11 @@
+-- Orders append their change to the daily rollup here instead of updating the
+-- row of their day, so concurrent orders of the same day do not wait for each
+-- other. The service folds the deltas into order_daily_stats in the background.
+CREATE TABLE order_stats_deltas (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    day DATE NOT NULL,
+    order_count BIGINT NOT NULL,
+    revenue DECIMAL(16,2) NOT NULL
+);
+
+CREATE INDEX idx_order_stats_deltas_day ON order_stats_deltas (day);
@@ -13,3 +13,38 @@ CREATE TABLE orders (
     status VARCHAR(50) NOT NULL
 );
 
+CREATE TABLE order_items (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id BIGINT NOT NULL REFERENCES orders (id) ON DELETE CASCADE,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL
+);
+
+CREATE INDEX idx_order_items_order_id ON order_items (order_id);
+
+CREATE INDEX idx_orders_status_order_date ON orders (status, order_date, id);
+CREATE INDEX idx_orders_order_date ON orders (order_date, id);
+
+CREATE TABLE order_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE TABLE order_daily_stats (
+    day DATE PRIMARY KEY,
+    order_count BIGINT NOT NULL,
+    revenue DECIMAL(16,2) NOT NULL
+);
+
+CREATE TABLE order_stats_deltas (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    day DATE NOT NULL,
+    order_count BIGINT NOT NULL,
+    revenue DECIMAL(16,2) NOT NULL
+);
+
+CREATE INDEX idx_order_stats_deltas_day ON order_stats_deltas (day);
@@ -0,0 +1,124 @@
+package com.java.challenge.store.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of one {@code GET /api/products} once the rows are in memory.
+ * {@code entityPath} is the path without the snapshot: a {@link Product} per
+ * row, mapped to a {@link ProductResponseDto} and encoded by Jackson. The R2DBC
+ * driver allocates more per row on top of that, so it is a lower bound.
+ * {@code snapshotPath} writes the same JSON from {@link ProductCatalogSnapshot}.
+ * Run with {@code -prof gc} for the bytes allocated per request; the heap taken
+ * by the catalog in each form, without the shared name strings, is printed
+ * during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductCatalogBenchmark {
+
+    private static final ResolvableType PRODUCT_TYPE = ResolvableType.forClass(ProductResponseDto.class);
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(new ObjectMapper());
+
+    private long[] ids;
+    private String[] names;
+    private long[] prices;
+    private int[] stocks;
+    private ProductCatalogSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        ids = new long[catalogSize];
+        names = new String[catalogSize];
+        prices = new long[catalogSize];
+        stocks = new int[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            ids[i] = i + 1;
+            names[i] = "Product " + random.nextInt(catalogSize / 4);
+            prices[i] = 100 + random.nextInt(1_000_000);
+            stocks[i] = random.nextInt(500);
+        }
+
+        long before = usedHeap();
+        List<Product> entities = IntStream.range(0, catalogSize).mapToObj(this::entity).toList();
+        long entitiesBytes = usedHeap() - before;
+
+        snapshot = new ProductCatalogSnapshot(null, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        entities.forEach(snapshot::put);
+
+        System.out.printf("%nHeap for %d products, names excluded: %d KB as entities, %d KB in the snapshot%n",
+                entities.size(), entitiesBytes / 1024, snapshot.footprintBytes() / 1024);
+    }
+
+    @Benchmark
+    public long entityPath() {
+        Flux<ProductResponseDto> products = Flux.range(0, catalogSize)
+                .map(this::entity)
+                .map(product -> new ProductResponseDto(
+                        product.getId(), product.getName(), product.getPrice(), product.getStock()));
+        return drain(encoder.encode(products, bufferFactory, PRODUCT_TYPE, MediaType.APPLICATION_JSON, Map.of()));
+    }
+
+    @Benchmark
+    public long snapshotPath() {
+        return drain(snapshot.writeJson(bufferFactory));
+    }
+
+    private Product entity(int row) {
+        return new Product(ids[row], names[row], BigDecimal.valueOf(prices[row], 2), stocks[row], 0L);
+    }
+
+    private static long drain(Flux<DataBuffer> body) {
+        return body.map(buffer -> {
+            int bytes = buffer.readableByteCount();
+            DataBufferUtils.release(buffer);
+            return (long) bytes;
+        }).reduce(0L, Long::sum).block();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,118 @@
+package com.java.challenge.store.search;
+
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@code GET /api/products/search} on a synthetic catalog.
+ * {@code substringScan} is what {@code name ILIKE '%q%'} does for every row of
+ * the table, without the I/O, kept here as the baseline. The same comparison
+ * against PostgreSQL belongs to the load tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final int LIMIT = 20;
+    private static final String[] ADJECTIVES = {
+            "wireless", "portable", "compact", "ergonomic", "premium", "smart", "slim", "rugged",
+            "mechanical", "digital", "professional", "classic", "mini", "ultra", "gaming", "silent"
+    };
+    private static final String[] TYPES = {
+            "mouse", "keyboard", "monitor", "headphones", "speaker", "charger", "cable", "webcam",
+            "microphone", "router", "laptop", "tablet", "printer", "scanner", "projector", "drive",
+            "adapter", "dock", "hub", "stand", "lamp", "fan", "heater", "kettle", "blender", "toaster",
+            "camera", "tripod", "backpack", "case"
+    };
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ra", "te", "zu", "no", "vi", "sa", "de", "po", "xe", "li", "ba", "go"
+    };
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"wireless mouse", "keyb", "brand"})
+    private String query;
+
+    private ProductSearchIndex index;
+    private String[] names;
+    private String searchQuery;
+    private String[] queryWords;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] brands = new String[300];
+        for (int i = 0; i < brands.length; i++) {
+            brands[i] = SYLLABLES[random.nextInt(SYLLABLES.length)]
+                    + SYLLABLES[random.nextInt(SYLLABLES.length)]
+                    + SYLLABLES[random.nextInt(SYLLABLES.length)];
+        }
+
+        index = new ProductSearchIndex();
+        index.loadStarted();
+        names = new String[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            String name = brands[random.nextInt(brands.length)] + " "
+                    + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + TYPES[random.nextInt(TYPES.length)] + " "
+                    + (char) ('A' + random.nextInt(26)) + (100 + random.nextInt(9900));
+            names[i] = name;
+            index.put(new Product((long) i + 1, name, BigDecimal.TEN, 10, 0L));
+        }
+        index.loadFinished();
+
+        // "brand" stands for a query on one of the generated brands.
+        searchQuery = query.equals("brand") ? brands[0] : query;
+        queryWords = searchQuery.toLowerCase(Locale.ROOT).split(" ");
+    }
+
+    @Benchmark
+    public List<ProductResponseDto> invertedIndex() {
+        return index.search(searchQuery, LIMIT);
+    }
+
+    @Benchmark
+    public List<String> substringScan() {
+        List<String> matches = new ArrayList<>(LIMIT);
+        for (String name : names) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            boolean matched = true;
+            for (String word : queryWords) {
+                if (!lower.contains(word)) {
+                    matched = false;
+                    break;
+                }
+            }
+            if (matched) {
+                matches.add(name);
+                if (matches.size() == LIMIT) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+}
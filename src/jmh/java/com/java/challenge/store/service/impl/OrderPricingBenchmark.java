@@ -0,0 +1,111 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderItemDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.pricing.PricingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * CPU cost of pricing a basket once its stock is reserved: grouping the lines,
+ * adding up the prices and applying the discount. {@code bigDecimal*} is the
+ * pricing used before {@link PricingEngine}, kept here as the baseline. Run with
+ * {@code -prof gc} to see the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPricingBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int basketSize;
+
+    private final PricingEngine pricingEngine = new PricingEngine(PricingEngine.standardRules());
+
+    private List<OrderItemDto> items;
+    private List<Product> products;
+    private Map<Long, Integer> quantities;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        items = new ArrayList<>(basketSize);
+        products = new ArrayList<>(basketSize);
+        for (long id = 1; id <= basketSize; id++) {
+            OrderItemDto item = new OrderItemDto();
+            item.setProductId(id);
+            item.setQuantity(1 + random.nextInt(5));
+            items.add(item);
+            products.add(new Product(
+                    id,
+                    "Product " + id,
+                    BigDecimal.valueOf(100 + random.nextInt(100_000), 2),
+                    1_000,
+                    0L
+            ));
+        }
+        quantities = OrderServiceImpl.groupQuantities(items);
+    }
+
+    @Benchmark
+    public Map<Long, Integer> groupQuantities() {
+        return OrderServiceImpl.groupQuantities(items);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTotal() {
+        Map<Long, Integer> orders = items.stream()
+                .collect(Collectors.toMap(
+                        OrderItemDto::getProductId,
+                        OrderItemDto::getQuantity
+                ));
+        BigDecimal total = products.stream()
+                .map(p -> p.getPrice().multiply(BigDecimal.valueOf(orders.get(p.getId()))))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return applyDiscount(total, products.size());
+    }
+
+    @Benchmark
+    public BigDecimal engineTotal() {
+        return pricingEngine.total(products, OrderServiceImpl.groupQuantities(items));
+    }
+
+    @Benchmark
+    public BigDecimal engineTotalGrouped() {
+        return pricingEngine.total(products, quantities);
+    }
+
+    private static BigDecimal applyDiscount(BigDecimal total, int cantidadProductosDiferentes) {
+        BigDecimal descuento = BigDecimal.ZERO;
+
+        if (total.compareTo(BigDecimal.valueOf(1000)) > 0) {
+            descuento = descuento.add(BigDecimal.valueOf(0.10));
+        }
+
+        if (cantidadProductosDiferentes > 5) {
+            descuento = descuento.add(BigDecimal.valueOf(0.05));
+        }
+
+        return total.multiply(BigDecimal.ONE.subtract(descuento));
+    }
+}
@@ -0,0 +1,69 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderResponseDto;
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping of a listing of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int size;
+
+    private List<Product> products;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        products = new ArrayList<>(size);
+        orders = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= size; id++) {
+            products.add(new Product(id, "Product " + id, BigDecimal.valueOf(1999, 2), 50, 0L));
+            orders.add(new Order(id, now, BigDecimal.valueOf(125050, 2), "CONFIRMED ORDER."));
+        }
+    }
+
+    @Benchmark
+    public void productResponses(Blackhole blackhole) {
+        for (Product product : products) {
+            ProductResponseDto response = ProductServiceImpl.toResponse(product);
+            blackhole.consume(response);
+        }
+    }
+
+    @Benchmark
+    public void orderResponses(Blackhole blackhole) {
+        for (Order order : orders) {
+            OrderResponseDto response = OrderServiceImpl.toResponseDto(order);
+            blackhole.consume(response);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.java.challenge.store.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.ProductImportRowDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second the bulk import can parse and validate, the CPU bound part of
+ * {@code POST /api/products/bulk}. Database throughput is reported by the
+ * import itself in {@code rowsPerSecond}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductImportParserBenchmark {
+
+    private static final String CSV_ROW = "1042,\"Monitor 27\"\" 4K, IPS\",329.99,25";
+    private static final String NDJSON_ROW = "{\"id\":1042,\"name\":\"Monitor 27 4K\",\"price\":329.99,\"stock\":25}";
+
+    private ProductImportParser csvParser;
+    private ProductImportParser ndjsonParser;
+    private Validator validator;
+
+    @Setup
+    public void setUp() {
+        csvParser = ProductImportParser.csv();
+        csvParser.header("id,name,price,stock");
+        ndjsonParser = ProductImportParser.ndjson(new ObjectMapper());
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @Benchmark
+    public ProductImportRowDto csvRow() {
+        return csvParser.parse(CSV_ROW);
+    }
+
+    @Benchmark
+    public ProductImportRowDto ndjsonRow() {
+        return ndjsonParser.parse(NDJSON_ROW);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductImportRowDto>> csvRowValidated() {
+        return validator.validate(csvParser.parse(CSV_ROW));
+    }
+}
@@ -0,0 +1,84 @@
+package com.java.challenge.store.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response times in microseconds, per operation and for all of them. Each
+ * response is recorded twice: corrected, from the time the schedule says the
+ * request should have started, and uncorrected, from the time the client
+ * issued it. When the service stalls, a closed-loop client would wait to issue
+ * the next requests; only the corrected times include that wait.
+ */
+final class LatencyStats {
+
+    private static final int DIGITS = 3;
+
+    private final Map<Operation, Histogram> corrected = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> uncorrected = new EnumMap<>(Operation.class);
+    private final Histogram allCorrected = new ConcurrentHistogram(DIGITS);
+    private final Histogram allUncorrected = new ConcurrentHistogram(DIGITS);
+    private final Recorder interval = new Recorder(DIGITS);
+    private final Map<String, LongAdder> errors = new ConcurrentSkipListMap<>();
+
+    LatencyStats() {
+        for (Operation operation : Operation.values()) {
+            corrected.put(operation, new ConcurrentHistogram(DIGITS));
+            uncorrected.put(operation, new ConcurrentHistogram(DIGITS));
+        }
+    }
+
+    /**
+     * @param error {@code null} for a 2xx response, otherwise the status or
+     *              exception, counted apart; its time is still recorded
+     */
+    void record(Operation operation, long correctedMicros, long uncorrectedMicros, String error) {
+        corrected.get(operation).recordValue(correctedMicros);
+        uncorrected.get(operation).recordValue(uncorrectedMicros);
+        allCorrected.recordValue(correctedMicros);
+        allUncorrected.recordValue(uncorrectedMicros);
+        if (error != null) {
+            errors.computeIfAbsent(operation.label() + " " + error, key -> new LongAdder()).increment();
+        }
+    }
+
+    /** Adds a corrected time, warmup included, to the progress printed during the run. */
+    void sample(long correctedMicros) {
+        interval.recordValue(correctedMicros);
+    }
+
+    /** Times sampled since the previous call. */
+    Histogram interval() {
+        return interval.getIntervalHistogram();
+    }
+
+    Histogram corrected(Operation operation) {
+        return corrected.get(operation);
+    }
+
+    Histogram uncorrected(Operation operation) {
+        return uncorrected.get(operation);
+    }
+
+    Histogram allCorrected() {
+        return allCorrected;
+    }
+
+    Histogram allUncorrected() {
+        return allUncorrected;
+    }
+
+    Map<String, LongAdder> errors() {
+        return errors;
+    }
+
+    long errorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+}
@@ -0,0 +1,184 @@
+package com.java.challenge.store.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.java.challenge.store.StoreServiceApplication;
+import com.java.challenge.store.dto.ProductImportReportDto;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load test of the REST API: requests start at a constant rate from
+ * a precomputed schedule, whether or not earlier ones have answered, so a slow
+ * service builds a queue instead of slowing the load down. Latency is measured
+ * from the scheduled start, which keeps the time spent waiting behind a stall
+ * in the percentiles (coordinated omission). Without {@code --target} the
+ * service is started in this JVM with the {@code memory} profile; the client
+ * then shares the CPU with it, so compare runs made the same way.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--mix=checkout-heavy --rate=1000"
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(5);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext service = options.target() == null ? startService() : null;
+        String target = service == null
+                ? options.target()
+                : "http://localhost:" + service.getEnvironment().getProperty("local.server.port");
+
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(options.connections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(options.timeout())
+                .build();
+        try {
+            WebClient client = WebClient.builder()
+                    .baseUrl(target)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                    .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                    .build();
+            ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+            Workload workload = new Workload(client, objectMapper, options);
+
+            ProductImportReportDto seeded = workload.seed().block(Duration.ofMinutes(5));
+            if (seeded == null || seeded.getFailed() > 0) {
+                throw new IllegalStateException("Seeding products failed: " + seeded);
+            }
+            System.out.printf("Seeded %d products on %s%n", seeded.getImported(), target);
+
+            LoadTestReport report = run(workload, options, target);
+            System.out.println();
+            System.out.println(report.text());
+            System.out.println("Report written to " + report.write(options.out()));
+        } finally {
+            connections.disposeLater().block(Duration.ofSeconds(10));
+            if (service != null) {
+                service.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startService() {
+        return new SpringApplicationBuilder(StoreServiceApplication.class)
+                .profiles("memory")
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        // Keeps the measurements off the disk
+                        "store.outbox.sink=in-memory"
+                )
+                .run();
+    }
+
+    private static LoadTestReport run(Workload workload, LoadTestOptions options, String target) throws InterruptedException {
+        LatencyStats stats = new LatencyStats();
+        SplittableRandom random = new SplittableRandom(options.seed());
+        AtomicLong inFlight = new AtomicLong();
+        AtomicLong maxSendDelay = new AtomicLong();
+        AtomicLong lastResponse = new AtomicLong();
+        long sent = 0;
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long recordFrom = start + options.warmup().toNanos();
+        long end = recordFrom + options.duration().toNanos();
+        Instant startedAt = Instant.now();
+        System.out.printf("Running %s at %d requests/s: %s warmup, %s recorded%n",
+                options.mix().describe(), options.rate(), options.warmup(), options.duration());
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progress.scheduleAtFixedRate(() -> printProgress(stats.interval(), inFlight.get()),
+                PROGRESS_INTERVAL.toMillis(), PROGRESS_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * 1_000_000_000L / options.rate();
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Workload.Request request = workload.next(options.mix().next(random), random);
+            boolean recorded = intended >= recordFrom;
+            if (recorded) {
+                sent++;
+            }
+            inFlight.incrementAndGet();
+            long[] sentAt = new long[1];
+            request.exchange()
+                    .timeout(options.timeout())
+                    .doOnSubscribe(subscription -> {
+                        sentAt[0] = System.nanoTime();
+                        maxSendDelay.accumulateAndGet(sentAt[0] - intended, Math::max);
+                    })
+                    .onErrorResume(error -> Mono.just(error.getClass().getSimpleName()))
+                    .defaultIfEmpty("")
+                    .subscribeOn(Schedulers.parallel())
+                    .subscribe(error -> {
+                        long now = System.nanoTime();
+                        stats.sample(TimeUnit.NANOSECONDS.toMicros(now - intended));
+                        if (recorded) {
+                            stats.record(request.operation(),
+                                    TimeUnit.NANOSECONDS.toMicros(now - intended),
+                                    TimeUnit.NANOSECONDS.toMicros(now - sentAt[0]),
+                                    error.isEmpty() ? null : error);
+                            lastResponse.accumulateAndGet(now, Math::max);
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+
+        // Requests still running get one timeout to finish, after which they are reported as unfinished
+        long drainUntil = System.nanoTime() + options.timeout().toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        progress.shutdownNow();
+
+        // Responses are counted until the last one, which comes after the schedule ends when the service falls behind
+        Duration measured = Duration.ofNanos(Math.max(end, lastResponse.get()) - recordFrom);
+        return new LoadTestReport(options, target, startedAt, stats, sent, inFlight.get(), measured,
+                TimeUnit.NANOSECONDS.toMicros(maxSendDelay.get()));
+    }
+
+    private static void printProgress(Histogram interval, long inFlight) {
+        double seconds = PROGRESS_INTERVAL.toMillis() / 1000.0;
+        System.out.printf("  %8.1f responses/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  in flight %d%n",
+                interval.getTotalCount() / seconds,
+                interval.getValueAtPercentile(50) / 1000.0,
+                interval.getValueAtPercentile(99) / 1000.0,
+                interval.getMaxValue() / 1000.0,
+                inFlight);
+    }
+}
@@ -0,0 +1,80 @@
+package com.java.challenge.store.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of one run, read from {@code --name=value} arguments.
+ *
+ * @param target      base URL of a running service, or {@code null} to start one
+ *                    in this JVM with the {@code memory} profile
+ * @param mix         traffic mix
+ * @param rate        requests started per second, whatever the response times
+ * @param warmup      time sent at full rate before recording
+ * @param duration    recorded time
+ * @param products    products seeded before the run, ids 1 to {@code products}
+ * @param stock       stock of each seeded product
+ * @param maxLines    most lines per checkout
+ * @param connections most connections open to the service
+ * @param timeout     per request; a request that takes longer is an error
+ * @param seed        seed of the request sequence
+ * @param label       name of the run in the results, such as a commit
+ * @param out         directory of the reports
+ */
+record LoadTestOptions(
+        String target,
+        Mix mix,
+        int rate,
+        Duration warmup,
+        Duration duration,
+        int products,
+        int stock,
+        int maxLines,
+        int connections,
+        Duration timeout,
+        long seed,
+        String label,
+        Path out
+) {
+
+    private static final Set<String> NAMES = Set.of(
+            "target", "mix", "rate", "warmup", "duration", "products", "stock", "max-lines",
+            "connections", "timeout", "seed", "label", "out"
+    );
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0 || !NAMES.contains(arg.substring(2, equals))) {
+                throw new IllegalArgumentException("Unknown argument " + arg + ", expected --name=value with name in " + NAMES);
+            }
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                values.get("target"),
+                Mix.parse(values.getOrDefault("mix", "read-heavy")),
+                Integer.parseInt(values.getOrDefault("rate", "500")),
+                DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+                DurationStyle.detectAndParse(values.getOrDefault("duration", "60s")),
+                Integer.parseInt(values.getOrDefault("products", "10000")),
+                Integer.parseInt(values.getOrDefault("stock", "1000000")),
+                Integer.parseInt(values.getOrDefault("max-lines", "3")),
+                Integer.parseInt(values.getOrDefault("connections", "500")),
+                DurationStyle.detectAndParse(values.getOrDefault("timeout", "30s")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.getOrDefault("label", "local"),
+                Path.of(values.getOrDefault("out", "target/loadtest"))
+        );
+        if (options.rate <= 0 || options.products <= 0 || options.maxLines <= 0 || options.connections <= 0) {
+            throw new IllegalArgumentException("rate, products, max-lines and connections must be positive");
+        }
+        return options;
+    }
+}
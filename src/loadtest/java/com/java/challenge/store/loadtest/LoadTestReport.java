@@ -0,0 +1,153 @@
+package com.java.challenge.store.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Result of one run. {@link #write} stores the full report as
+ * {@code <mix>-<time>.txt} and appends a summary line to {@code results.csv},
+ * where runs of different versions can be compared.
+ */
+final class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final String CSV_HEADER = "started,label,target,mix,rate,duration_s,requests,responses_per_s,errors,unfinished,"
+            + "p50_ms,p90_ms,p99_ms,p999_ms,max_ms,uncorrected_p99_ms";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final LoadTestOptions options;
+    private final String target;
+    private final Instant startedAt;
+    private final LatencyStats stats;
+    private final long sent;
+    private final long unfinished;
+    private final Duration measured;
+    private final long maxSendDelayMicros;
+
+    LoadTestReport(
+            LoadTestOptions options,
+            String target,
+            Instant startedAt,
+            LatencyStats stats,
+            long sent,
+            long unfinished,
+            Duration measured,
+            long maxSendDelayMicros
+    ) {
+        this.options = options;
+        this.target = target;
+        this.startedAt = startedAt;
+        this.stats = stats;
+        this.sent = sent;
+        this.unfinished = unfinished;
+        this.measured = measured;
+        this.maxSendDelayMicros = maxSendDelayMicros;
+    }
+
+    String text() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+
+        out.printf("Load test %s, label %s, started %s%n", options.mix().describe(), options.label(), startedAt);
+        out.printf("Target %s, %d requests/s, warmup %s, duration %s, %d connections, %d products, seed %d%n",
+                target, options.rate(), options.warmup(), options.duration(), options.connections(),
+                options.products(), options.seed());
+        out.printf("Requests %d, responses %d in %.1f s (%.1f/s), errors %d, unfinished %d%n",
+                sent, stats.allCorrected().getTotalCount(), measured.toMillis() / 1000.0, responsesPerSecond(),
+                stats.errorCount(), unfinished);
+        // The generator itself falling behind would show here rather than as service latency
+        out.printf("Max send delay %.2f ms%n", maxSendDelayMicros / 1000.0);
+
+        out.println();
+        out.println("Latency in ms, corrected from the scheduled start (uncorrected, from when it was issued, in brackets)");
+        out.printf("%-16s %8s", "operation", "count");
+        for (double percentile : PERCENTILES) {
+            out.printf(" %20s", "p" + format(percentile));
+        }
+        out.printf(" %20s%n", "max");
+        for (Operation operation : Operation.values()) {
+            if (stats.corrected(operation).getTotalCount() > 0) {
+                row(out, operation.label(), stats.corrected(operation), stats.uncorrected(operation));
+            }
+        }
+        row(out, "all", stats.allCorrected(), stats.allUncorrected());
+
+        out.println();
+        out.println("Errors");
+        if (stats.errors().isEmpty()) {
+            out.println("  none");
+        }
+        stats.errors().forEach((error, count) -> out.printf("  %s: %d%n", error, count.sum()));
+
+        out.println();
+        out.println("Corrected latency distribution, all operations (ms)");
+        stats.allCorrected().outputPercentileDistribution(out, 5, 1000.0);
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Writes the report and its results line, and returns the report file. */
+    Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path report = directory.resolve(options.mix().label() + "-" + FILE_TIME.format(startedAt) + ".txt");
+        Files.writeString(report, text());
+
+        Path results = directory.resolve("results.csv");
+        if (Files.notExists(results)) {
+            Files.writeString(results, CSV_HEADER + System.lineSeparator());
+        }
+        Histogram all = stats.allCorrected();
+        String line = String.join(",",
+                startedAt.toString(),
+                options.label(),
+                target,
+                options.mix().label(),
+                Integer.toString(options.rate()),
+                Long.toString(options.duration().toSeconds()),
+                Long.toString(sent),
+                String.format(Locale.ROOT, "%.1f", responsesPerSecond()),
+                Long.toString(stats.errorCount()),
+                Long.toString(unfinished),
+                millis(all.getValueAtPercentile(50)),
+                millis(all.getValueAtPercentile(90)),
+                millis(all.getValueAtPercentile(99)),
+                millis(all.getValueAtPercentile(99.9)),
+                millis(all.getMaxValue()),
+                millis(stats.allUncorrected().getValueAtPercentile(99))
+        );
+        Files.writeString(results, line + System.lineSeparator(), StandardOpenOption.APPEND);
+        return report;
+    }
+
+    private double responsesPerSecond() {
+        return stats.allCorrected().getTotalCount() / (measured.toMillis() / 1000.0);
+    }
+
+    private static void row(PrintStream out, String name, Histogram corrected, Histogram uncorrected) {
+        out.printf("%-16s %8d", name, corrected.getTotalCount());
+        for (double percentile : PERCENTILES) {
+            out.printf(" %20s", millis(corrected.getValueAtPercentile(percentile))
+                    + " (" + millis(uncorrected.getValueAtPercentile(percentile)) + ")");
+        }
+        out.printf(" %20s%n", millis(corrected.getMaxValue()) + " (" + millis(uncorrected.getMaxValue()) + ")");
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.2f", micros / 1000.0);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.floor(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+}
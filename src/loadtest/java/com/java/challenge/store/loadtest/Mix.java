@@ -0,0 +1,72 @@
+package com.java.challenge.store.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Share of each operation in the traffic, in percent. With {@code hotSku} every
+ * product read is for product 1 and every checkout includes it, so all orders
+ * contend for the same row.
+ */
+enum Mix {
+
+    READ_HEAVY(false, Map.of(
+            Operation.PRODUCT_READ, 70,
+            Operation.PRODUCT_SEARCH, 10,
+            Operation.PRODUCT_PAGE, 5,
+            Operation.ORDER_READ, 5,
+            Operation.CHECKOUT, 10
+    )),
+    CHECKOUT_HEAVY(false, Map.of(
+            Operation.CHECKOUT, 70,
+            Operation.PRODUCT_READ, 20,
+            Operation.ORDER_READ, 10
+    )),
+    HOT_SKU(true, Map.of(
+            Operation.CHECKOUT, 90,
+            Operation.PRODUCT_READ, 10
+    ));
+
+    private final boolean hotSku;
+    private final Operation[] byPercent = new Operation[100];
+    private final Map<Operation, Integer> weights;
+
+    Mix(boolean hotSku, Map<Operation, Integer> weights) {
+        this.hotSku = hotSku;
+        this.weights = new EnumMap<>(weights);
+        int next = 0;
+        for (Map.Entry<Operation, Integer> weight : this.weights.entrySet()) {
+            for (int i = 0; i < weight.getValue(); i++) {
+                byPercent[next++] = weight.getKey();
+            }
+        }
+        if (next != byPercent.length) {
+            throw new IllegalStateException(name() + " weights must add up to 100");
+        }
+    }
+
+    static Mix parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    boolean hotSku() {
+        return hotSku;
+    }
+
+    Operation next(SplittableRandom random) {
+        return byPercent[random.nextInt(byPercent.length)];
+    }
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    String describe() {
+        StringBuilder description = new StringBuilder(label()).append(" (");
+        weights.forEach((operation, weight) -> description.append(operation.label()).append(' ').append(weight).append("%, "));
+        description.setLength(description.length() - 2);
+        return description.append(')').toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.java.challenge.store.loadtest;
+
+import java.util.Locale;
+
+enum Operation {
+
+    /** {@code GET /api/products/{id}} */
+    PRODUCT_READ,
+    /** {@code GET /api/products/search?q=} with one catalog word */
+    PRODUCT_SEARCH,
+    /** {@code GET /api/products/page}, first page */
+    PRODUCT_PAGE,
+    /** {@code POST /api/orders} with one to {@code max-lines} products */
+    CHECKOUT,
+    /** {@code GET /api/orders/{id}} of an order created during the run */
+    ORDER_READ;
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,151 @@
+package com.java.challenge.store.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.OrderItemDto;
+import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.dto.OrderResponseDto;
+import com.java.challenge.store.dto.ProductImportReportDto;
+import com.java.challenge.store.dto.ProductImportRowDto;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Requests of each {@link Operation}. Products are seeded with ids 1 to
+ * {@code products} and names made of catalog words, so searches find them;
+ * order reads use ids of orders created by earlier checkouts. The parameters of
+ * a request are drawn when it is built, on the generator thread, so the same
+ * seed sends the same sequence.
+ */
+final class Workload {
+
+    static final long HOT_PRODUCT_ID = 1L;
+
+    private static final String[] WORDS = {
+            "lamp", "chair", "table", "desk", "shelf", "mirror", "rug", "clock",
+            "vase", "sofa", "bench", "stool", "cabinet", "drawer", "frame", "basket",
+            "pillow", "blanket", "curtain", "candle", "kettle", "mug", "plate", "bowl",
+            "oak", "walnut", "steel", "glass", "linen", "wool", "brass", "marble"
+    };
+    private static final int RECENT_ORDERS = 1 << 16;
+
+    private final WebClient client;
+    private final ObjectMapper objectMapper;
+    private final LoadTestOptions options;
+    private final AtomicLongArray recentOrders = new AtomicLongArray(RECENT_ORDERS);
+    private final AtomicLong ordersCreated = new AtomicLong();
+
+    Workload(WebClient client, ObjectMapper objectMapper, LoadTestOptions options) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.options = options;
+    }
+
+    /** A request ready to send; {@code exchange} emits the error to count, or completes empty on 2xx. */
+    record Request(Operation operation, Mono<String> exchange) {
+    }
+
+    /** Creates or overwrites products 1 to {@code products} through the bulk import. */
+    Mono<ProductImportReportDto> seed() {
+        StringBuilder body = new StringBuilder();
+        for (int id = 1; id <= options.products(); id++) {
+            ProductImportRowDto row = new ProductImportRowDto();
+            row.setId((long) id);
+            row.setName(WORDS[id % WORDS.length] + " " + WORDS[(id / WORDS.length) % WORDS.length] + " " + id);
+            row.setPrice(BigDecimal.valueOf(100 + id % 9_900, 2));
+            row.setStock(options.stock());
+            try {
+                body.append(objectMapper.writeValueAsString(row)).append('\n');
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        return client.post()
+                .uri("/api/products/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body.toString())
+                .retrieve()
+                .bodyToMono(ProductImportReportDto.class);
+    }
+
+    Request next(Operation operation, SplittableRandom random) {
+        return switch (operation) {
+            case PRODUCT_READ -> productRead(random);
+            case PRODUCT_SEARCH -> new Request(operation, send(client.get()
+                    .uri("/api/products/search?q={q}&limit=20", WORDS[random.nextInt(WORDS.length)])));
+            case PRODUCT_PAGE -> new Request(operation, send(client.get().uri("/api/products/page?size=50")));
+            case CHECKOUT -> new Request(operation, checkout(random));
+            case ORDER_READ -> orderRead(random);
+        };
+    }
+
+    private Request productRead(SplittableRandom random) {
+        long id = options.mix().hotSku() ? HOT_PRODUCT_ID : 1 + random.nextInt(options.products());
+        return new Request(Operation.PRODUCT_READ, send(client.get().uri("/api/products/{id}", id)));
+    }
+
+    private Request orderRead(SplittableRandom random) {
+        long created = Math.min(ordersCreated.get(), RECENT_ORDERS);
+        long id = created == 0 ? 0 : recentOrders.get(random.nextInt((int) created));
+        if (id == 0) {
+            // No order stored yet: read a product instead of counting a 404
+            return productRead(random);
+        }
+        return new Request(Operation.ORDER_READ, send(client.get().uri("/api/orders/{id}", id)));
+    }
+
+    private Mono<String> checkout(SplittableRandom random) {
+        List<OrderItemDto> items = new ArrayList<>();
+        if (options.mix().hotSku()) {
+            items.add(item(HOT_PRODUCT_ID));
+        }
+        int lines = options.mix().hotSku() ? random.nextInt(options.maxLines()) : 1 + random.nextInt(options.maxLines());
+        while (items.size() < lines + (options.mix().hotSku() ? 1 : 0) && items.size() < options.products()) {
+            long productId = 1 + random.nextInt(options.products());
+            if (items.stream().noneMatch(item -> item.getProductId() == productId)) {
+                items.add(item(productId));
+            }
+        }
+        OrderListRequestDto request = new OrderListRequestDto();
+        request.setItems(items);
+
+        return client.post()
+                .uri("/api/orders")
+                .bodyValue(request)
+                .exchangeToMono(response -> response.statusCode().is2xxSuccessful()
+                        ? response.bodyToMono(OrderResponseDto.class)
+                                .doOnNext(order -> recentOrders.set(
+                                        (int) (ordersCreated.getAndIncrement() % RECENT_ORDERS), order.getId()))
+                                .then(Mono.<String>empty())
+                        : failure(response));
+    }
+
+    private static OrderItemDto item(long productId) {
+        OrderItemDto item = new OrderItemDto();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        return item;
+    }
+
+    private static Mono<String> send(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> response.statusCode().is2xxSuccessful()
+                ? response.releaseBody().then(Mono.<String>empty())
+                : failure(response));
+    }
+
+    private static Mono<String> failure(ClientResponse response) {
+        HttpStatusCode status = response.statusCode();
+        return response.releaseBody().thenReturn("HTTP " + status.value());
+    }
+}
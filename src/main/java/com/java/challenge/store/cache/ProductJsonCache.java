@@ -0,0 +1,375 @@
+package com.java.challenge.store.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.util.Generations;
+import com.java.challenge.store.util.KeysetPagination;
+import com.java.challenge.store.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Product responses kept already encoded as JSON, so a read only wraps the
+ * stored bytes in a buffer instead of running Jackson again. Holds each
+ * product by id, evicted by size and age, and the whole catalog split in
+ * chunks of {@value #IDS_PER_CHUNK} consecutive ids. Every entry carries a
+ * strong ETag derived from its bytes.
+ * <p>
+ * A product change drops that product and marks only its chunk stale; the
+ * next listing reloads the stale chunks and joins them with the others, so an
+ * order changing the stock of a few products does not rebuild the catalog.
+ * Concurrent misses share one load, and a read that arrives after a change
+ * never joins a load that started before it. A catalog larger than
+ * {@code store.cache.catalog.max-bytes} is not kept: listings are streamed
+ * until a product is updated or deleted.
+ */
+@Component
+public class ProductJsonCache {
+
+    private static final int IDS_PER_CHUNK = 512;
+    private static final int GENERATION_STRIPES = 4096;
+    private static final int CHUNK_LOAD_CONCURRENCY = 4;
+    private static final ByteBuffer OPEN = ByteBuffer.wrap(new byte[]{'['}).asReadOnlyBuffer();
+    private static final ByteBuffer CLOSE = ByteBuffer.wrap(new byte[]{']'}).asReadOnlyBuffer();
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, EncodedJson> products;
+    private final long catalogMaxBytes;
+
+    // Bumped on every invalidation of an id so a load that raced with a write to it is not stored.
+    private final Generations generations = new Generations(GENERATION_STRIPES);
+    private final SingleFlight<ProductKey, EncodedJson> productLoads = new SingleFlight<>();
+
+    // Catalog chunks by id / IDS_PER_CHUNK, each holding its products as ",{...},{...}".
+    private final ConcurrentSkipListMap<Long, Chunk> chunks = new ConcurrentSkipListMap<>();
+    // Bumped on every invalidation; the chunk it touched keeps the value.
+    private final AtomicLong stamps = new AtomicLong();
+    private final SingleFlight<Boolean, Boolean> catalogLoads = new SingleFlight<>();
+    private final SingleFlight<ChunkKey, Chunk> chunkLoads = new SingleFlight<>();
+    private volatile boolean catalogLoaded;
+    private volatile boolean catalogTooLarge;
+    private volatile Assembled assembled;
+    private final LongAdder catalogHits = new LongAdder();
+    private final LongAdder catalogMisses = new LongAdder();
+
+    /**
+     * JSON body split in chunks, with the ETag of the whole body.
+     */
+    public record EncodedJson(List<ByteBuffer> chunks, String etag) {
+
+        /**
+         * Buffers sharing the stored bytes, one per chunk.
+         */
+        public Flux<DataBuffer> body(DataBufferFactory bufferFactory) {
+            return Flux.fromIterable(chunks).map(chunk -> bufferFactory.wrap(chunk.duplicate()));
+        }
+
+        public long size() {
+            return chunks.stream().mapToLong(ByteBuffer::remaining).sum();
+        }
+    }
+
+    private record ProductKey(Long id, long generation) {
+    }
+
+    // A stale chunk keeps its old bytes for listings that started before it changed.
+    private record Chunk(ByteBuffer json, long crc, long stamp, boolean fresh) {
+
+        private Chunk stale(long stamp) {
+            return new Chunk(json, crc, stamp, false);
+        }
+    }
+
+    private record ChunkKey(long index, long stamp) {
+    }
+
+    // The joined catalog, valid while no invalidation happened after stamp.
+    private record Assembled(EncodedJson json, long stamp) {
+    }
+
+    private static final class TooLarge extends RuntimeException {
+
+        private TooLarge() {
+            super(null, null, false, false);
+        }
+    }
+
+    public ProductJsonCache(
+            ObjectMapper objectMapper,
+            @Value("${store.cache.product.max-size:10000}") long maxSize,
+            @Value("${store.cache.product.ttl:5m}") Duration ttl,
+            @Value("${store.cache.catalog.max-bytes:64MB}") DataSize catalogMaxBytes
+    ) {
+        this.objectMapper = objectMapper;
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.catalogMaxBytes = catalogMaxBytes.toBytes();
+    }
+
+    public Mono<EncodedJson> product(Long id, Function<Long, Mono<ProductResponseDto>> loader) {
+        return Mono.defer(() -> {
+            EncodedJson cached = products.getIfPresent(id);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            long seen = generations.current(id);
+            return productLoads.execute(new ProductKey(id, seen), key -> loader.apply(key.id()).map(this::encode))
+                    .doOnNext(loaded -> store(id, seen, loaded));
+        });
+    }
+
+    /**
+     * The encoded catalog, or empty when it is too large to keep and must be
+     * streamed. {@code pages} returns up to the given number of products with
+     * an id above the given one, in id order, and must already reflect every
+     * change event published before the call.
+     */
+    public Mono<EncodedJson> catalog(BiFunction<Long, Integer, Flux<ProductResponseDto>> pages) {
+        return Mono.defer(() -> {
+            long seen = stamps.get();
+            Assembled cached = assembled;
+            if (cached != null && cached.stamp() == seen) {
+                catalogHits.increment();
+                return Mono.just(cached.json());
+            }
+            if (catalogTooLarge) {
+                catalogHits.increment();
+                return Mono.empty();
+            }
+
+            catalogMisses.increment();
+            // Changes made while the full load runs mark their chunks stale, so joining it is safe
+            Mono<Boolean> loaded = catalogLoaded
+                    ? Mono.just(true)
+                    : catalogLoads.execute(Boolean.TRUE, ignored -> loadAll(pages));
+            return loaded.flatMap(fits -> fits ? refresh(pages, seen) : Mono.empty());
+        });
+    }
+
+    public void invalidate(Long id) {
+        generations.bump(id);
+        products.invalidate(id);
+
+        long stamp = stamps.incrementAndGet();
+        chunks.compute(id / IDS_PER_CHUNK, (index, chunk) ->
+                chunk == null ? new Chunk(null, 0, stamp, false) : chunk.stale(stamp));
+    }
+
+    /**
+     * Hit, miss and eviction counters of the product entries since startup.
+     */
+    public CacheStats productStats() {
+        return products.stats();
+    }
+
+    /**
+     * Product misses that went through the single-flight layer, coalesced or not.
+     */
+    public long productLoads() {
+        return productLoads.requests();
+    }
+
+    /**
+     * Product misses that joined a load already in flight instead of querying again.
+     */
+    public long coalescedProductLoads() {
+        return productLoads.coalesced();
+    }
+
+    public long productCount() {
+        return products.estimatedSize();
+    }
+
+    public long catalogHits() {
+        return catalogHits.sum();
+    }
+
+    public long catalogMisses() {
+        return catalogMisses.sum();
+    }
+
+    /**
+     * Bytes of the cached catalog chunks, 0 when none is kept.
+     */
+    public long catalogBytes() {
+        long total = 0;
+        for (Chunk chunk : chunks.values()) {
+            total += chunk.json() == null ? 0 : chunk.json().remaining();
+        }
+        return total;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.productId());
+        if (event.type() == ProductChangedEvent.ChangeType.UPDATED || event.type() == ProductChangedEvent.ChangeType.DELETED) {
+            // The catalog may have shrunk below the limit
+            catalogTooLarge = false;
+        }
+    }
+
+    private void store(Long id, long seen, EncodedJson loaded) {
+        if (generations.current(id) == seen) {
+            products.put(id, loaded);
+            // A write that bumped after the check may have invalidated before the put
+            if (generations.current(id) != seen) {
+                products.invalidate(id);
+            }
+        }
+    }
+
+    private Mono<Boolean> loadAll(BiFunction<Long, Integer, Flux<ProductResponseDto>> pages) {
+        return Mono.defer(() -> {
+            long started = stamps.get();
+            long[] total = {0};
+            return KeysetPagination.stream(pages, ProductResponseDto::getId)
+                    .bufferUntilChanged(product -> product.getId() / IDS_PER_CHUNK)
+                    .doOnNext(rows -> {
+                        Chunk built = encode(rows, started);
+                        total[0] += built.json().remaining();
+                        if (total[0] > catalogMaxBytes) {
+                            throw new TooLarge();
+                        }
+                        // A chunk invalidated after the load started keeps its stale mark
+                        chunks.merge(rows.get(0).getId() / IDS_PER_CHUNK, built,
+                                (current, loaded) -> current.stamp() > started ? current : loaded);
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        catalogLoaded = true;
+                        return true;
+                    }))
+                    .onErrorResume(TooLarge.class, ex -> {
+                        dropCatalog();
+                        return Mono.just(false);
+                    });
+        });
+    }
+
+    /**
+     * Reloads the chunks that were stale when the listing arrived and joins
+     * them with the others as they were then.
+     */
+    private Mono<EncodedJson> refresh(BiFunction<Long, Integer, Flux<ProductResponseDto>> pages, long seen) {
+        return Mono.defer(() -> {
+            Map<Long, Chunk> current = new TreeMap<>(chunks);
+            return Flux.fromIterable(current.entrySet())
+                    .filter(entry -> !entry.getValue().fresh())
+                    .flatMap(entry -> chunkLoads.execute(
+                                    new ChunkKey(entry.getKey(), entry.getValue().stamp()),
+                                    key -> loadChunk(pages, key))
+                            .map(loaded -> Map.entry(entry.getKey(), loaded)), CHUNK_LOAD_CONCURRENCY)
+                    .doOnNext(loaded -> current.put(loaded.getKey(), loaded.getValue()))
+                    .then(Mono.fromSupplier(() -> assemble(current.values(), seen)));
+        });
+    }
+
+    private Mono<Chunk> loadChunk(BiFunction<Long, Integer, Flux<ProductResponseDto>> pages, ChunkKey key) {
+        long first = key.index() * IDS_PER_CHUNK;
+        return pages.apply(first - 1, IDS_PER_CHUNK)
+                .takeWhile(product -> product.getId() < first + IDS_PER_CHUNK)
+                .collectList()
+                .map(rows -> encode(rows, key.stamp()))
+                .doOnNext(loaded -> chunks.computeIfPresent(key.index(),
+                        (index, chunk) -> chunk.stamp() == key.stamp() ? loaded : chunk));
+    }
+
+    // Returns null, so the listing is streamed, when the chunks add up to more than the limit.
+    private EncodedJson assemble(Iterable<Chunk> current, long seen) {
+        List<ByteBuffer> body = new ArrayList<>();
+        body.add(OPEN);
+        CRC32C crc = new CRC32C();
+        ByteBuffer digest = ByteBuffer.allocate(2 * Long.BYTES);
+        long total = OPEN.remaining() + CLOSE.remaining();
+        for (Chunk chunk : current) {
+            ByteBuffer json = chunk.json();
+            if (!json.hasRemaining()) {
+                continue;
+            }
+            // The first product of the listing has no comma before it
+            body.add(body.size() == 1 ? json.slice(1, json.remaining() - 1) : json);
+            total += body.get(body.size() - 1).remaining();
+            digest.clear();
+            digest.putLong(chunk.crc()).putLong(json.remaining()).flip();
+            crc.update(digest);
+        }
+        body.add(CLOSE);
+        if (total > catalogMaxBytes) {
+            dropCatalog();
+            return null;
+        }
+
+        EncodedJson json = new EncodedJson(List.copyOf(body), etag(total, crc));
+        Assembled previous = assembled;
+        if (previous == null || previous.stamp() < seen) {
+            assembled = new Assembled(json, seen);
+        }
+        return json;
+    }
+
+    private void dropCatalog() {
+        catalogTooLarge = true;
+        catalogLoaded = false;
+        assembled = null;
+        chunks.clear();
+    }
+
+    private EncodedJson encode(ProductResponseDto product) {
+        ByteBuffer json = ByteBuffer.wrap(bytes(product)).asReadOnlyBuffer();
+        CRC32C crc = new CRC32C();
+        crc.update(json.duplicate());
+        return new EncodedJson(List.of(json), etag(json.remaining(), crc));
+    }
+
+    private Chunk encode(List<ProductResponseDto> rows, long stamp) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ProductResponseDto product : rows) {
+            out.write(',');
+            out.writeBytes(bytes(product));
+        }
+        byte[] bytes = out.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return new Chunk(ByteBuffer.wrap(bytes).asReadOnlyBuffer(), crc.getValue(), stamp, true);
+    }
+
+    private byte[] bytes(ProductResponseDto product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not encode product " + product.getId(), ex);
+        }
+    }
+
+    private static String etag(long length, CRC32C crc) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+}
@@ -0,0 +1,417 @@
+package com.java.challenge.store.catalog;
+
+import com.java.challenge.store.config.RoutingConnectionFactory;
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.util.KeysetPagination;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Columnar copy of the whole catalog for {@code GET /api/products}, enabled
+ * with {@code store.catalog.snapshot.enabled}. Products live in parallel
+ * primitive arrays sorted by id: ids, prices in cents, stock and version, plus
+ * the name, interned so products with the same name share one string. A full
+ * listing is written as JSON straight from the arrays, without an entity or a
+ * DTO per product.
+ * <p>
+ * Loaded at startup by streaming the products table; changes published
+ * meanwhile are replayed once the load finishes, then applied as they come.
+ * A failed load is started again with exponential backoff; until one
+ * finishes, listings are read from the database.
+ * Changes to a product and new ids above the last one are written in place.
+ * A lower id or a delete copies the arrays, so listings already walking the old
+ * ones are not disturbed. Listings never lock: each chunk of rows is read
+ * optimistically and read again under the lock if a write happened meanwhile.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "store.catalog.snapshot.enabled", havingValue = "true")
+public class ProductCatalogSnapshot implements MeterBinder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int ROWS_PER_CHUNK = 512;
+    // Bytes per row of the arrays, with compressed references for the name.
+    private static final int ROW_BYTES = Long.BYTES * 3 + Integer.BYTES * 2;
+
+    private final ProductRepository repository;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final StampedLock lock = new StampedLock();
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private volatile boolean ready;
+
+    // Changes published while a load runs, guarded by the lock.
+    private List<ProductChangedEvent> pending;
+    private Disposable loading;
+
+    public ProductCatalogSnapshot(
+            ProductRepository repository,
+            @Value("${store.catalog.snapshot.retry-backoff:1s}") Duration retryBackoff,
+            @Value("${store.catalog.snapshot.max-retry-backoff:1m}") Duration maxRetryBackoff
+    ) {
+        this.repository = repository;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        loading = Mono.defer(() -> {
+                    loadStarted();
+                    return KeysetPagination.stream(repository::findPage, Product::getId)
+                            .reduce(new Columns(INITIAL_CAPACITY), Columns::appendLoaded)
+                            .doOnError(error -> loadFailed());
+                })
+                .contextWrite(RoutingConnectionFactory.readOnly())
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, retryBackoff)
+                        .maxBackoff(maxRetryBackoff)
+                        .doBeforeRetry(signal -> log.warn(
+                                "Could not load the catalog snapshot (attempt {}), listings are read from the database until a retry succeeds",
+                                signal.totalRetries() + 1, signal.failure())))
+                .subscribe(
+                        loaded -> {
+                            loaded(loaded);
+                            log.info("Catalog snapshot loaded with {} products in {} ms",
+                                    loaded.size, (System.nanoTime() - started) / 1_000_000);
+                        },
+                        error -> log.error("Could not load the catalog snapshot, listings are read from the database", error)
+                );
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (loading != null) {
+            loading.dispose();
+        }
+    }
+
+    private void loadStarted() {
+        long stamp = lock.writeLock();
+        try {
+            ready = false;
+            pending = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Changes are not buffered between attempts: the next one reads them from the table.
+    private void loadFailed() {
+        long stamp = lock.writeLock();
+        try {
+            pending = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Whether the initial load has finished. Until then listings must be read
+     * from the database.
+     */
+    public boolean ready() {
+        return ready;
+    }
+
+    public int size() {
+        return columns.size;
+    }
+
+    /**
+     * Heap taken by the arrays, not counting the name strings.
+     */
+    public long footprintBytes() {
+        return (long) columns.capacity() * ROW_BYTES;
+    }
+
+    // Runs before the other listeners, so anything they trigger already reads the change from here.
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            } else {
+                apply(event);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds or replaces a product. A product older than the stored one, by
+     * version, is ignored.
+     */
+    public void put(Product product) {
+        long stamp = lock.writeLock();
+        try {
+            upsert(product);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * The catalog as a JSON array with the fields of {@code ProductResponseDto},
+     * in id order, split in buffers of {@value #ROWS_PER_CHUNK} products.
+     */
+    public Flux<DataBuffer> writeJson(DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            Columns snapshot = columns;
+            int size = snapshot.size;
+            JsonWriter json = new JsonWriter(ROWS_PER_CHUNK * 64);
+            return Flux.generate(() -> 0, (row, sink) -> {
+                int end = Math.min(size, row + ROWS_PER_CHUNK);
+                writeRows(snapshot, row, end, size, json);
+                DataBuffer buffer = bufferFactory.allocateBuffer(json.length());
+                buffer.write(json.bytes(), 0, json.length());
+                sink.next(buffer);
+                if (end == size) {
+                    sink.complete();
+                }
+                return end;
+            });
+        });
+    }
+
+    /**
+     * Up to {@code limit} products with an id above {@code afterId}, in id
+     * order, like a keyset page of the products table.
+     */
+    public List<ProductResponseDto> findAfter(long afterId, int limit) {
+        Columns snapshot = columns;
+        long stamp = lock.tryOptimisticRead();
+        List<ProductResponseDto> rows = snapshot.read(afterId, limit);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                rows = columns.read(afterId, limit);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("store.catalog.snapshot.products", this, ProductCatalogSnapshot::size)
+                .register(registry);
+        Gauge.builder("store.catalog.snapshot.bytes", this, ProductCatalogSnapshot::footprintBytes)
+                .description("Heap taken by the catalog snapshot arrays, without the names")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private void loaded(Columns loaded) {
+        long stamp = lock.writeLock();
+        try {
+            columns = loaded;
+            pending.forEach(this::apply);
+            pending = null;
+            ready = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (event.product() == null) {
+            Columns current = columns;
+            int row = current.find(event.productId());
+            if (row >= 0) {
+                columns = current.without(row);
+            }
+        } else {
+            upsert(event.product());
+        }
+    }
+
+    private void upsert(Product product) {
+        Columns current = columns;
+        int row = current.find(product.getId());
+        if (row >= 0) {
+            if (current.versions[row] <= version(product)) {
+                current.set(row, product);
+            }
+        } else if (-row - 1 == current.size && current.size < current.capacity()) {
+            current.append(product);
+        } else {
+            columns = current.withInserted(-row - 1, product);
+        }
+    }
+
+    private void writeRows(Columns snapshot, int from, int to, int size, JsonWriter json) {
+        long stamp = lock.tryOptimisticRead();
+        snapshot.writeJson(from, to, size, json);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                snapshot.writeJson(from, to, size, json);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private static long version(Product product) {
+        return product.getVersion() == null ? 0L : product.getVersion();
+    }
+
+    static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static final class Columns {
+
+        private final long[] ids;
+        private final long[] prices;
+        private final int[] stocks;
+        private final long[] versions;
+        private final String[] names;
+        // Rows below size are complete, writers publish a new row by increasing it.
+        private volatile int size;
+
+        private Columns(int capacity) {
+            ids = new long[capacity];
+            prices = new long[capacity];
+            stocks = new int[capacity];
+            versions = new long[capacity];
+            names = new String[capacity];
+        }
+
+        int capacity() {
+            return ids.length;
+        }
+
+        int find(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        void set(int row, Product product) {
+            ids[row] = product.getId();
+            prices[row] = toCents(product.getPrice());
+            stocks[row] = product.getStock();
+            versions[row] = version(product);
+            names[row] = product.getName().intern();
+        }
+
+        /**
+         * Only for ids above the last one, with room left.
+         */
+        void append(Product product) {
+            set(size, product);
+            size = size + 1;
+        }
+
+        Columns withInserted(int row, Product product) {
+            int capacity = size < capacity() ? capacity() : capacity() + (capacity() >> 1);
+            Columns copy = new Columns(capacity);
+            copy.copyFrom(this, 0, 0, row);
+            copy.copyFrom(this, row, row + 1, size - row);
+            copy.set(row, product);
+            copy.size = size + 1;
+            return copy;
+        }
+
+        Columns without(int row) {
+            Columns copy = new Columns(capacity());
+            copy.copyFrom(this, 0, 0, row);
+            copy.copyFrom(this, row + 1, row, size - row - 1);
+            copy.size = size - 1;
+            return copy;
+        }
+
+        /**
+         * Appends to the array being built by the initial load, growing it as
+         * needed. The load reads in id order and nothing else sees these arrays
+         * until it finishes.
+         */
+        Columns appendLoaded(Product product) {
+            Columns target = size < capacity() ? this : withCapacity(capacity() * 2);
+            target.append(product);
+            return target;
+        }
+
+        private Columns withCapacity(int capacity) {
+            Columns copy = new Columns(capacity);
+            copy.copyFrom(this, 0, 0, size);
+            copy.size = size;
+            return copy;
+        }
+
+        private void copyFrom(Columns source, int from, int to, int length) {
+            System.arraycopy(source.ids, from, ids, to, length);
+            System.arraycopy(source.prices, from, prices, to, length);
+            System.arraycopy(source.stocks, from, stocks, to, length);
+            System.arraycopy(source.versions, from, versions, to, length);
+            System.arraycopy(source.names, from, names, to, length);
+        }
+
+        List<ProductResponseDto> read(long afterId, int limit) {
+            int end = size;
+            int row = Arrays.binarySearch(ids, 0, end, afterId);
+            int from = row >= 0 ? row + 1 : -row - 1;
+            int to = (int) Math.min(end, (long) from + limit);
+            List<ProductResponseDto> rows = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                rows.add(new ProductResponseDto(ids[i], names[i], BigDecimal.valueOf(prices[i], 2), stocks[i]));
+            }
+            return rows;
+        }
+
+        void writeJson(int from, int to, int size, JsonWriter json) {
+            json.reset();
+            if (from == 0) {
+                json.write('[');
+            }
+            for (int row = from; row < to; row++) {
+                if (row > 0) {
+                    json.write(',');
+                }
+                json.ascii("{\"id\":");
+                json.number(ids[row]);
+                json.ascii(",\"name\":");
+                json.string(names[row]);
+                json.ascii(",\"price\":");
+                json.cents(prices[row]);
+                json.ascii(",\"stock\":");
+                json.number(stocks[row]);
+                json.write('}');
+            }
+            if (to == size) {
+                json.write(']');
+            }
+        }
+    }
+}
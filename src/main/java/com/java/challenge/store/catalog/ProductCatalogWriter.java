@@ -0,0 +1,61 @@
+package com.java.challenge.store.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.service.ProductService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * Writes the full product listing as a JSON array, and reads it in keyset
+ * pages for the encoded catalog of {@code ProductJsonCache}: from the catalog
+ * snapshot when it is enabled and loaded, otherwise from the database.
+ */
+@Component
+public class ProductCatalogWriter {
+
+    private static final ResolvableType PRODUCT_TYPE = ResolvableType.forClass(ProductResponseDto.class);
+
+    private final ProductService productService;
+    private final ObjectProvider<ProductCatalogSnapshot> snapshot;
+    private final Jackson2JsonEncoder encoder;
+
+    public ProductCatalogWriter(
+            ProductService productService,
+            ObjectProvider<ProductCatalogSnapshot> snapshot,
+            ObjectMapper objectMapper
+    ) {
+        this.productService = productService;
+        this.snapshot = snapshot;
+        this.encoder = new Jackson2JsonEncoder(objectMapper);
+    }
+
+    public Flux<DataBuffer> writeAll(DataBufferFactory bufferFactory) {
+        ProductCatalogSnapshot catalog = snapshot.getIfAvailable();
+        if (catalog != null && catalog.ready()) {
+            return catalog.writeJson(bufferFactory);
+        }
+        return encoder.encode(productService.findAll(), bufferFactory, PRODUCT_TYPE, MediaType.APPLICATION_JSON, Map.of());
+    }
+
+    /**
+     * Up to {@code limit} products with an id above {@code afterId}, in id
+     * order. The database is read on the primary, so a page read right after a
+     * change event already contains it.
+     */
+    public Flux<ProductResponseDto> findAfter(Long afterId, int limit) {
+        ProductCatalogSnapshot catalog = snapshot.getIfAvailable();
+        if (catalog != null && catalog.ready()) {
+            return Flux.defer(() -> Flux.fromIterable(catalog.findAfter(afterId, limit)));
+        }
+        return productService.findAfter(afterId, limit);
+    }
+}
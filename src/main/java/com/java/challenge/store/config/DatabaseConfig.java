@@ -1,5 +1,11 @@
 package com.java.challenge.store.config;
 
+import com.java.challenge.store.metrics.ConnectionPoolUsage;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.ReactiveTransactionManager;
@@ -14,4 +20,22 @@ public class DatabaseConfig {
     ) {
         return TransactionalOperator.create(transactionManager);
     }
+
+    /**
+     * Usage of the connection pool of Spring Boot, next to the
+     * {@code r2dbc.pool.*} gauges Boot publishes for it. The pools behind
+     * {@link RoutingConnectionFactory} publish their own.
+     */
+    @Bean
+    public MeterBinder connectionPoolUsage(ObjectProvider<ConnectionFactory> connectionFactory) {
+        return registry -> {
+            ConnectionFactory target = connectionFactory.getIfAvailable();
+            while (!(target instanceof ConnectionPool) && target instanceof Wrapped<?> wrapped) {
+                target = (ConnectionFactory) wrapped.unwrap();
+            }
+            if (target instanceof ConnectionPool pool) {
+                new ConnectionPoolUsage(pool, "connectionFactory").bindTo(registry);
+            }
+        };
+    }
 }
@@ -0,0 +1,91 @@
+package com.java.challenge.store.config;
+
+import com.java.challenge.store.cache.ProductJsonCache;
+import com.java.challenge.store.metrics.TimedConnectionFactory;
+import com.java.challenge.store.search.ProductSearchIndex;
+import com.java.challenge.store.service.impl.StockStreamServiceImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Wraps every connection factory to time connection acquisition. Pool
+     * gauges such as pending connections are published by Spring Boot as
+     * {@code r2dbc.pool.*}.
+     */
+    @Bean
+    public static BeanPostProcessor connectionAcquireMetrics(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionFactory connectionFactory
+                        && !(bean instanceof TimedConnectionFactory)) {
+                    return new TimedConnectionFactory(connectionFactory, registry.getObject(), beanName);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder productJsonCacheMetrics(ProductJsonCache productJsonCache) {
+        return registry -> {
+            FunctionCounter.builder("store.cache.product.requests", productJsonCache, cache -> cache.productStats().hitCount())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("store.cache.product.requests", productJsonCache, cache -> cache.productStats().missCount())
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("store.cache.product.evictions", productJsonCache, cache -> cache.productStats().evictionCount())
+                    .register(registry);
+            FunctionCounter.builder("store.cache.product.loads", productJsonCache, ProductJsonCache::productLoads)
+                    .register(registry);
+            FunctionCounter.builder("store.cache.product.loads.coalesced", productJsonCache, ProductJsonCache::coalescedProductLoads)
+                    .register(registry);
+            Gauge.builder("store.cache.product.size", productJsonCache, ProductJsonCache::productCount)
+                    .register(registry);
+            FunctionCounter.builder("store.cache.catalog.json.requests", productJsonCache, ProductJsonCache::catalogHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("store.cache.catalog.json.requests", productJsonCache, ProductJsonCache::catalogMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("store.cache.catalog.json.bytes", productJsonCache, ProductJsonCache::catalogBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder productSearchMetrics(ProductSearchIndex searchIndex) {
+        return registry -> {
+            Gauge.builder("store.search.index.products", searchIndex, ProductSearchIndex::size)
+                    .register(registry);
+            Gauge.builder("store.search.index.terms", searchIndex, ProductSearchIndex::terms)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder stockStreamMetrics(StockStreamServiceImpl stockStream) {
+        return registry -> {
+            Gauge.builder("store.stock.stream.subscribers", stockStream, StockStreamServiceImpl::subscribers)
+                    .register(registry);
+            FunctionCounter.builder("store.stock.stream.conflated", stockStream, StockStreamServiceImpl::conflated)
+                    .register(registry);
+            FunctionCounter.builder("store.stock.stream.dropped", stockStream, StockStreamServiceImpl::dropped)
+                    .register(registry);
+            FunctionCounter.builder("store.stock.stream.stale", stockStream, StockStreamServiceImpl::stale)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.java.challenge.store.config;
+
+import com.java.challenge.store.pricing.PricingEngine;
+import com.java.challenge.store.pricing.PricingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PricingProperties.class)
+public class PricingConfig {
+
+    /**
+     * Discount rules come from {@code store.pricing.discounts}, falling back to
+     * the standard rules when none are configured.
+     */
+    @Bean
+    public PricingEngine pricingEngine(PricingProperties properties) {
+        return new PricingEngine(
+                properties.discounts() == null || properties.discounts().isEmpty()
+                        ? PricingEngine.standardRules()
+                        : properties.discounts()
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package com.java.challenge.store.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Option;
+import io.r2dbc.spi.Wrapped;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the connection pool of Spring Boot with a primary pool plus one pool
+ * per read replica, both built from {@code spring.r2dbc}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "store.read-replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public RoutingConnectionFactory connectionFactory(R2dbcProperties r2dbc, ReadReplicaProperties properties) {
+        R2dbcProperties.Pool pool = r2dbc.getPool();
+        ConnectionPool primary = pool("primary", r2dbc.getUrl(), r2dbc, pool.getInitialSize(), pool.getMaxSize());
+
+        Map<String, ConnectionPool> replicas = new LinkedHashMap<>();
+        List<ReadReplicaProperties.Replica> configured = properties.replicas() == null ? List.of() : properties.replicas();
+        if (configured.isEmpty()) {
+            throw new IllegalArgumentException("store.read-replicas.enabled is true but store.read-replicas.replicas is empty");
+        }
+        for (int i = 0; i < configured.size(); i++) {
+            ReadReplicaProperties.Replica replica = configured.get(i);
+            String name = "replica-" + i;
+            replicas.put(name, pool(
+                    name,
+                    replica.url(),
+                    r2dbc,
+                    replica.initialSize() == null ? pool.getInitialSize() : replica.initialSize(),
+                    replica.maxSize() == null ? pool.getMaxSize() : replica.maxSize()
+            ));
+        }
+
+        Duration healthCheckInterval = properties.healthCheckInterval() == null
+                ? Duration.ofSeconds(5)
+                : properties.healthCheckInterval();
+        return new RoutingConnectionFactory(primary, replicas, healthCheckInterval);
+    }
+
+    /**
+     * Pool gauges for the primary and every replica, published as
+     * {@code r2dbc.pool.*{name=...}} like the single pool of Spring Boot.
+     */
+    @Bean
+    public MeterBinder readReplicaMetrics(ConnectionFactory connectionFactory) {
+        ConnectionFactory target = connectionFactory;
+        while (!(target instanceof RoutingConnectionFactory) && target instanceof Wrapped<?> wrapped) {
+            target = (ConnectionFactory) wrapped.unwrap();
+        }
+        return (RoutingConnectionFactory) target;
+    }
+
+    private ConnectionPool pool(String name, String url, R2dbcProperties r2dbc, int initialSize, int maxSize) {
+        ConnectionFactoryBuilder builder = ConnectionFactoryBuilder.withUrl(url)
+                .configure(options -> r2dbc.getProperties()
+                        .forEach((key, value) -> options.option(Option.valueOf(key), value)));
+        if (StringUtils.hasText(r2dbc.getUsername())) {
+            builder.username(r2dbc.getUsername());
+        }
+        if (StringUtils.hasText(r2dbc.getPassword())) {
+            builder.password(r2dbc.getPassword());
+        }
+
+        R2dbcProperties.Pool pool = r2dbc.getPool();
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration.builder(builder.build())
+                .name(name)
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(pool.getMaxIdleTime())
+                .validationDepth(pool.getValidationDepth());
+        if (pool.getMaxLifeTime() != null) {
+            configuration.maxLifeTime(pool.getMaxLifeTime());
+        }
+        if (pool.getMaxAcquireTime() != null) {
+            configuration.maxAcquireTime(pool.getMaxAcquireTime());
+        }
+        if (StringUtils.hasText(pool.getValidationQuery())) {
+            configuration.validationQuery(pool.getValidationQuery());
+        }
+        return new ConnectionPool(configuration.build());
+    }
+}
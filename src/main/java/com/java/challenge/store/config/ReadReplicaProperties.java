@@ -0,0 +1,17 @@
+package com.java.challenge.store.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Replicas that serve read-only queries. Credentials are taken from
+ * {@code spring.r2dbc}, and pool sizes default to those of the primary.
+ */
+@ConfigurationProperties(prefix = "store.read-replicas")
+public record ReadReplicaProperties(boolean enabled, List<Replica> replicas, Duration healthCheckInterval) {
+
+    public record Replica(String url, Integer initialSize, Integer maxSize) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.java.challenge.store.config;
+
+import com.java.challenge.store.metrics.ConnectionPoolUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.ValidationDepth;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Sends connections requested under {@link #readOnly()} to the replicas in
+ * round robin and everything else, including every transaction, to the
+ * primary. A replica that fails to hand out a connection or a health check is
+ * skipped until a later check succeeds; with no healthy replica, or none at
+ * all, reads go to the primary.
+ */
+@Slf4j
+public class RoutingConnectionFactory implements ConnectionFactory, Disposable, MeterBinder {
+
+    private static final String READ_ONLY = RoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Disposable healthCheck;
+    private Counter fallbacks;
+
+    public RoutingConnectionFactory(ConnectionPool primary, Map<String, ConnectionPool> replicas, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.healthCheck = Flux.interval(healthCheckInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> Flux.fromIterable(this.replicas)
+                        .flatMap(replica -> replica.check(healthCheckInterval)))
+                .subscribe();
+    }
+
+    /**
+     * Marks the subscriptions upstream as read-only. Has no effect when
+     * replicas are not configured or inside a transaction, which is bound to a
+     * primary connection before any query runs.
+     */
+    public static Function<Context, Context> readOnly() {
+        return context -> context.put(READ_ONLY, true);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(context -> {
+            Replica replica = isReadOnly(context) ? nextHealthy() : null;
+            if (replica == null) {
+                return Mono.from(primary.create());
+            }
+            return Mono.<Connection>from(replica.pool.create())
+                    .onErrorResume(ex -> {
+                        replica.down(ex);
+                        countFallback();
+                        return Mono.from(primary.create());
+                    });
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return primary.getMetadata();
+    }
+
+    @Override
+    public void dispose() {
+        healthCheck.dispose();
+        replicas.forEach(replica -> replica.pool.dispose());
+        primary.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return primary.isDisposed();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ConnectionPoolMetrics(primary, "primary", Tags.empty()).bindTo(registry);
+        new ConnectionPoolUsage(primary, "primary").bindTo(registry);
+        for (Replica replica : replicas) {
+            new ConnectionPoolMetrics(replica.pool, replica.name, Tags.empty()).bindTo(registry);
+            new ConnectionPoolUsage(replica.pool, replica.name).bindTo(registry);
+            Gauge.builder("store.r2dbc.replica.healthy", replica.healthy, healthy -> healthy.get() ? 1 : 0)
+                    .tag("name", replica.name)
+                    .register(registry);
+        }
+        fallbacks = Counter.builder("store.r2dbc.replica.fallbacks")
+                .description("Read-only connections served by the primary because a replica failed")
+                .register(registry);
+    }
+
+    private boolean isReadOnly(ContextView context) {
+        return context.getOrDefault(READ_ONLY, false);
+    }
+
+    private Replica nextHealthy() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy.get()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void countFallback() {
+        if (fallbacks != null) {
+            fallbacks.increment();
+        }
+    }
+
+    private static final class Replica {
+
+        private final ConnectionPool pool;
+        private final String name;
+        private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+        private Replica(String name, ConnectionPool pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        private Mono<Boolean> check(Duration timeout) {
+            return Mono.usingWhen(
+                            pool.create(),
+                            connection -> Mono.from(connection.validate(ValidationDepth.REMOTE)),
+                            Connection::close
+                    )
+                    .timeout(timeout)
+                    .onErrorReturn(false)
+                    .doOnNext(valid -> {
+                        if (valid && healthy.compareAndSet(false, true)) {
+                            log.info("Read replica {} is healthy again", name);
+                        } else if (!valid && healthy.compareAndSet(true, false)) {
+                            log.warn("Read replica {} failed its health check, reads go elsewhere", name);
+                        }
+                    });
+        }
+
+        private void down(Throwable ex) {
+            if (healthy.compareAndSet(true, false)) {
+                log.warn("Read replica {} could not provide a connection, reads go elsewhere", name, ex);
+            }
+        }
+    }
+}
@@ -1,32 +1,58 @@
 package com.java.challenge.store.controller;
 
 import com.java.challenge.store.dto.*;
+import com.java.challenge.store.exception.BadRequestException;
+import com.java.challenge.store.service.IdempotencyStore;
+import com.java.challenge.store.service.OrderBatchService;
 import com.java.challenge.store.service.OrderService;
+import com.java.challenge.store.service.OrderStatsService;
+import com.java.challenge.store.service.OrderStatusService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 @Tag(name = "Orders", description = "Order management controller")
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final OrderService orderService;
+    private final IdempotencyStore idempotencyStore;
+    private final OrderBatchService orderBatchService;
+    private final OrderStatusService orderStatusService;
+    private final OrderStatsService orderStatsService;
 
     @Operation(
             summary = "Create order",
-            description = "Creates a new order and updates product stock atomically",
+            description = "Creates a new order and updates product stock atomically. Requests repeated with the same Idempotency-Key return the first result instead of creating another order",
+            parameters = {
+                    @Parameter(
+                            name = "Idempotency-Key",
+                            in = ParameterIn.HEADER,
+                            description = "Client generated key that identifies the order across retries",
+                            example = "3f1c7a52-6f0e-4a52-9d53-2a3c1b8f0e11"
+                    )
+            },
             requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     required = true,
                     content = @Content(
@@ -57,15 +83,204 @@ public class OrderController {
     )
     @PostMapping
     public Mono<ResponseEntity<OrderResponseDto>> create(
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody OrderListRequestDto request
     ) {
-        return orderService.createOrder(request)
-                .map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
+        Mono<OrderResponseDto> order;
+        if (idempotencyKey == null) {
+            order = orderService.createOrder(request);
+        } else if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            order = Mono.error(new BadRequestException(
+                    IDEMPOTENCY_KEY_HEADER + " must have between 1 and " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"
+            ));
+        } else {
+            order = idempotencyStore.execute(idempotencyKey, request, () -> orderService.createOrder(request));
+        }
+
+        return order.map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
+    }
+
+    @Operation(
+            summary = "Create orders in bulk",
+            description = "Creates every order of a JSON array or newline delimited JSON stream. Stock is reserved for many orders at once, and each order gets its own result: CREATED, REJECTED (invalid data or not enough stock) or FAILED (could not be stored)",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = {
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = OrderListRequestDto.class)
+                            ),
+                            @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = OrderListRequestDto.class)
+                            )
+                    }
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "One result per order, in the order they were sent",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = OrderBatchResultDto.class)
+                            )
+                    )
+            }
+    )
+    @PostMapping(
+            value = "/batch",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public Flux<OrderBatchResultDto> createBatch(
+            @RequestBody Flux<OrderListRequestDto> requests
+    ) {
+        return orderBatchService.createOrders(requests);
+    }
+
+    @Operation(
+            summary = "Search orders",
+            description = "Returns orders placed in a date range, optionally with a given status, ordered by date using keyset pagination. Pass the nextCursor of a page, with the same filters, to get the following one",
+            parameters = {
+                    @Parameter(
+                            name = "status",
+                            description = "Exact order status",
+                            example = "CONFIRMED ORDER."
+                    ),
+                    @Parameter(
+                            name = "from",
+                            description = "Orders placed at or after this date and time",
+                            example = "2024-01-01T00:00:00"
+                    ),
+                    @Parameter(
+                            name = "to",
+                            description = "Orders placed before this date and time",
+                            example = "2024-02-01T00:00:00"
+                    ),
+                    @Parameter(
+                            name = "cursor",
+                            description = "Opaque cursor returned as nextCursor by the previous page"
+                    ),
+                    @Parameter(
+                            name = "size",
+                            description = "Page size, between 1 and 100",
+                            example = "20"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Page of orders",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = PageResponseDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid range or cursor",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @GetMapping("/search")
+    public Mono<PageResponseDto<OrderResponseDto>> search(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return orderService.search(status, from, to, cursor, size);
+    }
+
+    @Operation(
+            summary = "Order statistics",
+            description = "Order count, revenue and average basket per day, week or month, read from a daily rollup kept up to date as orders are created, updated and deleted",
+            parameters = {
+                    @Parameter(
+                            name = "from",
+                            description = "First day, included. Defaults to 29 days before to",
+                            example = "2024-01-01"
+                    ),
+                    @Parameter(
+                            name = "to",
+                            description = "Last day, included. Defaults to today",
+                            example = "2024-01-31"
+                    ),
+                    @Parameter(
+                            name = "granularity",
+                            description = "day, week or month",
+                            example = "day"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Statistics of the range",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = OrderStatsResponseDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid range or granularity",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @GetMapping("/stats")
+    public Mono<OrderStatsResponseDto> stats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity
+    ) {
+        return orderStatsService.stats(from, to, granularity);
+    }
+
+    @Operation(
+            summary = "Rebuild order statistics",
+            description = "Recomputes the daily rollup from the orders table in chunks of days. Orders keep being accepted while it runs",
+            parameters = {
+                    @Parameter(
+                            name = "from",
+                            description = "First day, included. Defaults to the day of the first order",
+                            example = "2024-01-01"
+                    ),
+                    @Parameter(
+                            name = "to",
+                            description = "Last day, included. Defaults to today",
+                            example = "2024-12-31"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Rebuild finished",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = OrderStatsBackfillReportDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid range",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @PostMapping("/stats/backfill")
+    public Mono<OrderStatsBackfillReportDto> backfillStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return orderStatsService.backfill(from, to);
     }
 
     @Operation(
             summary = "Get order by ID",
-            description = "Retrieves an order using its unique identifier",
+            description = "Retrieves an order and its lines using its unique identifier",
             parameters = {
                     @Parameter(
                             name = "id",
@@ -80,7 +295,7 @@ public class OrderController {
                             description = "Order found",
                             content = @Content(
                                     mediaType = "application/json",
-                                    schema = @Schema(implementation = OrderResponseDto.class)
+                                    schema = @Schema(implementation = OrderDetailResponseDto.class)
                             )
                     ),
                     @ApiResponse(
@@ -91,7 +306,7 @@ public class OrderController {
             }
     )
     @GetMapping("/{id}")
-    public Mono<ResponseEntity<OrderResponseDto>> findById(
+    public Mono<ResponseEntity<OrderDetailResponseDto>> findById(
             @PathVariable Long id
     ) {
         return orderService.findById(id)
@@ -118,6 +333,63 @@ public class OrderController {
         return orderService.findAll();
     }
 
+    @Operation(
+            summary = "List orders by page",
+            description = "Returns orders ordered by ID using keyset pagination. Pass the nextCursor of a page to get the following one",
+            parameters = {
+                    @Parameter(
+                            name = "cursor",
+                            description = "Opaque cursor returned as nextCursor by the previous page"
+                    ),
+                    @Parameter(
+                            name = "size",
+                            description = "Page size, between 1 and 100",
+                            example = "20"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Page of orders",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = PageResponseDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid cursor",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @GetMapping("/page")
+    public Mono<PageResponseDto<OrderResponseDto>> findPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return orderService.findPage(cursor, size);
+    }
+
+    @Operation(
+            summary = "Stream all orders",
+            description = "Streams every order as newline delimited JSON, reading the table in chunks as the client consumes them",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Stream of orders",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = OrderResponseDto.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<OrderResponseDto> stream() {
+        return orderService.stream();
+    }
+
     @Operation(
             summary = "Update order",
             description = "Updates order information such as status or total",
@@ -166,6 +438,113 @@ public class OrderController {
                 .map(ResponseEntity::ok);
     }
 
+    @Operation(
+            summary = "Partially update order",
+            description = "Updates only the fields sent in the body, keeping the stored value of the others",
+            parameters = {
+                    @Parameter(
+                            name = "id",
+                            description = "Order ID",
+                            required = true,
+                            example = "1"
+                    )
+            },
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = OrderPatchRequestDto.class)
+                    )
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Order updated successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = OrderResponseDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid data or no field to update",
+                            content = @Content(mediaType = "application/json")
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Order not found",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<OrderResponseDto>> patch(
+            @PathVariable Long id,
+            @Valid @RequestBody OrderPatchRequestDto request
+    ) {
+        return orderService.patch(id, request)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(
+            summary = "Update order status",
+            description = "Queues a status change that is written in batch with other changes. Changes to the same order queued within the flush interval are coalesced and only the latest is stored. With ack=FLUSHED (default) the response waits for the write; with ack=ACCEPTED it returns 202 as soon as the change is queued",
+            parameters = {
+                    @Parameter(
+                            name = "id",
+                            description = "Order ID",
+                            required = true,
+                            example = "1"
+                    ),
+                    @Parameter(
+                            name = "ack",
+                            description = "FLUSHED waits until the change is stored, ACCEPTED only until it is queued",
+                            example = "FLUSHED"
+                    )
+            },
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = OrderStatusRequestDto.class)
+                    )
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Status stored",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = OrderResponseDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "202",
+                            description = "Status queued"
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid data",
+                            content = @Content(mediaType = "application/json")
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Order not found",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @PutMapping("/{id}/status")
+    public Mono<ResponseEntity<OrderResponseDto>> updateStatus(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "FLUSHED") OrderStatusService.Ack ack,
+            @Valid @RequestBody OrderStatusRequestDto request
+    ) {
+        return orderStatusService.updateStatus(id, request.getStatus(), ack)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.accepted().build());
+    }
+
     @Operation(
             summary = "Delete order",
             description = "Deletes an existing order by ID",
@@ -1,17 +1,35 @@
 package com.java.challenge.store.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.cache.ProductJsonCache;
+import com.java.challenge.store.catalog.ProductCatalogWriter;
+import com.java.challenge.store.dto.PageResponseDto;
+import com.java.challenge.store.dto.ProductImportReportDto;
+import com.java.challenge.store.dto.ProductImportRowDto;
+import com.java.challenge.store.dto.ProductPatchRequestDto;
 import com.java.challenge.store.dto.ProductRequestDto;
 import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.dto.StockLevelDto;
+import com.java.challenge.store.service.ProductImportService;
 import com.java.challenge.store.service.ProductService;
+import com.java.challenge.store.service.StockStreamService;
+import com.java.challenge.store.util.ProductImportParser;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -22,7 +40,15 @@ import reactor.core.publisher.Mono;
 @Tag(name = "Products", description = "Product management controller")
 public class ProductController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final StringDecoder LINE_DECODER = StringDecoder.allMimeTypes();
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ObjectMapper objectMapper;
+    private final StockStreamService stockStreamService;
+    private final ProductCatalogWriter productCatalogWriter;
+    private final ProductJsonCache productJsonCache;
 
 
     @Operation(
@@ -64,7 +90,7 @@ public class ProductController {
 
     @Operation(
             summary = "Search product with ID",
-            description = "Search product by its identifier",
+            description = "Search product by its identifier. The response carries an ETag; send it back in If-None-Match to get a 304 while the product has not changed",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -74,6 +100,10 @@ public class ProductController {
                                     schema = @Schema(implementation = ProductResponseDto.class)
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Product not modified since the ETag sent in If-None-Match"
+                    ),
                     @ApiResponse(
                             responseCode = "404",
                             description = "Product not found",
@@ -83,17 +113,18 @@ public class ProductController {
                     )
             }
     )
-    @GetMapping("/{id}")
-    public Mono<ResponseEntity<ProductResponseDto>> findById(
-            @PathVariable Long id
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Flux<DataBuffer>>> findById(
+            @PathVariable Long id,
+            ServerHttpResponse response
     ) {
-        return productService.findById(id)
-                .map(ResponseEntity::ok);
+        return productJsonCache.product(id, productService::findById)
+                .map(json -> jsonResponse(json, response));
     }
 
     @Operation(
             summary = "Get all products",
-            description = "Retrieve all products stored in the database",
+            description = "Retrieve all products stored in the database. The response carries an ETag while the catalog fits in the response cache; send it back in If-None-Match to get a 304 while no product has changed",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -102,12 +133,186 @@ public class ProductController {
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = ProductResponseDto.class)
                             )
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "No product changed since the ETag sent in If-None-Match"
+                    )
+            }
+    )
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Flux<DataBuffer>>> findAll(ServerHttpResponse response) {
+        return productJsonCache.catalog(productCatalogWriter::findAfter)
+                .map(json -> jsonResponse(json, response))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(productCatalogWriter.writeAll(response.bufferFactory()))));
+    }
+
+    @Operation(
+            summary = "List products by page",
+            description = "Returns products ordered by ID using keyset pagination. Pass the nextCursor of a page to get the following one",
+            parameters = {
+                    @Parameter(
+                            name = "cursor",
+                            description = "Opaque cursor returned as nextCursor by the previous page"
+                    ),
+                    @Parameter(
+                            name = "size",
+                            description = "Page size, between 1 and 100",
+                            example = "20"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Page of products",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = PageResponseDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid cursor",
+                            content = @Content(mediaType = "application/json")
                     )
             }
     )
-    @GetMapping
-    public Flux<ProductResponseDto> findAll() {
-        return productService.findAll();
+    @GetMapping("/page")
+    public Mono<PageResponseDto<ProductResponseDto>> findPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return productService.findPage(cursor, size);
+    }
+
+    @Operation(
+            summary = "Stream all products",
+            description = "Streams every product as newline delimited JSON, reading the table in chunks as the client consumes them. Also served by GET /api/products for clients that send Accept: application/x-ndjson",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Stream of products",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = ProductResponseDto.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping(value = {"/stream", ""}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductResponseDto> stream() {
+        return productService.stream();
+    }
+
+    @Operation(
+            summary = "Search products by name",
+            description = "Returns the products whose name contains every word of the query, as a whole word or as the beginning of one, best matches first. Accents and case are ignored",
+            parameters = {
+                    @Parameter(
+                            name = "q",
+                            description = "Words to search for",
+                            required = true,
+                            example = "wireless mouse"
+                    ),
+                    @Parameter(
+                            name = "limit",
+                            description = "Maximum number of products, between 1 and 100",
+                            example = "20"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Matching products",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ProductResponseDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Missing query",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @GetMapping("/search")
+    public Flux<ProductResponseDto> search(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return productService.search(q, limit);
+    }
+
+    @Operation(
+            summary = "Stream stock changes",
+            description = "Pushes the new stock level of every product that changes, as server-sent events or newline delimited JSON. Clients that read slowly receive only the latest level of each product, and a level older than one already sent for that product, by version, is never sent",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Stream of stock levels",
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                                            schema = @Schema(implementation = StockLevelDto.class)
+                                    ),
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                            schema = @Schema(implementation = StockLevelDto.class)
+                                    )
+                            }
+                    )
+            }
+    )
+    @GetMapping(
+            value = "/stock-stream",
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    public Flux<StockLevelDto> stockStream() {
+        return stockStreamService.stream();
+    }
+
+    @Operation(
+            summary = "Bulk import products",
+            description = "Creates or updates products from a streamed NDJSON or CSV body. CSV input needs a header with the columns name, price, stock and optionally id. Rows with an id update that product, rows without one create a new product",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "One product per line",
+                    required = true,
+                    content = {
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = ProductImportRowDto.class)
+                            ),
+                            @Content(mediaType = TEXT_CSV_VALUE)
+                    }
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Import finished, rows that could not be imported are listed in the report",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ProductImportReportDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid CSV header",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public Mono<ProductImportReportDto> bulkImport(ServerHttpRequest request) {
+        MediaType contentType = request.getHeaders().getContentType();
+        ProductImportParser parser = contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ProductImportParser.ndjson(objectMapper)
+                : ProductImportParser.csv();
+
+        Flux<String> lines = LINE_DECODER.decode(request.getBody(), ResolvableType.forClass(String.class), null, null);
+        return productImportService.importProducts(lines, parser);
     }
 
     @Operation(
@@ -155,6 +360,51 @@ public class ProductController {
                 .map(ResponseEntity::ok);
     }
 
+    @Operation(
+            summary = "Partially update product",
+            description = "Update only the fields sent in the body, keeping the stored value of the others",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Body with the product fields to change",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ProductPatchRequestDto.class)
+                    )
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Product updated successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ProductResponseDto.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid data or no field to update",
+                            content = @Content(
+                                    mediaType = "application/json"
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Product not found",
+                            content = @Content(
+                                    mediaType = "application/json"
+                            )
+                    )
+            }
+    )
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<ProductResponseDto>> patch(
+            @PathVariable Long id,
+            @Valid @RequestBody ProductPatchRequestDto request
+    ) {
+        return productService.patch(id, request)
+                .map(ResponseEntity::ok);
+    }
+
     @Operation(
             summary = "Delete product",
             description = "Delete a product from the database using its ID",
@@ -180,5 +430,15 @@ public class ProductController {
         return productService.delete(id)
                 .thenReturn(ResponseEntity.noContent().build());
     }
-}
 
+    /**
+     * 304 without a body when If-None-Match holds the same ETag, which Spring
+     * checks for entities carrying one.
+     */
+    private static ResponseEntity<Flux<DataBuffer>> jsonResponse(ProductJsonCache.EncodedJson json, ServerHttpResponse response) {
+        return ResponseEntity.ok()
+                .eTag(json.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.body(response.bufferFactory()));
+    }
+}
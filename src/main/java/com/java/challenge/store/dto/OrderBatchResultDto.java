@@ -0,0 +1,21 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class OrderBatchResultDto {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    private long index;
+    private String status;
+    private OrderResponseDto order;
+    private String error;
+    private Map<String, String> details;
+}
@@ -0,0 +1,19 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderDetailResponseDto {
+
+    private Long id;
+    private LocalDateTime orderDate;
+    private BigDecimal total;
+    private String status;
+    private List<OrderItemResponseDto> items;
+}
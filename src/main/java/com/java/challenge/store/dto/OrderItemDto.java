@@ -10,6 +10,7 @@ public class OrderItemDto {
     @NotNull(message = "productId is required")
     private Long productId;
 
+    @NotNull(message = "quantity is required")
     @Positive(message = "quantity must be greater than zero")
     private Integer quantity;
 }
@@ -0,0 +1,15 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class OrderItemResponseDto {
+
+    private Long productId;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+}
@@ -0,0 +1,21 @@
+package com.java.challenge.store.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fields left out, or sent as {@code null}, keep their stored value.
+ */
+@Data
+public class OrderPatchRequestDto {
+
+    private LocalDateTime orderDate;
+    @Positive(message = "total must be greater than zero")
+    private BigDecimal total;
+    @Pattern(regexp = ".*\\S.*", message = "status must not be blank")
+    private String status;
+}
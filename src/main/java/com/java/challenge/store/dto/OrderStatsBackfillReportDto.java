@@ -0,0 +1,17 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class OrderStatsBackfillReportDto {
+
+    private LocalDate from;
+    private LocalDate to;
+    private long chunks;
+    private long daysWithOrders;
+    private long elapsedMillis;
+}
@@ -0,0 +1,17 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class OrderStatsPeriodDto {
+
+    private LocalDate period;
+    private long orderCount;
+    private BigDecimal revenue;
+    private BigDecimal averageBasket;
+}
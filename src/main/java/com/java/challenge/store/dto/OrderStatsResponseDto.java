@@ -0,0 +1,21 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderStatsResponseDto {
+
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    private long orderCount;
+    private BigDecimal revenue;
+    private BigDecimal averageBasket;
+    private List<OrderStatsPeriodDto> periods;
+}
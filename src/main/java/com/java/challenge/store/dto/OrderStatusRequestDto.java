@@ -0,0 +1,13 @@
+package com.java.challenge.store.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class OrderStatusRequestDto {
+
+    @NotBlank(message = "status is required")
+    @Size(max = 50, message = "status must have at most 50 characters")
+    private String status;
+}
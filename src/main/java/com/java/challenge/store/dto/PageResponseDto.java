@@ -0,0 +1,14 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PageResponseDto<T> {
+
+    private List<T> items;
+    private String nextCursor;
+}
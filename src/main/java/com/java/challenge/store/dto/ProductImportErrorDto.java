@@ -0,0 +1,15 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ProductImportErrorDto {
+
+    private long line;
+    private String message;
+    private Map<String, String> details;
+}
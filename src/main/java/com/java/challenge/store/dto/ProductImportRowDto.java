@@ -0,0 +1,15 @@
+package com.java.challenge.store.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * One row of a bulk import. Rows with an id update that product or create it
+ * with that id, rows without one always create a new product.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ProductImportRowDto extends ProductRequestDto {
+
+    private Long id;
+}
@@ -0,0 +1,22 @@
+package com.java.challenge.store.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Fields left out, or sent as {@code null}, keep their stored value.
+ */
+@Data
+public class ProductPatchRequestDto {
+
+    @Pattern(regexp = ".*\\S.*", message = "name must not be blank")
+    private String name;
+
+    @DecimalMin(value = "0.01", message = "price must be greater than 0")
+    private BigDecimal price;
+
+    @Min(value = 0, message = "stock must be >= 0")
+    private Integer stock;
+}
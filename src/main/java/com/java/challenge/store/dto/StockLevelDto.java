@@ -0,0 +1,17 @@
+package com.java.challenge.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class StockLevelDto {
+
+    private Long productId;
+    private Integer stock;
+    // Version of the product row this level was read from, null for a deleted product
+    private Long version;
+    private Instant changedAt;
+}
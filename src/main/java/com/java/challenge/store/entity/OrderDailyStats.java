@@ -0,0 +1,25 @@
+package com.java.challenge.store.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Table("order_daily_stats")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderDailyStats {
+
+    @Id
+    private LocalDate day;
+    @Column("order_count")
+    private Long orderCount;
+
+    private BigDecimal revenue;
+}
@@ -0,0 +1,35 @@
+package com.java.challenge.store.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the order detail join: the order columns repeated for each of its
+ * lines. The line columns are {@code null} for an order without lines.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderDetailRow {
+
+    private Long id;
+    @Column("order_date")
+    private LocalDateTime date;
+
+    private BigDecimal total;
+
+    private String status;
+
+    @Column("product_id")
+    private Long productId;
+
+    private Integer quantity;
+
+    @Column("unit_price")
+    private BigDecimal unitPrice;
+}
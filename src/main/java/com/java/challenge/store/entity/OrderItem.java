@@ -0,0 +1,29 @@
+package com.java.challenge.store.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+
+@Table("order_items")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderItem {
+
+    @Id
+    private Long id;
+    @Column("order_id")
+    private Long orderId;
+    @Column("product_id")
+    private Long productId;
+
+    private Integer quantity;
+
+    @Column("unit_price")
+    private BigDecimal unitPrice;
+}
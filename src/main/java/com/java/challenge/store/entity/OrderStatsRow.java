@@ -0,0 +1,24 @@
+package com.java.challenge.store.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Order count and revenue of one period, summed from the daily rollup.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatsRow {
+
+    private LocalDate period;
+    @Column("order_count")
+    private Long orderCount;
+
+    private BigDecimal revenue;
+}
@@ -0,0 +1,32 @@
+package com.java.challenge.store.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An updated order together with the date and total it had before the update.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderUpdateRow {
+
+    private Long id;
+    @Column("order_date")
+    private LocalDateTime date;
+
+    private BigDecimal total;
+
+    private String status;
+
+    @Column("previous_date")
+    private LocalDateTime previousDate;
+
+    @Column("previous_total")
+    private BigDecimal previousTotal;
+}
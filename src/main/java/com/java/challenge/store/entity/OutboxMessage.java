@@ -0,0 +1,29 @@
+package com.java.challenge.store.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Table("order_outbox")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxMessage {
+
+    @Id
+    private Long id;
+    @Column("aggregate_id")
+    private Long aggregateId;
+    @Column("event_type")
+    private String eventType;
+
+    private String payload;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+}
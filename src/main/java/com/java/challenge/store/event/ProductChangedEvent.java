@@ -0,0 +1,23 @@
+package com.java.challenge.store.event;
+
+import com.java.challenge.store.entity.Product;
+
+/**
+ * Published after a product write has been stored. {@code product} holds the
+ * stored row and is {@code null} for deletions. {@code stockWritten} tells
+ * whether the write set the stock column to a new value, as opposed to a
+ * name or price change or an order decrementing it.
+ */
+public record ProductChangedEvent(ChangeType type, Long productId, Product product, boolean stockWritten) {
+
+    public ProductChangedEvent(ChangeType type, Long productId, Product product) {
+        this(type, productId, product, type == ChangeType.CREATED || type == ChangeType.UPDATED);
+    }
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK_CHANGED
+    }
+}
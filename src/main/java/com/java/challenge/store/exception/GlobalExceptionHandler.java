@@ -1,5 +1,6 @@
 package com.java.challenge.store.exception;
 
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -25,6 +26,16 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public Mono<ResponseEntity<Map<String, String>>> handleBadRequest(
+            BadRequestException ex
+    ) {
+        return Mono.just(
+                ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", ex.getMessage()))
+        );
+    }
+
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<Map<String, Object>> handleBusiness(
             BusinessException ex
@@ -36,6 +47,23 @@ public class GlobalExceptionHandler {
                 .status(HttpStatus.CONFLICT)
                 .body(body);
     }
+
+    /**
+     * Deadlocks, serialization failures and stale versions: the request lost a
+     * race with another one and can be sent again.
+     */
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrencyFailure(
+            ConcurrencyFailureException ex
+    ) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Conflicting concurrent update, please retry");
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(body);
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public ResponseEntity<ValidationException> handleValidationException(
             WebExchangeBindException ex
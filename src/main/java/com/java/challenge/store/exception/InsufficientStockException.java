@@ -0,0 +1,20 @@
+package com.java.challenge.store.exception;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class InsufficientStockException extends BusinessException {
+
+    public InsufficientStockException(
+            List<Long> productIds,
+            Map<Long, Integer> requested,
+            Map<Long, Integer> available
+    ) {
+        super("Insufficient stock for products " + productIds.stream()
+                .map(id -> available.containsKey(id)
+                        ? id + " (requested " + requested.get(id) + ", available " + available.get(id) + ")"
+                        : id + " (requested " + requested.get(id) + ")")
+                .collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,39 @@
+package com.java.challenge.store.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+
+/**
+ * Share of the pool in use, published as {@code r2dbc.pool.usage{name=...}}.
+ * Read together with {@code r2dbc.pool.pending} and the acquire time: a pool
+ * that stays near 1 with callers waiting is too small, one that never goes
+ * above half is oversized.
+ */
+public class ConnectionPoolUsage implements MeterBinder {
+
+    private final ConnectionPool pool;
+    private final String name;
+
+    public ConnectionPoolUsage(ConnectionPool pool, String name) {
+        this.pool = pool;
+        this.name = name;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("r2dbc.pool.usage", pool, ConnectionPoolUsage::usage)
+                .description("Acquired connections divided by the maximum pool size")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    private static double usage(ConnectionPool pool) {
+        return pool.getMetrics()
+                .filter(metrics -> metrics.getMaxAllocatedSize() > 0)
+                .map(metrics -> (double) metrics.acquiredSize() / metrics.getMaxAllocatedSize())
+                .orElse(0d);
+    }
+}
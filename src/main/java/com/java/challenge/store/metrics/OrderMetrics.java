@@ -0,0 +1,105 @@
+package com.java.challenge.store.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Timers for each stage of the order pipeline, published as
+ * {@code store.order.stage{stage=...}} with percentile histograms, plus the
+ * counters of rejected orders and of the order event outbox.
+ */
+@Component
+public class OrderMetrics {
+
+    public static final String PRODUCT_LOOKUP = "product_lookup";
+    public static final String STOCK_UPDATE = "stock_update";
+    public static final String TOTAL_CALCULATION = "total_calculation";
+    public static final String ORDER_SAVE = "order_save";
+    public static final String TRANSACTION_COMMIT = "transaction_commit";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> stages = new ConcurrentHashMap<>();
+    private final Counter insufficientStock;
+    private final Counter outboxPublished;
+    private final Counter outboxFailures;
+    private final Counter orderStatusQueued;
+    private final Counter orderStatusCoalesced;
+    private final Counter orderStatusUnmatched;
+
+    public OrderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.insufficientStock = Counter.builder("store.order.insufficient_stock")
+                .description("Orders rejected because a product did not have enough stock")
+                .register(registry);
+        this.outboxPublished = Counter.builder("store.outbox.published")
+                .description("Order events delivered by the outbox relay")
+                .register(registry);
+        this.outboxFailures = Counter.builder("store.outbox.failures")
+                .description("Outbox batches that could not be delivered and will be retried")
+                .register(registry);
+        this.orderStatusQueued = Counter.builder("store.order.status.queued")
+                .description("Order status changes queued for a write-behind flush")
+                .register(registry);
+        this.orderStatusCoalesced = Counter.builder("store.order.status.coalesced")
+                .description("Queued order status changes replaced by a newer one before being written")
+                .register(registry);
+        this.orderStatusUnmatched = Counter.builder("store.order.status.unmatched")
+                .description("Flushed order status changes dropped because their order no longer exists")
+                .register(registry);
+    }
+
+    public <T> Mono<T> time(String stage, Mono<T> source) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return source.doFinally(signal -> sample.stop(stage(stage)));
+        });
+    }
+
+    public <T> T time(String stage, Supplier<T> source) {
+        return stage(stage).record(source);
+    }
+
+    public void record(String stage, Duration duration) {
+        stage(stage).record(duration);
+    }
+
+    public void insufficientStock() {
+        insufficientStock.increment();
+    }
+
+    public void outboxPublished(int messages) {
+        outboxPublished.increment(messages);
+    }
+
+    public void outboxFailure() {
+        outboxFailures.increment();
+    }
+
+    public void orderStatusQueued() {
+        orderStatusQueued.increment();
+    }
+
+    public void orderStatusCoalesced() {
+        orderStatusCoalesced.increment();
+    }
+
+    public void orderStatusUnmatched(int changes) {
+        orderStatusUnmatched.increment(changes);
+    }
+
+    private Timer stage(String stage) {
+        return stages.computeIfAbsent(stage, name -> Timer.builder("store.order.stage")
+                .description("Time spent in each stage of order creation")
+                .tag("stage", name)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -0,0 +1,69 @@
+package com.java.challenge.store.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records how long callers wait to obtain a connection. In front of a pool this
+ * is the pool acquire time, including the wait for a free connection. Failed
+ * acquisitions, such as those that exceed {@code max-acquire-time}, are tagged
+ * {@code outcome=error}.
+ */
+public class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private final ConnectionFactory delegate;
+    private final MeterRegistry registry;
+    private final Timer acquireTimer;
+    private final Timer failedAcquireTimer;
+
+    public TimedConnectionFactory(ConnectionFactory delegate, MeterRegistry registry, String name) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.acquireTimer = acquireTimer(registry, name, "success");
+        this.failedAcquireTimer = acquireTimer(registry, name, "error");
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return Mono.<Connection>from(delegate.create())
+                    .doOnSuccess(connection -> sample.stop(acquireTimer))
+                    .doOnError(ex -> sample.stop(failedAcquireTimer));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    /**
+     * Keeps the destroy method of a wrapped pool working.
+     */
+    public void dispose() {
+        if (delegate instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    private static Timer acquireTimer(MeterRegistry registry, String name, String outcome) {
+        return Timer.builder("r2dbc.connection.acquire")
+                .description("Time to obtain a connection from the connection factory")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,72 @@
+package com.java.challenge.store.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.entity.OutboxMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends each message as one JSON line to {@code store.outbox.file}, synced
+ * to disk before the batch is acknowledged. Enabled with
+ * {@code store.outbox.sink=file}, as the prod profile does.
+ */
+@Component
+@ConditionalOnProperty(name = "store.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileOutboxSink(
+            ObjectMapper objectMapper,
+            @Value("${store.outbox.file}") Path path
+    ) {
+        this.objectMapper = objectMapper;
+        this.path = path;
+    }
+
+    @Override
+    public Mono<Void> publish(List<OutboxMessage> messages) {
+        return Mono.fromCallable(() -> {
+                    StringBuilder lines = new StringBuilder();
+                    for (OutboxMessage message : messages) {
+                        lines.append(toLine(message)).append('\n');
+                    }
+                    if (path.getParent() != null) {
+                        Files.createDirectories(path.getParent());
+                    }
+                    return Files.writeString(
+                            path,
+                            lines,
+                            StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.APPEND,
+                            StandardOpenOption.DSYNC
+                    );
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private String toLine(OutboxMessage message) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", message.getId());
+        line.put("aggregateId", message.getAggregateId());
+        line.put("eventType", message.getEventType());
+        line.put("createdAt", message.getCreatedAt());
+        line.put("payload", objectMapper.readTree(message.getPayload()));
+        return objectMapper.writeValueAsString(line);
+    }
+}
@@ -0,0 +1,41 @@
+package com.java.challenge.store.outbox;
+
+import com.java.challenge.store.entity.OutboxMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the last {@value #MAX_KEPT} delivered messages in memory. The default
+ * sink, meant for tests and local runs.
+ */
+@Component
+@ConditionalOnProperty(name = "store.outbox.sink", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private static final int MAX_KEPT = 10_000;
+
+    private final Deque<OutboxMessage> delivered = new ArrayDeque<>();
+
+    @Override
+    public Mono<Void> publish(List<OutboxMessage> messages) {
+        return Mono.fromRunnable(() -> {
+            synchronized (delivered) {
+                delivered.addAll(messages);
+                while (delivered.size() > MAX_KEPT) {
+                    delivered.removeFirst();
+                }
+            }
+        });
+    }
+
+    public List<OutboxMessage> delivered() {
+        synchronized (delivered) {
+            return List.copyOf(delivered);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.java.challenge.store.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.OrderDetailResponseDto;
+import com.java.challenge.store.dto.OrderItemResponseDto;
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes order events to the outbox table. Callers run it inside the
+ * transaction that stores the order, so an event exists if and only if the
+ * order was committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    public static final String ORDER_CONFIRMED = "ORDER_CONFIRMED";
+
+    private final OutboxRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public Mono<Integer> ordersConfirmed(List<OrderDetailResponseDto> orders) {
+        if (orders.isEmpty()) {
+            return Mono.just(0);
+        }
+        return Mono.fromCallable(() -> {
+                    String[] payloads = new String[orders.size()];
+                    for (int i = 0; i < payloads.length; i++) {
+                        payloads[i] = objectMapper.writeValueAsString(orders.get(i));
+                    }
+                    return payloads;
+                })
+                .onErrorMap(JsonProcessingException.class, ex -> new IllegalStateException("Order event could not be serialized", ex))
+                .flatMap(payloads -> repository.insertAll(
+                        orders.stream().map(OrderDetailResponseDto::getId).toArray(Long[]::new),
+                        orders.stream().map(order -> ORDER_CONFIRMED).toArray(String[]::new),
+                        payloads
+                ));
+    }
+
+    public static OrderDetailResponseDto confirmed(Order order, List<Product> products, Map<Long, Integer> quantities) {
+        List<OrderItemResponseDto> items = products.stream()
+                .map(product -> new OrderItemResponseDto(
+                        product.getId(),
+                        quantities.get(product.getId()),
+                        product.getPrice()
+                ))
+                .toList();
+        return new OrderDetailResponseDto(order.getId(), order.getDate(), order.getTotal(), order.getStatus(), items);
+    }
+}
@@ -0,0 +1,92 @@
+package com.java.challenge.store.outbox;
+
+import com.java.challenge.store.entity.OutboxMessage;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.OutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Comparator;
+
+/**
+ * Drains the outbox in batches. Each batch is claimed, delivered and deleted in
+ * one transaction: a failed delivery rolls the delete back, so every message is
+ * delivered at least once. Rows are claimed with {@code SKIP LOCKED}, so several
+ * instances can run the relay against the same table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "store.outbox.relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final OutboxRepository repository;
+    private final OutboxSink sink;
+    private final TransactionalOperator transactionalOperator;
+    private final OrderMetrics orderMetrics;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private Disposable poller;
+
+    public OutboxRelay(
+            OutboxRepository repository,
+            OutboxSink sink,
+            TransactionalOperator transactionalOperator,
+            OrderMetrics orderMetrics,
+            @Value("${store.outbox.poll-interval:500ms}") Duration pollInterval,
+            @Value("${store.outbox.batch-size:100}") int batchSize
+    ) {
+        this.repository = repository;
+        this.sink = sink;
+        this.transactionalOperator = transactionalOperator;
+        this.orderMetrics = orderMetrics;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        poller = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> drain())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        poller.dispose();
+    }
+
+    /**
+     * Relays batches until one comes back short, and returns how many messages
+     * were delivered.
+     */
+    public Mono<Long> drain() {
+        return relayBatch()
+                .expand(delivered -> delivered == batchSize ? relayBatch() : Mono.empty())
+                .reduce(0L, Long::sum)
+                .onErrorResume(ex -> {
+                    log.warn("Outbox relay failed, the batch will be retried", ex);
+                    orderMetrics.outboxFailure();
+                    return Mono.just(0L);
+                });
+    }
+
+    private Mono<Integer> relayBatch() {
+        return repository.claimBatch(batchSize)
+                .collectSortedList(Comparator.comparing(OutboxMessage::getId))
+                .flatMap(batch -> batch.isEmpty()
+                        ? Mono.just(0)
+                        : sink.publish(batch).thenReturn(batch.size()))
+                .as(transactionalOperator::transactional)
+                .doOnNext(orderMetrics::outboxPublished);
+    }
+}
@@ -0,0 +1,19 @@
+package com.java.challenge.store.outbox;
+
+import com.java.challenge.store.entity.OutboxMessage;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Destination of the outbox relay. A batch may be delivered more than once, so
+ * consumers should deduplicate by message id.
+ */
+public interface OutboxSink {
+
+    /**
+     * Completes once the whole batch is delivered; an error makes the relay
+     * retry the batch.
+     */
+    Mono<Void> publish(List<OutboxMessage> messages);
+}
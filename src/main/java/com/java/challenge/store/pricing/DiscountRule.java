@@ -0,0 +1,21 @@
+package com.java.challenge.store.pricing;
+
+import java.math.BigDecimal;
+
+/**
+ * Adds {@code rate} to the order discount when {@code metric} is strictly
+ * greater than {@code threshold}. Rates of all matching rules are added up.
+ */
+public record DiscountRule(Metric metric, BigDecimal threshold, BigDecimal rate) {
+
+    public enum Metric {
+        /**
+         * Sum of price times quantity, before discounts.
+         */
+        SUBTOTAL,
+        /**
+         * Number of different products in the order.
+         */
+        DISTINCT_PRODUCTS
+    }
+}
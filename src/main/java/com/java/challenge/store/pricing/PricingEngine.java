@@ -0,0 +1,130 @@
+package com.java.challenge.store.pricing;
+
+import com.java.challenge.store.entity.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prices a basket in cents with plain {@code long} arithmetic. Discount rules
+ * are compiled once into thresholds and basis points, so pricing allocates
+ * only the final {@link BigDecimal}.
+ * <p>
+ * The result is equal, value and scale, to adding up {@code price * quantity}
+ * as {@link BigDecimal} and multiplying by {@code 1 - sum(rates)}. Prices
+ * with more than two decimals, or totals that would overflow, are priced that
+ * way instead.
+ */
+public class PricingEngine {
+
+    private static final int CENTS_SCALE = 2;
+    private static final int RATE_SCALE = 4;
+    private static final long ONE_IN_BASIS_POINTS = 10_000L;
+
+    private final DiscountRule.Metric[] metrics;
+    private final long[] centThresholds;
+    private final BigDecimal[] thresholds;
+    private final int[] basisPoints;
+    private final int[] rateScales;
+    private final BigDecimal[] rates;
+
+    public PricingEngine(List<DiscountRule> rules) {
+        int size = rules.size();
+        metrics = new DiscountRule.Metric[size];
+        centThresholds = new long[size];
+        thresholds = new BigDecimal[size];
+        basisPoints = new int[size];
+        rateScales = new int[size];
+        rates = new BigDecimal[size];
+
+        long totalBasisPoints = 0;
+        for (int i = 0; i < size; i++) {
+            DiscountRule rule = rules.get(i);
+            BigDecimal rate = rule.rate().stripTrailingZeros();
+            if (rate.signum() < 0 || rate.scale() > RATE_SCALE) {
+                throw new IllegalArgumentException("Discount rate must be positive with at most 4 decimals: " + rule.rate());
+            }
+            metrics[i] = rule.metric();
+            thresholds[i] = rule.threshold();
+            centThresholds[i] = rule.metric() == DiscountRule.Metric.SUBTOTAL
+                    ? rule.threshold().movePointRight(CENTS_SCALE).setScale(0, RoundingMode.FLOOR).longValueExact()
+                    : rule.threshold().setScale(0, RoundingMode.FLOOR).longValueExact();
+            basisPoints[i] = rate.movePointRight(RATE_SCALE).intValueExact();
+            rateScales[i] = Math.max(rate.scale(), 0);
+            rates[i] = rate;
+            totalBasisPoints += basisPoints[i];
+        }
+        if (totalBasisPoints > ONE_IN_BASIS_POINTS) {
+            throw new IllegalArgumentException("Discount rates add up to more than 100%");
+        }
+    }
+
+    /**
+     * Today's rules: 10% over 1000 and 5% for more than five different products.
+     */
+    public static List<DiscountRule> standardRules() {
+        return List.of(
+                new DiscountRule(DiscountRule.Metric.SUBTOTAL, BigDecimal.valueOf(1000), BigDecimal.valueOf(0.10)),
+                new DiscountRule(DiscountRule.Metric.DISTINCT_PRODUCTS, BigDecimal.valueOf(5), BigDecimal.valueOf(0.05))
+        );
+    }
+
+    /**
+     * Total of the order after discounts. {@code quantities} must already have
+     * the duplicate lines of a product added up, one entry per product.
+     */
+    public BigDecimal total(List<Product> products, Map<Long, Integer> quantities) {
+        long subtotalCents = 0;
+        int priceScale = 0;
+        try {
+            for (Product product : products) {
+                BigDecimal price = product.getPrice();
+                if (price.scale() > CENTS_SCALE) {
+                    return totalWithBigDecimal(products, quantities);
+                }
+                priceScale = Math.max(priceScale, price.scale());
+                long cents = price.movePointRight(CENTS_SCALE).longValueExact();
+                subtotalCents = Math.addExact(subtotalCents, Math.multiplyExact(cents, quantities.get(product.getId())));
+            }
+        } catch (ArithmeticException ex) {
+            return totalWithBigDecimal(products, quantities);
+        }
+
+        int discount = 0;
+        int factorScale = 0;
+        for (int i = 0; i < metrics.length; i++) {
+            long value = metrics[i] == DiscountRule.Metric.SUBTOTAL ? subtotalCents : products.size();
+            if (value > centThresholds[i]) {
+                discount += basisPoints[i];
+                factorScale = Math.max(factorScale, rateScales[i]);
+            }
+        }
+
+        long factor = ONE_IN_BASIS_POINTS - discount;
+        if (Math.abs(subtotalCents) >= Long.MAX_VALUE / ONE_IN_BASIS_POINTS) {
+            return totalWithBigDecimal(products, quantities);
+        }
+        return BigDecimal.valueOf(subtotalCents * factor, CENTS_SCALE + RATE_SCALE)
+                .setScale(priceScale + factorScale);
+    }
+
+    private BigDecimal totalWithBigDecimal(List<Product> products, Map<Long, Integer> quantities) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (Product product : products) {
+            subtotal = subtotal.add(product.getPrice().multiply(BigDecimal.valueOf(quantities.get(product.getId()))));
+        }
+
+        BigDecimal discount = BigDecimal.ZERO;
+        for (int i = 0; i < metrics.length; i++) {
+            BigDecimal value = metrics[i] == DiscountRule.Metric.SUBTOTAL
+                    ? subtotal
+                    : BigDecimal.valueOf(products.size());
+            if (value.compareTo(thresholds[i]) > 0) {
+                discount = discount.add(rates[i]);
+            }
+        }
+        return subtotal.multiply(BigDecimal.ONE.subtract(discount));
+    }
+}
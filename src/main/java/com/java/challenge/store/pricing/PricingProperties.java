@@ -0,0 +1,9 @@
+package com.java.challenge.store.pricing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "store.pricing")
+public record PricingProperties(List<DiscountRule> discounts) {
+}
@@ -0,0 +1,27 @@
+package com.java.challenge.store.repository;
+
+import com.java.challenge.store.entity.OrderItem;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface OrderItemRepository extends ReactiveCrudRepository<OrderItem, Long> {
+
+    /**
+     * Inserts every line in one multi-row statement. The arrays are read
+     * position by position, so they must all have the same length.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO order_items (order_id, product_id, quantity, unit_price)
+            SELECT r.order_id, r.product_id, r.quantity, r.unit_price
+            FROM unnest(:orderIds, :productIds, :quantities, :unitPrices)
+                AS r(order_id, product_id, quantity, unit_price)
+            """)
+    Mono<Integer> insertAll(Long[] orderIds, Long[] productIds, Integer[] quantities, BigDecimal[] unitPrices);
+}
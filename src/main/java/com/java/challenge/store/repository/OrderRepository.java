@@ -1,9 +1,115 @@
 package com.java.challenge.store.repository;
 
 import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.OrderDetailRow;
+import com.java.challenge.store.entity.OrderUpdateRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Repository
 public interface OrderRepository extends ReactiveCrudRepository<Order, Long> {
+
+    @Query("SELECT * FROM orders WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<Order> findPage(Long afterId, int limit);
+
+    /**
+     * One keyset page of the orders with a status placed in
+     * [{@code from}, {@code to}), after the row ({@code afterDate},
+     * {@code afterId}). Served by {@code idx_orders_status_order_date}.
+     */
+    @Query("""
+            SELECT * FROM orders
+            WHERE status = :status
+              AND order_date >= :from AND order_date < :to
+              AND (order_date, id) > (:afterDate, :afterId)
+            ORDER BY order_date, id
+            LIMIT :limit
+            """)
+    Flux<Order> searchByStatus(
+            String status,
+            LocalDateTime from,
+            LocalDateTime to,
+            LocalDateTime afterDate,
+            long afterId,
+            int limit
+    );
+
+    /**
+     * Same as {@link #searchByStatus} for every status. Served by
+     * {@code idx_orders_order_date}.
+     */
+    @Query("""
+            SELECT * FROM orders
+            WHERE order_date >= :from AND order_date < :to
+              AND (order_date, id) > (:afterDate, :afterId)
+            ORDER BY order_date, id
+            LIMIT :limit
+            """)
+    Flux<Order> searchByDate(LocalDateTime from, LocalDateTime to, LocalDateTime afterDate, long afterId, int limit);
+
+    @Query("""
+            SELECT o.id, o.order_date, o.total, o.status, i.product_id, i.quantity, i.unit_price
+            FROM orders o
+            LEFT JOIN order_items i ON i.order_id = o.id
+            WHERE o.id = :id
+            ORDER BY i.id
+            """)
+    Flux<OrderDetailRow> findDetailById(Long id);
+
+    /**
+     * Updates the fields that are not {@code null} in a single statement and
+     * returns the stored row with its previous date and total, or nothing when
+     * the order does not exist.
+     */
+    @Query("""
+            UPDATE orders o
+            SET order_date = COALESCE(:date, o.order_date),
+                total = COALESCE(:total, o.total),
+                status = COALESCE(:status, o.status)
+            FROM (SELECT id, order_date, total FROM orders WHERE id = :id FOR UPDATE) previous
+            WHERE o.id = previous.id
+            RETURNING o.*, previous.order_date AS previous_date, previous.total AS previous_total
+            """)
+    Mono<OrderUpdateRow> updateFields(Long id, LocalDateTime date, BigDecimal total, String status);
+
+    /**
+     * Returns the deleted row, or nothing when the order does not exist. Its
+     * lines are removed by the foreign key cascade.
+     */
+    @Query("DELETE FROM orders WHERE id = :id RETURNING *")
+    Mono<Order> removeById(Long id);
+
+    @Query("SELECT nextval(pg_get_serial_sequence('orders', 'id')) FROM generate_series(1, :count)")
+    Flux<Long> nextIds(int count);
+
+    /**
+     * Inserts every order in one multi-row statement, with ids taken from
+     * {@link #nextIds(int)}.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO orders (id, order_date, total, status)
+            SELECT * FROM unnest(:ids, :dates, :totals, :statuses)
+            """)
+    Mono<Integer> insertAll(Long[] ids, LocalDateTime[] dates, BigDecimal[] totals, String[] statuses);
+
+    /**
+     * Sets the status of many orders in one statement. Orders that do not exist
+     * are missing from the result.
+     */
+    @Query("""
+            UPDATE orders o
+            SET status = v.status
+            FROM unnest(:ids, :statuses) AS v(id, status)
+            WHERE o.id = v.id
+            RETURNING o.*
+            """)
+    Flux<Order> updateStatuses(Long[] ids, String[] statuses);
 }
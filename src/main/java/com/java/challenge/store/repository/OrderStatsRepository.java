@@ -0,0 +1,110 @@
+package com.java.challenge.store.repository;
+
+import com.java.challenge.store.entity.OrderDailyStats;
+import com.java.challenge.store.entity.OrderStatsRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface OrderStatsRepository extends Repository<OrderDailyStats, LocalDate> {
+
+    /**
+     * Appends the deltas of one transaction. Inserts only, so concurrent orders
+     * never wait for each other on the row of their day; {@link #fold} adds
+     * them to {@code order_daily_stats} later. Negative deltas remove orders
+     * from a day.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO order_stats_deltas (day, order_count, revenue)
+            SELECT * FROM unnest(:days, :counts, :revenues)
+            """)
+    Mono<Integer> appendAll(LocalDate[] days, Long[] counts, BigDecimal[] revenues);
+
+    /**
+     * Moves up to {@code limit} of the oldest deltas into the rollup of their
+     * days in one statement, so readers find each delta in one table or the
+     * other. Returns the number of deltas moved.
+     */
+    @Query("""
+            WITH moved AS (
+                DELETE FROM order_stats_deltas
+                WHERE id IN (SELECT id FROM order_stats_deltas ORDER BY id LIMIT :limit)
+                RETURNING day, order_count, revenue
+            ), added AS (
+                INSERT INTO order_daily_stats (day, order_count, revenue)
+                SELECT day, SUM(order_count), SUM(revenue)
+                FROM moved
+                GROUP BY day
+                ON CONFLICT (day) DO UPDATE
+                SET order_count = order_daily_stats.order_count + EXCLUDED.order_count,
+                    revenue = order_daily_stats.revenue + EXCLUDED.revenue
+            )
+            SELECT COUNT(*) FROM moved
+            """)
+    Mono<Long> fold(int limit);
+
+    /**
+     * Sums the days from {@code from} to {@code to}, both included, by
+     * {@code unit}: day, week or month. Deltas not folded yet are included.
+     */
+    @Query("""
+            SELECT CAST(date_trunc(:unit, day) AS DATE) AS period,
+                   SUM(order_count) AS order_count,
+                   SUM(revenue) AS revenue
+            FROM (
+                SELECT day, order_count, revenue FROM order_daily_stats WHERE day BETWEEN :from AND :to
+                UNION ALL
+                SELECT day, order_count, revenue FROM order_stats_deltas WHERE day BETWEEN :from AND :to
+            ) days
+            GROUP BY 1
+            ORDER BY 1
+            """)
+    Flux<OrderStatsRow> sumBy(String unit, LocalDate from, LocalDate to);
+
+    /**
+     * Serializes folds and rebuilds until the end of the transaction. Orders
+     * only append deltas and never take it.
+     */
+    @Modifying
+    @Query("SELECT pg_advisory_xact_lock(hashtext('order_daily_stats'))")
+    Mono<Integer> lockMaintenance();
+
+    /**
+     * Writes the days of the range that have orders, counted from the orders
+     * table, and drops the deltas of the range in the same statement: both
+     * see the same committed orders, so deltas of orders committed meanwhile
+     * stay to be folded. Returns the days written.
+     */
+    @Query("""
+            WITH dropped AS (
+                DELETE FROM order_stats_deltas
+                WHERE day >= :from AND day < :to
+            )
+            INSERT INTO order_daily_stats (day, order_count, revenue)
+            SELECT CAST(order_date AS DATE), COUNT(*), SUM(total)
+            FROM orders
+            WHERE order_date >= :from AND order_date < :to
+            GROUP BY 1
+            ON CONFLICT (day) DO UPDATE
+            SET order_count = EXCLUDED.order_count,
+                revenue = EXCLUDED.revenue
+            RETURNING day
+            """)
+    Flux<LocalDate> rebuildRange(LocalDate from, LocalDate to);
+
+    /**
+     * Drops the days of the range left without orders by a rebuild.
+     */
+    @Modifying
+    @Query("DELETE FROM order_daily_stats WHERE day >= :from AND day < :to AND day <> ALL(:kept)")
+    Mono<Integer> deleteRangeExcept(LocalDate from, LocalDate to, LocalDate[] kept);
+
+    @Query("SELECT CAST(MIN(order_date) AS DATE) FROM orders")
+    Mono<LocalDate> findFirstOrderDay();
+}
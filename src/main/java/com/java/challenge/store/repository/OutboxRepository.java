@@ -0,0 +1,35 @@
+package com.java.challenge.store.repository;
+
+import com.java.challenge.store.entity.OutboxMessage;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface OutboxRepository extends ReactiveCrudRepository<OutboxMessage, Long> {
+
+    @Modifying
+    @Query("""
+            INSERT INTO order_outbox (aggregate_id, event_type, payload)
+            SELECT * FROM unnest(:aggregateIds, :eventTypes, :payloads)
+            """)
+    Mono<Integer> insertAll(Long[] aggregateIds, String[] eventTypes, String[] payloads);
+
+    /**
+     * Removes and returns the oldest messages not locked by another relay. The
+     * delete only sticks if the surrounding transaction commits, so messages
+     * whose delivery fails are claimed again later.
+     */
+    @Query("""
+            DELETE FROM order_outbox
+            WHERE id IN (
+                SELECT id FROM order_outbox
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING *
+            """)
+    Flux<OutboxMessage> claimBatch(int limit);
+}
@@ -1,10 +1,113 @@
 package com.java.challenge.store.repository;
 
 import com.java.challenge.store.entity.Product;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
 
 @Repository
 public interface ProductRepository extends ReactiveCrudRepository<Product, Long> {
 
+    @Query("SELECT * FROM products WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<Product> findPage(Long afterId, int limit);
+
+    /**
+     * Substring search on the name, used while the search index is loading.
+     * Reads the whole table, as no index serves a leading wildcard.
+     */
+    @Query("SELECT * FROM products WHERE name ILIKE :pattern ORDER BY id LIMIT :limit")
+    Flux<Product> searchByName(String pattern, int limit);
+
+    @Query("SELECT * FROM products WHERE id = ANY(:ids)")
+    Flux<Product> findByIds(Long[] ids);
+
+    /**
+     * Updates the fields that are not {@code null} in a single statement and
+     * returns the stored row, or nothing when the product does not exist.
+     */
+    @Query("""
+            UPDATE products
+            SET name = COALESCE(:name, name),
+                price = COALESCE(:price, price),
+                stock = COALESCE(:stock, stock),
+                version = version + 1
+            WHERE id = :id
+            RETURNING *
+            """)
+    Mono<Product> updateFields(Long id, String name, BigDecimal price, Integer stock);
+
+    /**
+     * Returns the number of deleted rows, 0 when the product does not exist.
+     */
+    @Modifying
+    @Query("DELETE FROM products WHERE id = :id")
+    Mono<Integer> removeById(Long id);
+
+    /**
+     * Locks the rows until the end of the transaction, always in id order so
+     * concurrent batches cannot deadlock.
+     */
+    @Query("SELECT * FROM products WHERE id = ANY(:ids) ORDER BY id FOR UPDATE")
+    Flux<Product> findByIdsForUpdate(Long[] ids);
+
+    /**
+     * Decrements the stock of every product in a single statement. A row is only
+     * updated when it still has enough stock, so the returned products are the
+     * reserved ones and any missing id is a shortfall.
+     */
+    @Query("""
+            UPDATE products p
+            SET stock = p.stock - r.quantity,
+                version = p.version + 1
+            FROM unnest(:ids, :quantities) AS r(id, quantity)
+            WHERE p.id = r.id
+              AND p.stock >= r.quantity
+            RETURNING p.*
+            """)
+    Flux<Product> reserveStock(Long[] ids, Integer[] quantities);
+
+    @Modifying
+    @Query("""
+            UPDATE products p
+            SET stock = p.stock - r.quantity,
+                version = p.version + 1
+            FROM unnest(:ids, :quantities) AS r(id, quantity)
+            WHERE p.id = r.id
+            """)
+    Mono<Integer> decrementStock(Long[] ids, Integer[] quantities);
+
+    /**
+     * Creates or overwrites every product in one statement. Ids must not repeat
+     * within a call.
+     */
+    @Query("""
+            INSERT INTO products (id, name, price, stock)
+            SELECT * FROM unnest(:ids, :names, :prices, :stocks)
+            ON CONFLICT (id) DO UPDATE
+            SET name = EXCLUDED.name,
+                price = EXCLUDED.price,
+                stock = EXCLUDED.stock,
+                version = products.version + 1
+            RETURNING *
+            """)
+    Flux<Product> upsertAll(Long[] ids, String[] names, BigDecimal[] prices, Integer[] stocks);
+
+    @Query("""
+            INSERT INTO products (name, price, stock)
+            SELECT * FROM unnest(:names, :prices, :stocks)
+            RETURNING *
+            """)
+    Flux<Product> insertAll(String[] names, BigDecimal[] prices, Integer[] stocks);
+
+    /**
+     * Moves the id sequence past the highest id, needed after inserting rows
+     * with explicit ids.
+     */
+    @Query("SELECT setval(pg_get_serial_sequence('products', 'id'), GREATEST((SELECT MAX(id) FROM products), 1))")
+    Mono<Long> syncIdSequence();
 }
@@ -0,0 +1,226 @@
+package com.java.challenge.store.repository.memory;
+
+import org.reactivestreams.Publisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link ReactiveCrudRepository} over a {@link MemoryTable}, with the outcomes
+ * of Spring Data R2DBC: an entity is new when its id is {@code null}, or its
+ * version for a versioned entity; saving a stale version or deleting it throws
+ * {@link OptimisticLockingFailureException}, and updating a missing row of an
+ * unversioned table throws {@link TransientDataAccessResourceException}.
+ */
+abstract class MemoryCrudRepository<T> implements ReactiveCrudRepository<T, Long> {
+
+    protected final MemoryDatabase database;
+    protected final MemoryTable<Long, T> table;
+
+    protected MemoryCrudRepository(MemoryDatabase database, MemoryTable<Long, T> table) {
+        this.database = database;
+        this.table = table;
+    }
+
+    protected abstract Long idOf(T entity);
+
+    protected abstract void setId(T entity, Long id);
+
+    /**
+     * The row to store for {@code entity}: a new instance with the column
+     * defaults and types applied.
+     */
+    protected abstract T toRow(T entity);
+
+    protected boolean versioned() {
+        return false;
+    }
+
+    protected Long versionOf(T entity) {
+        throw new UnsupportedOperationException(table.name() + " has no version column");
+    }
+
+    protected void setVersion(T entity, Long version) {
+        throw new UnsupportedOperationException(table.name() + " has no version column");
+    }
+
+    /**
+     * Removes the rows that reference a deleted row, as {@code ON DELETE CASCADE}.
+     */
+    protected void cascade(MemoryTransaction transaction, T deleted) {
+    }
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return database.execute(transaction -> {
+            if (versioned() ? versionOf(entity) == null : idOf(entity) == null) {
+                insert(transaction, entity);
+            } else {
+                update(transaction, entity);
+            }
+            return entity;
+        });
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<T> findById(Long id) {
+        return database.execute(transaction -> copyOf(table.get(id)));
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        return database.execute(transaction -> table.get(id) != null);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return database.query(transaction -> table.rows().values().stream().map(table::copy).toList());
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<Long> ids) {
+        return database.query(transaction -> {
+            List<T> found = new ArrayList<>();
+            ids.forEach(id -> {
+                T row = table.get(id);
+                if (row != null) {
+                    found.add(table.copy(row));
+                }
+            });
+            return found;
+        });
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<Long> idStream) {
+        return Flux.from(idStream).collectList().flatMapMany(this::findAllById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return database.execute(transaction -> (long) table.rows().size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return database.execute(transaction -> remove(transaction, id)).then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        return database.execute(transaction -> {
+            Long id = idOf(entity);
+            if (versioned()) {
+                T stored = table.get(id);
+                if (stored == null || !Objects.equals(versionOf(stored), versionOf(entity))) {
+                    throw new OptimisticLockingFailureException(String.format(
+                            "Failed to delete versioned entity with id '%s' (version '%s') in table [%s]",
+                            id, versionOf(entity), table.name()));
+                }
+            }
+            return remove(transaction, id);
+        }).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+        return Flux.fromIterable(ids).concatMap(this::deleteById).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        return Flux.fromIterable(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return database.execute(transaction -> {
+            List.copyOf(table.rows().keySet()).forEach(id -> remove(transaction, id));
+            return null;
+        }).then();
+    }
+
+    protected T copyOf(T row) {
+        return row == null ? null : table.copy(row);
+    }
+
+    protected T remove(MemoryTransaction transaction, Long id) {
+        T deleted = table.remove(transaction, id);
+        if (deleted != null) {
+            cascade(transaction, deleted);
+        }
+        return deleted;
+    }
+
+    private void insert(MemoryTransaction transaction, T entity) {
+        Long id = idOf(entity) == null ? table.nextId() : idOf(entity);
+        T row = toRow(entity);
+        setId(row, id);
+        if (versioned()) {
+            setVersion(row, 0L);
+        }
+        table.insert(transaction, id, row);
+
+        setId(entity, id);
+        if (versioned()) {
+            setVersion(entity, 0L);
+        }
+    }
+
+    private void update(MemoryTransaction transaction, T entity) {
+        Long id = idOf(entity);
+        T stored = table.get(id);
+        T row = toRow(entity);
+        if (versioned()) {
+            if (stored == null || !Objects.equals(versionOf(stored), versionOf(entity))) {
+                throw new OptimisticLockingFailureException(String.format(
+                        "Failed to update table [%s]; Version does not match for row with Id [%s]", table.name(), id));
+            }
+            setVersion(row, versionOf(entity) + 1);
+        } else if (stored == null) {
+            throw new TransientDataAccessResourceException(String.format(
+                    "Failed to update table [%s]; Row with Id [%s] does not exist", table.name(), id));
+        }
+        table.put(transaction, id, row);
+
+        if (versioned()) {
+            setVersion(entity, versionOf(row));
+        }
+    }
+}
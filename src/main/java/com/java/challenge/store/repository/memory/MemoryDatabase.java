@@ -0,0 +1,229 @@
+package com.java.challenge.store.repository.memory;
+
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.OrderDailyStats;
+import com.java.challenge.store.entity.OrderItem;
+import com.java.challenge.store.entity.OutboxMessage;
+import com.java.challenge.store.entity.Product;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.function.Function;
+
+/**
+ * The tables of {@code docs/schema.sql} kept in memory, for the {@code memory}
+ * profile. Transactions run one at a time: {@link MemoryTransactionManager}
+ * takes a lock when one begins and releases it when it ends, so a transaction
+ * never sees the uncommitted writes of another and a rollback restores the
+ * rows through its undo log. A statement outside a transaction takes the lock
+ * for its own duration, as if autocommitted.
+ * <p>
+ * Waiting for the lock never blocks a thread, a waiter is resumed on the
+ * parallel scheduler.
+ */
+@Component
+@Profile("memory")
+public class MemoryDatabase {
+
+    private final Lock lock = new Lock();
+
+    private final MemoryTable<Long, Product> products = new MemoryTable<>("products",
+            product -> new Product(product.getId(), product.getName(), product.getPrice(), product.getStock(), product.getVersion()));
+
+    private final MemoryTable<Long, Order> orders = new MemoryTable<>("orders",
+            order -> new Order(order.getId(), order.getDate(), order.getTotal(), order.getStatus()));
+
+    private final MemoryTable<Long, OrderItem> orderItems = new MemoryTable<>("order_items",
+            item -> new OrderItem(item.getId(), item.getOrderId(), item.getProductId(), item.getQuantity(), item.getUnitPrice()));
+
+    private final MemoryTable<Long, OutboxMessage> outbox = new MemoryTable<>("order_outbox",
+            message -> new OutboxMessage(message.getId(), message.getAggregateId(), message.getEventType(),
+                    message.getPayload(), message.getCreatedAt()));
+
+    private final MemoryTable<LocalDate, OrderDailyStats> orderDailyStats = new MemoryTable<>("order_daily_stats",
+            stats -> new OrderDailyStats(stats.getDay(), stats.getOrderCount(), stats.getRevenue()));
+
+    // idx_orders_status_order_date, idx_orders_order_date and idx_order_items_order_id
+    private final NavigableSet<Order> ordersByStatusAndDate = orders.index(Comparator
+            .comparing(Order::getStatus)
+            .thenComparing(Order::getDate)
+            .thenComparing(Order::getId));
+    private final NavigableSet<Order> ordersByDate = orders.index(Comparator
+            .comparing(Order::getDate)
+            .thenComparing(Order::getId));
+    private final NavigableSet<OrderItem> orderItemsByOrder = orderItems.index(Comparator
+            .comparing(OrderItem::getOrderId)
+            .thenComparing(OrderItem::getId));
+
+    /**
+     * Runs {@code statement} in the current transaction, or alone under the
+     * lock when there is none. A {@code null} result completes empty.
+     */
+    <T> Mono<T> execute(Function<MemoryTransaction, T> statement) {
+        return currentTransaction().flatMap(current -> current
+                .map(transaction -> Mono.fromSupplier(() -> transaction.execute(statement)))
+                .orElseGet(() -> Mono.usingWhen(
+                        begin(),
+                        transaction -> Mono.fromSupplier(() -> transaction.execute(statement)),
+                        transaction -> Mono.fromRunnable(() -> commit(transaction)),
+                        (transaction, ex) -> Mono.fromRunnable(() -> rollback(transaction)),
+                        transaction -> Mono.fromRunnable(() -> rollback(transaction))
+                )));
+    }
+
+    <T> Flux<T> query(Function<MemoryTransaction, List<T>> statement) {
+        return execute(statement).flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Starts a transaction once the lock is free. It holds the lock until
+     * {@link #release}.
+     */
+    Mono<MemoryTransaction> begin() {
+        return lock.acquire().then(Mono.fromSupplier(MemoryTransaction::new));
+    }
+
+    void release(MemoryTransaction transaction) {
+        lock.release();
+    }
+
+    private void commit(MemoryTransaction transaction) {
+        transaction.commit();
+        release(transaction);
+    }
+
+    private void rollback(MemoryTransaction transaction) {
+        try {
+            transaction.rollback();
+        } finally {
+            release(transaction);
+        }
+    }
+
+    MemoryTable<Long, Product> products() {
+        return products;
+    }
+
+    MemoryTable<Long, Order> orders() {
+        return orders;
+    }
+
+    NavigableSet<Order> ordersByStatusAndDate() {
+        return ordersByStatusAndDate;
+    }
+
+    NavigableSet<Order> ordersByDate() {
+        return ordersByDate;
+    }
+
+    MemoryTable<Long, OrderItem> orderItems() {
+        return orderItems;
+    }
+
+    NavigableSet<OrderItem> orderItemsByOrder() {
+        return orderItemsByOrder;
+    }
+
+    MemoryTable<Long, OutboxMessage> outbox() {
+        return outbox;
+    }
+
+    MemoryTable<LocalDate, OrderDailyStats> orderDailyStats() {
+        return orderDailyStats;
+    }
+
+    /**
+     * Rounds a value to the scale of its {@code DECIMAL} column, as PostgreSQL
+     * does on write.
+     */
+    static BigDecimal decimal(BigDecimal value, int scale) {
+        return value == null ? null : value.setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Rounds a value to the microseconds kept by a {@code TIMESTAMP} column.
+     */
+    static LocalDateTime timestamp(LocalDateTime value) {
+        return value == null ? null : value.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private Mono<Optional<MemoryTransaction>> currentTransaction() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(synchronization -> Optional.ofNullable((MemoryTransaction) synchronization.getResource(this)))
+                .onErrorResume(NoTransactionException.class, ex -> Mono.just(Optional.empty()));
+    }
+
+    /**
+     * Non-blocking mutex granted in arrival order.
+     */
+    private static final class Lock {
+
+        private final Queue<Waiter> waiters = new ArrayDeque<>();
+        private boolean held;
+
+        private static final class Waiter {
+            private MonoSink<Void> sink;
+            private boolean received;
+        }
+
+        Mono<Void> acquire() {
+            return Mono.defer(() -> {
+                Waiter waiter = new Waiter();
+                return Mono.<Void>create(sink -> {
+                            waiter.sink = sink;
+                            boolean free;
+                            synchronized (this) {
+                                free = !held;
+                                if (free) {
+                                    held = true;
+                                } else {
+                                    waiters.add(waiter);
+                                }
+                            }
+                            if (free) {
+                                grant(waiter);
+                            }
+                        })
+                        .doOnSuccess(ignored -> waiter.received = true);
+            });
+        }
+
+        void release() {
+            Waiter next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    held = false;
+                    return;
+                }
+            }
+            // Resumed on another task, so a long queue does not grow the stack.
+            Schedulers.parallel().schedule(() -> grant(next));
+        }
+
+        // A waiter cancelled meanwhile drops the signal, then the lock moves on.
+        private void grant(Waiter waiter) {
+            waiter.sink.success();
+            if (!waiter.received) {
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.java.challenge.store.repository.memory;
+
+import com.java.challenge.store.entity.OrderItem;
+import com.java.challenge.store.repository.OrderItemRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@Repository
+@Profile("memory")
+public class MemoryOrderItemRepository extends MemoryCrudRepository<OrderItem> implements OrderItemRepository {
+
+    public MemoryOrderItemRepository(MemoryDatabase database) {
+        super(database, database.orderItems());
+    }
+
+    @Override
+    public Mono<Integer> insertAll(Long[] orderIds, Long[] productIds, Integer[] quantities, BigDecimal[] unitPrices) {
+        return database.execute(transaction -> {
+            for (int i = 0; i < orderIds.length; i++) {
+                long id = table.nextId();
+                table.insert(transaction, id, toRow(new OrderItem(id, orderIds[i], productIds[i], quantities[i], unitPrices[i])));
+            }
+            return orderIds.length;
+        });
+    }
+
+    @Override
+    protected Long idOf(OrderItem item) {
+        return item.getId();
+    }
+
+    @Override
+    protected void setId(OrderItem item, Long id) {
+        item.setId(id);
+    }
+
+    @Override
+    protected OrderItem toRow(OrderItem item) {
+        if (database.orders().get(item.getOrderId()) == null) {
+            throw new DataIntegrityViolationException(
+                    "insert or update on table \"order_items\" violates foreign key constraint \"order_items_order_id_fkey\": "
+                            + "order " + item.getOrderId() + " does not exist");
+        }
+        return new OrderItem(
+                item.getId(),
+                item.getOrderId(),
+                item.getProductId(),
+                item.getQuantity(),
+                MemoryDatabase.decimal(item.getUnitPrice(), 2)
+        );
+    }
+}
@@ -0,0 +1,194 @@
+package com.java.challenge.store.repository.memory;
+
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.OrderDetailRow;
+import com.java.challenge.store.entity.OrderItem;
+import com.java.challenge.store.entity.OrderUpdateRow;
+import com.java.challenge.store.repository.OrderRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.function.Predicate;
+
+@Repository
+@Profile("memory")
+public class MemoryOrderRepository extends MemoryCrudRepository<Order> implements OrderRepository {
+
+    public MemoryOrderRepository(MemoryDatabase database) {
+        super(database, database.orders());
+    }
+
+    @Override
+    public Flux<Order> findPage(Long afterId, int limit) {
+        return database.query(transaction -> table.rows().tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(table::copy)
+                .toList());
+    }
+
+    @Override
+    public Flux<Order> searchByStatus(
+            String status,
+            LocalDateTime from,
+            LocalDateTime to,
+            LocalDateTime afterDate,
+            long afterId,
+            int limit
+    ) {
+        Order after = new Order(afterId, afterDate, null, status);
+        return database.query(transaction -> scan(
+                database.ordersByStatusAndDate().tailSet(after, false),
+                order -> order.getStatus().equals(status) && order.getDate().isBefore(to),
+                from,
+                limit
+        ));
+    }
+
+    @Override
+    public Flux<Order> searchByDate(LocalDateTime from, LocalDateTime to, LocalDateTime afterDate, long afterId, int limit) {
+        Order after = new Order(afterId, afterDate, null, null);
+        return database.query(transaction -> scan(
+                database.ordersByDate().tailSet(after, false),
+                order -> order.getDate().isBefore(to),
+                from,
+                limit
+        ));
+    }
+
+    @Override
+    public Flux<OrderDetailRow> findDetailById(Long id) {
+        return database.query(transaction -> {
+            Order order = table.get(id);
+            if (order == null) {
+                return List.of();
+            }
+            List<OrderDetailRow> rows = new ArrayList<>();
+            for (OrderItem item : items(id)) {
+                rows.add(new OrderDetailRow(order.getId(), order.getDate(), order.getTotal(), order.getStatus(),
+                        item.getProductId(), item.getQuantity(), item.getUnitPrice()));
+            }
+            if (rows.isEmpty()) {
+                rows.add(new OrderDetailRow(order.getId(), order.getDate(), order.getTotal(), order.getStatus(),
+                        null, null, null));
+            }
+            return rows;
+        });
+    }
+
+    @Override
+    public Mono<OrderUpdateRow> updateFields(Long id, LocalDateTime date, BigDecimal total, String status) {
+        return database.execute(transaction -> {
+            Order previous = table.get(id);
+            if (previous == null) {
+                return null;
+            }
+            Order row = new Order(
+                    id,
+                    date == null ? previous.getDate() : MemoryDatabase.timestamp(date),
+                    total == null ? previous.getTotal() : MemoryDatabase.decimal(total, 2),
+                    status == null ? previous.getStatus() : status
+            );
+            table.put(transaction, id, row);
+            return new OrderUpdateRow(id, row.getDate(), row.getTotal(), row.getStatus(),
+                    previous.getDate(), previous.getTotal());
+        });
+    }
+
+    @Override
+    public Mono<Order> removeById(Long id) {
+        return database.execute(transaction -> copyOf(remove(transaction, id)));
+    }
+
+    @Override
+    public Flux<Long> nextIds(int count) {
+        return database.query(transaction -> {
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(table.nextId());
+            }
+            return ids;
+        });
+    }
+
+    @Override
+    public Mono<Integer> insertAll(Long[] ids, LocalDateTime[] dates, BigDecimal[] totals, String[] statuses) {
+        return database.execute(transaction -> {
+            for (int i = 0; i < ids.length; i++) {
+                table.insert(transaction, ids[i], toRow(new Order(ids[i], dates[i], totals[i], statuses[i])));
+            }
+            return ids.length;
+        });
+    }
+
+    @Override
+    public Flux<Order> updateStatuses(Long[] ids, String[] statuses) {
+        return database.query(transaction -> {
+            List<Order> updated = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                Order stored = table.get(ids[i]);
+                if (stored != null) {
+                    Order row = table.copy(stored);
+                    row.setStatus(statuses[i]);
+                    table.put(transaction, ids[i], row);
+                    updated.add(table.copy(row));
+                }
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    protected Long idOf(Order order) {
+        return order.getId();
+    }
+
+    @Override
+    protected void setId(Order order, Long id) {
+        order.setId(id);
+    }
+
+    @Override
+    protected Order toRow(Order order) {
+        return new Order(
+                order.getId(),
+                MemoryDatabase.timestamp(order.getDate()),
+                MemoryDatabase.decimal(order.getTotal(), 2),
+                order.getStatus()
+        );
+    }
+
+    @Override
+    protected void cascade(MemoryTransaction transaction, Order deleted) {
+        MemoryTable<Long, OrderItem> orderItems = database.orderItems();
+        items(deleted.getId()).forEach(item -> orderItems.remove(transaction, item.getId()));
+    }
+
+    // Copied, as removing rows changes the index.
+    private List<OrderItem> items(Long orderId) {
+        return List.copyOf(database.orderItemsByOrder().subSet(
+                new OrderItem(Long.MIN_VALUE, orderId, null, null, null), true,
+                new OrderItem(Long.MAX_VALUE, orderId, null, null, null), true
+        ));
+    }
+
+    // Walks an index from the cursor, skipping rows before from and stopping at the first row out of range.
+    private List<Order> scan(NavigableSet<Order> index, Predicate<Order> inRange, LocalDateTime from, int limit) {
+        List<Order> page = new ArrayList<>();
+        for (Order order : index) {
+            if (page.size() == limit || !inRange.test(order)) {
+                break;
+            }
+            if (!order.getDate().isBefore(from)) {
+                page.add(table.copy(order));
+            }
+        }
+        return page;
+    }
+}
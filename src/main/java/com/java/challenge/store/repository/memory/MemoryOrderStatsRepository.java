@@ -0,0 +1,144 @@
+package com.java.challenge.store.repository.memory;
+
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.OrderDailyStats;
+import com.java.challenge.store.entity.OrderStatsRow;
+import com.java.challenge.store.repository.OrderStatsRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+@Repository
+@Profile("memory")
+public class MemoryOrderStatsRepository implements OrderStatsRepository {
+
+    private final MemoryDatabase database;
+    private final MemoryTable<LocalDate, OrderDailyStats> table;
+
+    public MemoryOrderStatsRepository(MemoryDatabase database) {
+        this.database = database;
+        this.table = database.orderDailyStats();
+    }
+
+    /**
+     * Adds to the rollup right away: transactions of {@link MemoryDatabase}
+     * run one at a time, so there is no contention on the day to avoid.
+     */
+    @Override
+    public Mono<Integer> appendAll(LocalDate[] days, Long[] counts, BigDecimal[] revenues) {
+        return database.execute(transaction -> {
+            for (int i = 0; i < days.length; i++) {
+                OrderDailyStats stored = table.get(days[i]);
+                BigDecimal revenue = MemoryDatabase.decimal(revenues[i], 2);
+                table.put(transaction, days[i], stored == null
+                        ? new OrderDailyStats(days[i], counts[i], revenue)
+                        : new OrderDailyStats(days[i], stored.getOrderCount() + counts[i], stored.getRevenue().add(revenue)));
+            }
+            return days.length;
+        });
+    }
+
+    @Override
+    public Mono<Long> fold(int limit) {
+        return Mono.just(0L);
+    }
+
+    @Override
+    public Flux<OrderStatsRow> sumBy(String unit, LocalDate from, LocalDate to) {
+        UnaryOperator<LocalDate> truncate = truncation(unit);
+        return database.query(transaction -> {
+            if (from.isAfter(to)) {
+                return List.of();
+            }
+            Map<LocalDate, OrderStatsRow> periods = new TreeMap<>();
+            table.rows().subMap(from, true, to, true).values().forEach(day -> periods.merge(
+                    truncate.apply(day.getDay()),
+                    new OrderStatsRow(truncate.apply(day.getDay()), day.getOrderCount(), day.getRevenue()),
+                    (sum, next) -> new OrderStatsRow(
+                            sum.getPeriod(),
+                            sum.getOrderCount() + next.getOrderCount(),
+                            sum.getRevenue().add(next.getRevenue())
+                    )
+            ));
+            return List.copyOf(periods.values());
+        });
+    }
+
+    /**
+     * Concurrent updates already wait for the transaction lock of
+     * {@link MemoryDatabase}.
+     */
+    @Override
+    public Mono<Integer> lockMaintenance() {
+        return database.execute(transaction -> 0);
+    }
+
+    @Override
+    public Flux<LocalDate> rebuildRange(LocalDate from, LocalDate to) {
+        Order start = new Order(Long.MIN_VALUE, from.atStartOfDay(), null, null);
+        Order end = new Order(Long.MIN_VALUE, to.atStartOfDay(), null, null);
+        return database.query(transaction -> {
+            if (!from.isBefore(to)) {
+                return List.of();
+            }
+            Map<LocalDate, OrderDailyStats> days = new TreeMap<>();
+            database.ordersByDate().subSet(start, true, end, false).forEach(order -> days.merge(
+                    order.getDate().toLocalDate(),
+                    new OrderDailyStats(order.getDate().toLocalDate(), 1L, order.getTotal()),
+                    (sum, next) -> new OrderDailyStats(
+                            sum.getDay(),
+                            sum.getOrderCount() + 1,
+                            sum.getRevenue().add(next.getRevenue())
+                    )
+            ));
+            days.values().forEach(day -> table.put(transaction, day.getDay(), day));
+            return List.copyOf(days.keySet());
+        });
+    }
+
+    @Override
+    public Mono<Integer> deleteRangeExcept(LocalDate from, LocalDate to, LocalDate[] kept) {
+        Set<LocalDate> keep = Set.of(kept);
+        return database.execute(transaction -> {
+            if (!from.isBefore(to)) {
+                return 0;
+            }
+            List<LocalDate> days = table.rows().subMap(from, true, to, false).keySet().stream()
+                    .filter(day -> !keep.contains(day))
+                    .toList();
+            days.forEach(day -> table.remove(transaction, day));
+            return days.size();
+        });
+    }
+
+    @Override
+    public Mono<LocalDate> findFirstOrderDay() {
+        return database.execute(transaction -> database.ordersByDate().isEmpty()
+                ? null
+                : database.ordersByDate().first().getDate().toLocalDate());
+    }
+
+    // date_trunc for the units PostgreSQL accepts on a date; weeks start on Monday.
+    private static UnaryOperator<LocalDate> truncation(String unit) {
+        return switch (unit) {
+            case "day" -> day -> day;
+            case "week" -> day -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "month" -> day -> day.withDayOfMonth(1);
+            case "quarter" -> day -> day.with(IsoFields.DAY_OF_QUARTER, 1);
+            case "year" -> day -> day.withDayOfYear(1);
+            default -> throw new IllegalArgumentException("unit \"" + unit + "\" not recognized");
+        };
+    }
+}
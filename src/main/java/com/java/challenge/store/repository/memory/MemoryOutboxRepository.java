@@ -0,0 +1,66 @@
+package com.java.challenge.store.repository.memory;
+
+import com.java.challenge.store.entity.OutboxMessage;
+import com.java.challenge.store.repository.OutboxRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@Profile("memory")
+public class MemoryOutboxRepository extends MemoryCrudRepository<OutboxMessage> implements OutboxRepository {
+
+    public MemoryOutboxRepository(MemoryDatabase database) {
+        super(database, database.outbox());
+    }
+
+    @Override
+    public Mono<Integer> insertAll(Long[] aggregateIds, String[] eventTypes, String[] payloads) {
+        return database.execute(transaction -> {
+            for (int i = 0; i < aggregateIds.length; i++) {
+                long id = table.nextId();
+                table.insert(transaction, id, toRow(new OutboxMessage(id, aggregateIds[i], eventTypes[i], payloads[i], null)));
+            }
+            return aggregateIds.length;
+        });
+    }
+
+    /**
+     * Other relays wait for the transaction lock of {@link MemoryDatabase}
+     * instead of skipping the claimed rows.
+     */
+    @Override
+    public Flux<OutboxMessage> claimBatch(int limit) {
+        return database.query(transaction -> {
+            List<Long> ids = table.rows().keySet().stream().limit(limit).toList();
+            return ids.stream().map(id -> table.copy(table.remove(transaction, id))).toList();
+        });
+    }
+
+    @Override
+    protected Long idOf(OutboxMessage message) {
+        return message.getId();
+    }
+
+    @Override
+    protected void setId(OutboxMessage message, Long id) {
+        message.setId(id);
+    }
+
+    @Override
+    protected OutboxMessage toRow(OutboxMessage message) {
+        return new OutboxMessage(
+                message.getId(),
+                message.getAggregateId(),
+                message.getEventType(),
+                message.getPayload(),
+                message.getCreatedAt() == null
+                        ? MemoryDatabase.timestamp(LocalDateTime.now())
+                        : MemoryDatabase.timestamp(message.getCreatedAt())
+        );
+    }
+}
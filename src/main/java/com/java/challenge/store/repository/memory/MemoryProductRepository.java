@@ -0,0 +1,245 @@
+package com.java.challenge.store.repository.memory;
+
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.repository.ProductRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+@Repository
+@Profile("memory")
+public class MemoryProductRepository extends MemoryCrudRepository<Product> implements ProductRepository {
+
+    public MemoryProductRepository(MemoryDatabase database) {
+        super(database, database.products());
+    }
+
+    @Override
+    public Flux<Product> findPage(Long afterId, int limit) {
+        return database.query(transaction -> table.rows().tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(table::copy)
+                .toList());
+    }
+
+    @Override
+    public Flux<Product> searchByName(String pattern, int limit) {
+        Pattern like = ilike(pattern);
+        return database.query(transaction -> table.rows().values().stream()
+                .filter(product -> like.matcher(product.getName()).matches())
+                .limit(limit)
+                .map(table::copy)
+                .toList());
+    }
+
+    @Override
+    public Flux<Product> findByIds(Long[] ids) {
+        return database.query(transaction -> rows(ids));
+    }
+
+    @Override
+    public Mono<Product> updateFields(Long id, String name, BigDecimal price, Integer stock) {
+        return database.execute(transaction -> {
+            Product stored = table.get(id);
+            if (stored == null) {
+                return null;
+            }
+            Product row = table.copy(stored);
+            if (name != null) {
+                row.setName(name);
+            }
+            if (price != null) {
+                row.setPrice(MemoryDatabase.decimal(price, 2));
+            }
+            if (stock != null) {
+                row.setStock(stock);
+            }
+            row.setVersion(stored.getVersion() + 1);
+            table.put(transaction, id, row);
+            return table.copy(row);
+        });
+    }
+
+    @Override
+    public Mono<Integer> removeById(Long id) {
+        return database.execute(transaction -> remove(transaction, id) == null ? 0 : 1);
+    }
+
+    /**
+     * Rows are locked by holding the transaction lock of {@link MemoryDatabase}.
+     */
+    @Override
+    public Flux<Product> findByIdsForUpdate(Long[] ids) {
+        return database.query(transaction -> rows(ids));
+    }
+
+    @Override
+    public Flux<Product> reserveStock(Long[] ids, Integer[] quantities) {
+        return database.query(transaction -> {
+            List<Product> reserved = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                Product stored = table.get(ids[i]);
+                if (stored != null && stored.getStock() >= quantities[i]) {
+                    reserved.add(table.copy(decrement(transaction, stored, quantities[i])));
+                }
+            }
+            return reserved;
+        });
+    }
+
+    @Override
+    public Mono<Integer> decrementStock(Long[] ids, Integer[] quantities) {
+        return database.execute(transaction -> {
+            int updated = 0;
+            for (int i = 0; i < ids.length; i++) {
+                Product stored = table.get(ids[i]);
+                if (stored != null) {
+                    decrement(transaction, stored, quantities[i]);
+                    updated++;
+                }
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    public Flux<Product> upsertAll(Long[] ids, String[] names, BigDecimal[] prices, Integer[] stocks) {
+        return database.query(transaction -> {
+            Set<Long> seen = new HashSet<>();
+            List<Product> stored = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (!seen.add(ids[i])) {
+                    throw new DataIntegrityViolationException(
+                            "ON CONFLICT DO UPDATE command cannot affect row a second time: id " + ids[i]);
+                }
+                Product previous = table.get(ids[i]);
+                Product row = new Product(
+                        ids[i],
+                        names[i],
+                        MemoryDatabase.decimal(prices[i], 2),
+                        stocks[i],
+                        previous == null ? 0L : previous.getVersion() + 1
+                );
+                table.put(transaction, ids[i], row);
+                stored.add(table.copy(row));
+            }
+            return stored;
+        });
+    }
+
+    @Override
+    public Flux<Product> insertAll(String[] names, BigDecimal[] prices, Integer[] stocks) {
+        return database.query(transaction -> {
+            List<Product> inserted = new ArrayList<>(names.length);
+            for (int i = 0; i < names.length; i++) {
+                long id = table.nextId();
+                Product row = new Product(id, names[i], MemoryDatabase.decimal(prices[i], 2), stocks[i], 0L);
+                table.insert(transaction, id, row);
+                inserted.add(table.copy(row));
+            }
+            return inserted;
+        });
+    }
+
+    @Override
+    public Mono<Long> syncIdSequence() {
+        return database.execute(transaction -> {
+            long value = table.rows().isEmpty() ? 1L : Math.max(table.rows().lastKey(), 1L);
+            table.setSequence(value);
+            return value;
+        });
+    }
+
+    @Override
+    protected Long idOf(Product product) {
+        return product.getId();
+    }
+
+    @Override
+    protected void setId(Product product, Long id) {
+        product.setId(id);
+    }
+
+    @Override
+    protected Product toRow(Product product) {
+        return new Product(
+                product.getId(),
+                product.getName(),
+                MemoryDatabase.decimal(product.getPrice(), 2),
+                product.getStock(),
+                product.getVersion()
+        );
+    }
+
+    @Override
+    protected boolean versioned() {
+        return true;
+    }
+
+    @Override
+    protected Long versionOf(Product product) {
+        return product.getVersion();
+    }
+
+    @Override
+    protected void setVersion(Product product, Long version) {
+        product.setVersion(version);
+    }
+
+    private List<Product> rows(Long[] ids) {
+        TreeSet<Long> sorted = new TreeSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                sorted.add(id);
+            }
+        }
+        return sorted.stream()
+                .map(table::get)
+                .filter(Objects::nonNull)
+                .map(table::copy)
+                .toList();
+    }
+
+    private Product decrement(MemoryTransaction transaction, Product stored, int quantity) {
+        Product row = table.copy(stored);
+        row.setStock(stored.getStock() - quantity);
+        row.setVersion(stored.getVersion() + 1);
+        table.put(transaction, row.getId(), row);
+        return row;
+    }
+
+    // ILIKE with the default escape character: % any run, _ one character, \ quotes the next one.
+    private static Pattern ilike(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\' && i + 1 < pattern.length()) {
+                literal.append(pattern.charAt(++i));
+            } else if (c == '%' || c == '_') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,115 @@
+package com.java.challenge.store.repository.memory;
+
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+
+/**
+ * Rows of one table ordered by primary key, with optional secondary indexes
+ * kept in the order of their comparator. Stored rows are never modified: a
+ * write stores a new instance, owned by the table from then on, and readers
+ * copy a row before handing it out, so an index entry always matches its row.
+ * Not thread safe; only touched while holding the lock of {@link MemoryDatabase}.
+ */
+final class MemoryTable<K extends Comparable<? super K>, T> {
+
+    private final String name;
+    private final UnaryOperator<T> copy;
+    private final NavigableMap<K, T> rows = new TreeMap<>();
+    private final List<NavigableSet<T>> indexes = new ArrayList<>();
+    private long sequence;
+
+    MemoryTable(String name, UnaryOperator<T> copy) {
+        this.name = name;
+        this.copy = copy;
+    }
+
+    /**
+     * Adds an index; the comparator must end with the primary key so entries
+     * are unique.
+     */
+    NavigableSet<T> index(Comparator<? super T> order) {
+        NavigableSet<T> index = new TreeSet<>(order);
+        index.addAll(rows.values());
+        indexes.add(index);
+        return Collections.unmodifiableNavigableSet(index);
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * Stored rows by key.
+     */
+    NavigableMap<K, T> rows() {
+        return Collections.unmodifiableNavigableMap(rows);
+    }
+
+    T get(K key) {
+        return rows.get(key);
+    }
+
+    T copy(T row) {
+        return copy.apply(row);
+    }
+
+    void insert(MemoryTransaction transaction, K key, T row) {
+        if (rows.containsKey(key)) {
+            throw new DuplicateKeyException(
+                    "duplicate key value violates unique constraint \"" + name + "_pkey\": (" + key + ") already exists");
+        }
+        put(transaction, key, row);
+    }
+
+    /**
+     * Stores {@code row} under {@code key} and returns the row it replaced, if
+     * any. A rollback puts the previous row back.
+     */
+    T put(MemoryTransaction transaction, K key, T row) {
+        T previous = write(key, row);
+        transaction.onRollback(() -> write(key, previous));
+        return previous;
+    }
+
+    T remove(MemoryTransaction transaction, K key) {
+        T previous = write(key, null);
+        if (previous != null) {
+            transaction.onRollback(() -> write(key, previous));
+        }
+        return previous;
+    }
+
+    /**
+     * Next value of the id sequence. Like a database sequence it is not rolled
+     * back, so aborted inserts leave gaps.
+     */
+    long nextId() {
+        return ++sequence;
+    }
+
+    void setSequence(long value) {
+        sequence = value;
+    }
+
+    private T write(K key, T row) {
+        T previous = row == null ? rows.remove(key) : rows.put(key, row);
+        for (NavigableSet<T> index : indexes) {
+            if (previous != null) {
+                index.remove(previous);
+            }
+            if (row != null) {
+                index.add(row);
+            }
+        }
+        return previous;
+    }
+}
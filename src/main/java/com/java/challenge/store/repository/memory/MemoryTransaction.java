@@ -0,0 +1,46 @@
+package com.java.challenge.store.repository.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Undo log of one transaction: every write registers how to revert it, and a
+ * rollback runs them newest first.
+ */
+final class MemoryTransaction {
+
+    private final List<Runnable> undo = new ArrayList<>();
+
+    void onRollback(Runnable action) {
+        undo.add(action);
+    }
+
+    /**
+     * Runs one statement. A statement that fails leaves no partial writes
+     * behind, the earlier statements of the transaction are kept.
+     */
+    <T> T execute(Function<MemoryTransaction, T> statement) {
+        int savepoint = undo.size();
+        try {
+            return statement.apply(this);
+        } catch (RuntimeException ex) {
+            rollbackTo(savepoint);
+            throw ex;
+        }
+    }
+
+    void commit() {
+        undo.clear();
+    }
+
+    void rollback() {
+        rollbackTo(0);
+    }
+
+    private void rollbackTo(int savepoint) {
+        for (int i = undo.size() - 1; i >= savepoint; i--) {
+            undo.remove(i).run();
+        }
+    }
+}
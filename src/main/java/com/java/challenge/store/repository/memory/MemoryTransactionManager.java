@@ -0,0 +1,109 @@
+package com.java.challenge.store.repository.memory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Transactions of {@link MemoryDatabase}. Beginning one waits for the database
+ * lock; the statements run inside find the transaction bound to the reactive
+ * context and record their undo entries in it. Commit drops the undo log,
+ * rollback replays it, and either way the lock is released. A transaction
+ * marked rollback-only by a participant rolls back on commit. Nested calls join
+ * the current transaction; suspending it, as {@code REQUIRES_NEW} would, is not
+ * supported.
+ */
+@Component
+@Profile("memory")
+public class MemoryTransactionManager extends AbstractReactiveTransactionManager {
+
+    private final MemoryDatabase database;
+
+    public MemoryTransactionManager(MemoryDatabase database) {
+        this.database = database;
+    }
+
+    private static final class TransactionObject {
+        private MemoryTransaction transaction;
+        private boolean rollbackOnly;
+    }
+
+    @Override
+    protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+        TransactionObject transactionObject = new TransactionObject();
+        transactionObject.transaction = (MemoryTransaction) synchronizationManager.getResource(database);
+        return transactionObject;
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((TransactionObject) transaction).transaction != null;
+    }
+
+    @Override
+    protected Mono<Void> doBegin(
+            TransactionSynchronizationManager synchronizationManager,
+            Object transaction,
+            TransactionDefinition definition
+    ) {
+        TransactionObject transactionObject = (TransactionObject) transaction;
+        return database.begin()
+                .doOnNext(begun -> {
+                    transactionObject.transaction = begun;
+                    synchronizationManager.bindResource(database, begun);
+                })
+                .then();
+    }
+
+    @Override
+    protected Mono<Void> doCommit(
+            TransactionSynchronizationManager synchronizationManager,
+            GenericReactiveTransaction status
+    ) {
+        return Mono.fromRunnable(() -> {
+            TransactionObject transactionObject = transactionOf(status);
+            if (transactionObject.rollbackOnly) {
+                transactionObject.transaction.rollback();
+                throw new UnexpectedRollbackException("Transaction rolled back because it has been marked as rollback-only");
+            }
+            transactionObject.transaction.commit();
+        });
+    }
+
+    @Override
+    protected Mono<Void> doRollback(
+            TransactionSynchronizationManager synchronizationManager,
+            GenericReactiveTransaction status
+    ) {
+        return Mono.fromRunnable(() -> transactionOf(status).transaction.rollback());
+    }
+
+    @Override
+    protected Mono<Void> doSetRollbackOnly(
+            TransactionSynchronizationManager synchronizationManager,
+            GenericReactiveTransaction status
+    ) {
+        return Mono.fromRunnable(() -> transactionOf(status).rollbackOnly = true);
+    }
+
+    @Override
+    protected Mono<Void> doCleanupAfterCompletion(
+            TransactionSynchronizationManager synchronizationManager,
+            Object transaction
+    ) {
+        return Mono.fromRunnable(() -> {
+            TransactionObject transactionObject = (TransactionObject) transaction;
+            synchronizationManager.unbindResource(database);
+            database.release(transactionObject.transaction);
+        });
+    }
+
+    private static TransactionObject transactionOf(GenericReactiveTransaction status) {
+        return (TransactionObject) status.getTransaction();
+    }
+}
@@ -0,0 +1,421 @@
+package com.java.challenge.store.search;
+
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product names. Names are split into lower
+ * case words without accents, and every word points to the products that
+ * contain it. Words are kept sorted, so the products matching a prefix are the
+ * postings of one contiguous range of words.
+ * <p>
+ * A query matches the products containing every query word, as a whole word or
+ * as the prefix of one. Results are ranked by how many query words match whole
+ * words, then by names with fewer words, then by id. Postings are sorted by
+ * that last part of the rank, so a search walks the postings of its most
+ * selective word in rank order and stops as soon as no later product can enter
+ * the results, instead of scoring every candidate.
+ * <p>
+ * Kept current by {@link ProductChangedEvent}. Searches never lock: postings
+ * are copied on write, and writes are serialized, as they only follow product
+ * writes. During the initial load postings are appended unsorted and sorted
+ * once when it finishes.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String[] NO_TOKENS = new String[0];
+    private static final long[] NO_KEYS = new long[0];
+
+    // A posting key is the number of words of the name followed by the product id.
+    private static final int ID_BITS = 48;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int MAX_WORDS = (1 << (Long.SIZE - 1 - ID_BITS)) - 1;
+
+    private final ConcurrentSkipListMap<String, Postings> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // Products deleted while the initial load runs, so a row read before the delete is not indexed again.
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+    private volatile boolean ready;
+
+    private record Entry(ProductResponseDto product, String[] tokens, long version) {
+    }
+
+    private record Match(Entry entry, long key, int exact) {
+    }
+
+    private static final Comparator<Match> WORST_FIRST = Comparator
+            .comparingInt(Match::exact)
+            .thenComparing(Match::key, Comparator.reverseOrder());
+
+    /**
+     * Products matching every word of the query, best first. Empty when the
+     * query has no words.
+     */
+    public List<ProductResponseDto> search(String query, int limit) {
+        String[] terms = distinct(tokenize(query));
+        if (terms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        NavigableMap<String, Postings> driving = null;
+        long drivingCount = Long.MAX_VALUE;
+        int maxExact = 0;
+        for (String term : terms) {
+            NavigableMap<String, Postings> range = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+            long count = countUpTo(range, drivingCount);
+            if (count == 0) {
+                return List.of();
+            }
+            if (count < drivingCount) {
+                driving = range;
+                drivingCount = count;
+            }
+            if (postings.containsKey(term)) {
+                maxExact++;
+            }
+        }
+
+        PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        PostingsCursor cursor = new PostingsCursor(driving);
+        long previous = -1;
+        while (cursor.hasNext()) {
+            long key = cursor.next();
+            if (key == previous) {
+                continue;
+            }
+            previous = key;
+
+            Entry entry = entries.get(key & ID_MASK);
+            if (entry == null) {
+                continue;
+            }
+            int exact = exactMatches(entry.tokens(), terms);
+            if (exact < 0) {
+                continue;
+            }
+            top.offer(new Match(entry, key, exact));
+            if (top.size() > limit) {
+                top.poll();
+            }
+            // Later products rank lower unless they match more whole words.
+            if (top.size() == limit && top.peek().exact() == maxExact) {
+                break;
+            }
+        }
+
+        List<ProductResponseDto> results = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            results.add(top.poll().entry().product());
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    /**
+     * Adds or replaces a product. A product older than the indexed one, by
+     * version, is ignored.
+     */
+    public void put(Product product) {
+        deletedWhileLoading.remove(product.getId());
+        long version = product.getVersion() == null ? 0L : product.getVersion();
+        entries.compute(product.getId(), (id, current) -> {
+            if (current != null && current.version() > version) {
+                return current;
+            }
+            String[] tokens = distinct(tokenize(product.getName()));
+            if (current == null || !Arrays.equals(current.tokens(), tokens)) {
+                synchronized (postings) {
+                    if (current != null) {
+                        unindex(id, current.tokens());
+                    }
+                    index(id, tokens);
+                }
+            }
+            ProductResponseDto response = new ProductResponseDto(
+                    product.getId(),
+                    product.getName(),
+                    product.getPrice(),
+                    product.getStock()
+            );
+            return new Entry(response, tokens, version);
+        });
+    }
+
+    /**
+     * Adds a product read by the initial load, unless it was deleted since.
+     */
+    public void load(Product product) {
+        if (!deletedWhileLoading.contains(product.getId())) {
+            put(product);
+        }
+    }
+
+    public void remove(Long id) {
+        if (loading) {
+            deletedWhileLoading.add(id);
+        }
+        entries.computeIfPresent(id, (key, current) -> {
+            synchronized (postings) {
+                unindex(key, current.tokens());
+            }
+            return null;
+        });
+    }
+
+    public void loadStarted() {
+        ready = false;
+        loading = true;
+    }
+
+    public void loadFinished() {
+        endLoad();
+        ready = true;
+    }
+
+    /**
+     * Ends a load that could not read every product: what was read stays
+     * indexed, but the index is not ready until a later load finishes.
+     */
+    public void loadFailed() {
+        endLoad();
+    }
+
+    private void endLoad() {
+        synchronized (postings) {
+            loading = false;
+            postings.values().forEach(Postings::seal);
+        }
+        deletedWhileLoading.clear();
+    }
+
+    /**
+     * Whether the initial load has finished, before that searches would miss
+     * products not read yet.
+     */
+    public boolean ready() {
+        return ready;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int terms() {
+        return postings.size();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.product() == null) {
+            remove(event.productId());
+        } else {
+            put(event.product());
+        }
+    }
+
+    /**
+     * Lower case words without accents, so "Café" is found by "cafe".
+     */
+    public static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return NO_TOKENS;
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(normalized.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Number of query terms that are whole words of the name, or -1 when some
+     * term is not even the prefix of a word.
+     */
+    private static int exactMatches(String[] tokens, String[] terms) {
+        int exact = 0;
+        for (String term : terms) {
+            boolean prefix = false;
+            boolean whole = false;
+            for (String token : tokens) {
+                if (token.startsWith(term)) {
+                    prefix = true;
+                    if (token.length() == term.length()) {
+                        whole = true;
+                        break;
+                    }
+                }
+            }
+            if (!prefix) {
+                return -1;
+            }
+            if (whole) {
+                exact++;
+            }
+        }
+        return exact;
+    }
+
+    private void index(Long id, String[] tokens) {
+        long key = key(id, tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, ignored -> new Postings()).add(key, loading);
+        }
+    }
+
+    private void unindex(Long id, String[] tokens) {
+        long key = key(id, tokens);
+        for (String token : tokens) {
+            Postings ids = postings.get(token);
+            if (ids != null && ids.remove(key)) {
+                postings.remove(token, ids);
+            }
+        }
+    }
+
+    private static long key(Long id, String[] tokens) {
+        return ((long) Math.min(tokens.length, MAX_WORDS) << ID_BITS) | (id & ID_MASK);
+    }
+
+    // Stops counting once the range is already larger than the best candidate found.
+    private static long countUpTo(NavigableMap<String, Postings> range, long limit) {
+        long count = 0;
+        for (Postings ids : range.values()) {
+            count += ids.keys.length;
+            if (count >= limit) {
+                return count;
+            }
+        }
+        return count;
+    }
+
+    private static String[] distinct(String[] tokens) {
+        return new LinkedHashSet<>(Arrays.asList(tokens)).toArray(NO_TOKENS);
+    }
+
+    /**
+     * Sorted posting keys of one word, replaced on every write so readers
+     * always see a complete array. Only modified while holding the index lock.
+     */
+    private static final class Postings {
+
+        private volatile long[] keys = NO_KEYS;
+        private long[] unsorted;
+        private int unsortedSize;
+
+        void add(long key, boolean bulk) {
+            if (bulk) {
+                if (unsorted == null) {
+                    unsorted = new long[4];
+                } else if (unsortedSize == unsorted.length) {
+                    unsorted = Arrays.copyOf(unsorted, unsortedSize * 2);
+                }
+                unsorted[unsortedSize++] = key;
+                return;
+            }
+            long[] current = keys;
+            int position = Arrays.binarySearch(current, key);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = key;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            keys = updated;
+        }
+
+        /**
+         * Returns whether the word no longer has any product.
+         */
+        boolean remove(long key) {
+            for (int i = 0; i < unsortedSize; i++) {
+                if (unsorted[i] == key) {
+                    unsorted[i] = unsorted[--unsortedSize];
+                    break;
+                }
+            }
+            long[] current = keys;
+            int position = Arrays.binarySearch(current, key);
+            if (position >= 0) {
+                long[] updated = new long[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, position);
+                System.arraycopy(current, position + 1, updated, position, updated.length - position);
+                keys = updated;
+            }
+            return keys.length == 0 && unsortedSize == 0;
+        }
+
+        void seal() {
+            if (unsorted == null) {
+                return;
+            }
+            long[] merged = Arrays.copyOf(keys, keys.length + unsortedSize);
+            System.arraycopy(unsorted, 0, merged, keys.length, unsortedSize);
+            Arrays.sort(merged);
+            keys = merged;
+            unsorted = null;
+            unsortedSize = 0;
+        }
+    }
+
+    /**
+     * Walks the postings of a range of words as one list in key order. A
+     * product with several words in the range comes out once per word, one
+     * after the other.
+     */
+    private static final class PostingsCursor {
+
+        private final long[][] lists;
+        private final int[] positions;
+        private final PriorityQueue<Integer> heads;
+
+        PostingsCursor(NavigableMap<String, Postings> range) {
+            lists = range.values().stream()
+                    .map(ids -> ids.keys)
+                    .filter(keys -> keys.length > 0)
+                    .toArray(long[][]::new);
+            positions = new int[lists.length];
+            heads = new PriorityQueue<>(Math.max(1, lists.length),
+                    Comparator.comparingLong(list -> lists[list][positions[list]]));
+            for (int list = 0; list < lists.length; list++) {
+                heads.add(list);
+            }
+        }
+
+        boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        long next() {
+            int list = heads.poll();
+            long key = lists[list][positions[list]++];
+            if (positions[list] < lists[list].length) {
+                heads.add(list);
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.java.challenge.store.search;
+
+import com.java.challenge.store.config.RoutingConnectionFactory;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.util.KeysetPagination;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Fills the search index once the application is ready by streaming the
+ * products table in id order. Changes made meanwhile reach the index through
+ * events, and a row read before its own change never replaces the newer one.
+ * A failed load is started again with exponential backoff; until one
+ * finishes, searches use the database.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndexLoader {
+
+    private final ProductRepository repository;
+    private final ProductSearchIndex index;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private Disposable loading;
+
+    public ProductSearchIndexLoader(
+            ProductRepository repository,
+            ProductSearchIndex index,
+            @Value("${store.search.index.retry-backoff:1s}") Duration retryBackoff,
+            @Value("${store.search.index.max-retry-backoff:1m}") Duration maxRetryBackoff
+    ) {
+        this.repository = repository;
+        this.index = index;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        loading = Flux.defer(() -> {
+                    index.loadStarted();
+                    return KeysetPagination.stream(repository::findPage, Product::getId)
+                            .doOnNext(index::load)
+                            .doOnError(error -> index.loadFailed());
+                })
+                .contextWrite(RoutingConnectionFactory.readOnly())
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, retryBackoff)
+                        .maxBackoff(maxRetryBackoff)
+                        .doBeforeRetry(signal -> log.warn(
+                                "Could not load the product search index (attempt {}), searches use the database until a retry succeeds",
+                                signal.totalRetries() + 1, signal.failure())))
+                .subscribe(
+                        ignored -> {
+                        },
+                        error -> log.error("Could not load the product search index, searches use the database", error),
+                        () -> {
+                            index.loadFinished();
+                            log.info("Product search index loaded with {} products in {} ms",
+                                    index.size(), (System.nanoTime() - started) / 1_000_000);
+                        }
+                );
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (loading != null) {
+            loading.dispose();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.java.challenge.store.service;
+
+import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.dto.OrderResponseDto;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyStore {
+
+    /**
+     * Runs {@code createOrder} at most once per key. Concurrent calls with the
+     * same key share the in-flight result and later calls replay the stored
+     * order. A key reused with a different request is rejected.
+     */
+    Mono<OrderResponseDto> execute(
+            String key,
+            OrderListRequestDto request,
+            Supplier<Mono<OrderResponseDto>> createOrder
+    );
+}
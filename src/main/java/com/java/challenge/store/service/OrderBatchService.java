@@ -0,0 +1,14 @@
+package com.java.challenge.store.service;
+
+import com.java.challenge.store.dto.OrderBatchResultDto;
+import com.java.challenge.store.dto.OrderListRequestDto;
+import reactor.core.publisher.Flux;
+
+public interface OrderBatchService {
+
+    /**
+     * Creates every order of the stream and emits one result per order, in the
+     * order they were received. A rejected order does not affect the others.
+     */
+    Flux<OrderBatchResultDto> createOrders(Flux<OrderListRequestDto> requests);
+}
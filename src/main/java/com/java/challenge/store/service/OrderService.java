@@ -1,21 +1,47 @@
 package com.java.challenge.store.service;
 
+import com.java.challenge.store.dto.PageResponseDto;
+import com.java.challenge.store.dto.OrderPatchRequestDto;
+import com.java.challenge.store.dto.OrderDetailResponseDto;
 import com.java.challenge.store.dto.OrderListRequestDto;
 import com.java.challenge.store.dto.OrderRequestDto;
 import com.java.challenge.store.dto.OrderResponseDto;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 
 public interface OrderService {
 
     Mono<OrderResponseDto> createOrder(OrderListRequestDto request);
 
-    Mono<OrderResponseDto> findById(Long id);
+    Mono<OrderDetailResponseDto> findById(Long id);
 
     Flux<OrderResponseDto> findAll();
 
+    Mono<PageResponseDto<OrderResponseDto>> findPage(String cursor, Integer size);
+
+    Flux<OrderResponseDto> stream();
+
+    /**
+     * One page of the orders placed in [{@code from}, {@code to}), optionally
+     * with the given status, ordered by date. Open bounds are not limited.
+     */
+    Mono<PageResponseDto<OrderResponseDto>> search(
+            String status,
+            LocalDateTime from,
+            LocalDateTime to,
+            String cursor,
+            Integer size
+    );
+
     Mono<OrderResponseDto> update(Long id, OrderRequestDto request);
 
+    /**
+     * Updates only the fields present in the request.
+     */
+    Mono<OrderResponseDto> patch(Long id, OrderPatchRequestDto request);
+
     Mono<Void> delete(Long id);
 }
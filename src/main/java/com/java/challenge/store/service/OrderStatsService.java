@@ -0,0 +1,22 @@
+package com.java.challenge.store.service;
+
+import com.java.challenge.store.dto.OrderStatsBackfillReportDto;
+import com.java.challenge.store.dto.OrderStatsResponseDto;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+public interface OrderStatsService {
+
+    /**
+     * Order count, revenue and average basket between two days, both included,
+     * grouped by day, week or month. Missing bounds default to the last 30 days.
+     */
+    Mono<OrderStatsResponseDto> stats(LocalDate from, LocalDate to, String granularity);
+
+    /**
+     * Rebuilds the daily rollup from the orders table. Missing bounds default to
+     * the day of the first order and today.
+     */
+    Mono<OrderStatsBackfillReportDto> backfill(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,24 @@
+package com.java.challenge.store.service;
+
+import com.java.challenge.store.dto.OrderResponseDto;
+import reactor.core.publisher.Mono;
+
+public interface OrderStatusService {
+
+    /**
+     * When the caller is answered.
+     */
+    enum Ack {
+        /** As soon as the change is queued; it is written with the next flush. */
+        ACCEPTED,
+        /** Once the batch holding the change is written, with the stored order. */
+        FLUSHED
+    }
+
+    /**
+     * Queues a status change. Changes to the same order that are still queued
+     * are replaced, so only the latest one is written. Completes empty for
+     * {@link Ack#ACCEPTED}.
+     */
+    Mono<OrderResponseDto> updateStatus(Long id, String status, Ack ack);
+}
@@ -0,0 +1,15 @@
+package com.java.challenge.store.service;
+
+import com.java.challenge.store.dto.ProductImportReportDto;
+import com.java.challenge.store.util.ProductImportParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ProductImportService {
+
+    /**
+     * Validates and stores the rows as they arrive and reports the rows that
+     * could not be imported.
+     */
+    Mono<ProductImportReportDto> importProducts(Flux<String> lines, ProductImportParser parser);
+}
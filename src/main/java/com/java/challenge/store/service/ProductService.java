@@ -1,5 +1,7 @@
 package com.java.challenge.store.service;
 
+import com.java.challenge.store.dto.PageResponseDto;
+import com.java.challenge.store.dto.ProductPatchRequestDto;
 import com.java.challenge.store.dto.ProductRequestDto;
 import com.java.challenge.store.dto.ProductResponseDto;
 import reactor.core.publisher.Flux;
@@ -13,8 +15,30 @@ public interface ProductService {
 
     Flux<ProductResponseDto> findAll();
 
+    Mono<PageResponseDto<ProductResponseDto>> findPage(String cursor, Integer size);
+
+    Flux<ProductResponseDto> stream();
+
+    /**
+     * Up to {@code limit} products with an id above {@code afterId}, in id
+     * order. Read from the primary, for caches that must not be filled with
+     * rows older than the write that invalidated them.
+     */
+    Flux<ProductResponseDto> findAfter(Long afterId, int limit);
+
+    /**
+     * Products whose name contains every word of the query, whole or as a
+     * prefix, best matches first.
+     */
+    Flux<ProductResponseDto> search(String query, Integer limit);
+
     Mono<ProductResponseDto> update(Long id, ProductRequestDto request);
 
+    /**
+     * Updates only the fields present in the request.
+     */
+    Mono<ProductResponseDto> patch(Long id, ProductPatchRequestDto request);
+
     Mono<Void> delete(Long id);
 }
 
@@ -0,0 +1,39 @@
+package com.java.challenge.store.service;
+
+import com.java.challenge.store.entity.Product;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StockReservationService {
+
+    /**
+     * Reserves the requested quantity of every product, all or nothing, and
+     * returns the reserved products with their remaining stock.
+     */
+    Mono<List<Product>> reserve(Map<Long, Integer> quantities);
+
+    /**
+     * Gives back a reservation whose order could not be stored.
+     */
+    Mono<Void> release(Map<Long, Integer> quantities);
+
+    /**
+     * Reserves several baskets in order, each one all or nothing, reading and
+     * writing the stock of all of them together. A basket that cannot be
+     * reserved gets its error without affecting the others. Must run inside the
+     * caller's transaction.
+     */
+    Mono<List<BasketReservation>> reserveEach(List<Map<Long, Integer>> baskets);
+
+    /**
+     * Outcome of one basket: the reserved products, or the reason it was rejected.
+     */
+    record BasketReservation(List<Product> products, RuntimeException error) {
+
+        public boolean reserved() {
+            return error == null;
+        }
+    }
+}
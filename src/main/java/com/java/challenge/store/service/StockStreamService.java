@@ -0,0 +1,14 @@
+package com.java.challenge.store.service;
+
+import com.java.challenge.store.dto.StockLevelDto;
+import reactor.core.publisher.Flux;
+
+public interface StockStreamService {
+
+    /**
+     * Emits the stock level of every product that changes from the moment of
+     * subscription. A subscriber that falls behind only receives the latest
+     * level of each product.
+     */
+    Flux<StockLevelDto> stream();
+}
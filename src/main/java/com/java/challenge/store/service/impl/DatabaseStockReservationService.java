@@ -0,0 +1,153 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.exception.BusinessException;
+import com.java.challenge.store.exception.InsufficientStockException;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reserves stock directly in {@code products} inside the caller's transaction,
+ * so a rollback also gives the stock back.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "store.stock.reservation-mode", havingValue = "database", matchIfMissing = true)
+public class DatabaseStockReservationService implements StockReservationService {
+
+    private final ProductRepository productRepository;
+    private final OrderMetrics orderMetrics;
+
+    /**
+     * Costs a constant number of statements per basket: one locking read to
+     * detect unknown products and shortfalls, and one conditional update that
+     * decrements every line at once. The read locks the rows in id order, as
+     * {@link #reserveEach} does, so two orders sharing products cannot deadlock.
+     */
+    @Override
+    public Mono<List<Product>> reserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> byId = new TreeMap<>(quantities);
+        Long[] ids = byId.keySet().toArray(Long[]::new);
+        Integer[] amounts = byId.values().toArray(Integer[]::new);
+
+        return orderMetrics.time(OrderMetrics.PRODUCT_LOOKUP, productRepository.findByIdsForUpdate(ids).collectList())
+                .flatMap(products -> {
+                    if (products.size() < ids.length) {
+                        return Mono.error(
+                                new BusinessException("Product for check items not found")
+                        );
+                    }
+
+                    Map<Long, Integer> available = products.stream()
+                            .collect(Collectors.toMap(Product::getId, Product::getStock));
+                    List<Long> shortfalls = quantities.keySet().stream()
+                            .filter(id -> available.get(id) < quantities.get(id))
+                            .toList();
+                    if (!shortfalls.isEmpty()) {
+                        return Mono.error(new InsufficientStockException(shortfalls, quantities, available));
+                    }
+
+                    return orderMetrics.time(
+                            OrderMetrics.STOCK_UPDATE,
+                            productRepository.reserveStock(ids, amounts).collectList()
+                    );
+                })
+                .flatMap(reserved -> {
+                    if (reserved.size() == ids.length) {
+                        return Mono.just(reserved);
+                    }
+
+                    // The rows are locked since the read, so this only guards against a skipped update.
+                    Set<Long> reservedIds = reserved.stream()
+                            .map(Product::getId)
+                            .collect(Collectors.toSet());
+                    List<Long> shortfalls = quantities.keySet().stream()
+                            .filter(id -> !reservedIds.contains(id))
+                            .toList();
+                    return Mono.error(new InsufficientStockException(shortfalls, quantities, Map.of()));
+                });
+    }
+
+    /**
+     * Locks every product of the batch with one read, allocates the stock to the
+     * baskets in order in memory, and writes all decrements with one update.
+     */
+    @Override
+    public Mono<List<BasketReservation>> reserveEach(List<Map<Long, Integer>> baskets) {
+        Long[] ids = baskets.stream()
+                .flatMap(basket -> basket.keySet().stream())
+                .distinct()
+                .toArray(Long[]::new);
+
+        return orderMetrics.time(OrderMetrics.PRODUCT_LOOKUP, productRepository.findByIdsForUpdate(ids).collectList())
+                .flatMap(products -> {
+                    Map<Long, Product> byId = products.stream()
+                            .collect(Collectors.toMap(Product::getId, Function.identity()));
+                    Map<Long, Integer> available = products.stream()
+                            .collect(Collectors.toMap(Product::getId, Product::getStock));
+                    Map<Long, Integer> taken = new LinkedHashMap<>();
+
+                    List<BasketReservation> reservations = baskets.stream()
+                            .map(basket -> allocate(basket, byId, available, taken))
+                            .toList();
+                    if (taken.isEmpty()) {
+                        return Mono.just(reservations);
+                    }
+
+                    return orderMetrics.time(
+                            OrderMetrics.STOCK_UPDATE,
+                            productRepository.decrementStock(
+                                    taken.keySet().toArray(Long[]::new),
+                                    taken.values().toArray(Integer[]::new)
+                            )
+                    ).thenReturn(reservations);
+                });
+    }
+
+    private BasketReservation allocate(
+            Map<Long, Integer> basket,
+            Map<Long, Product> products,
+            Map<Long, Integer> available,
+            Map<Long, Integer> taken
+    ) {
+        if (!products.keySet().containsAll(basket.keySet())) {
+            return new BasketReservation(null, new BusinessException("Product for check items not found"));
+        }
+
+        List<Long> shortfalls = basket.keySet().stream()
+                .filter(id -> available.get(id) < basket.get(id))
+                .toList();
+        if (!shortfalls.isEmpty()) {
+            return new BasketReservation(null, new InsufficientStockException(shortfalls, basket, Map.copyOf(available)));
+        }
+
+        List<Product> reserved = basket.entrySet().stream()
+                .map(line -> {
+                    Product product = products.get(line.getKey());
+                    int left = available.merge(line.getKey(), -line.getValue(), Integer::sum);
+                    taken.merge(line.getKey(), line.getValue(), Integer::sum);
+                    return new Product(product.getId(), product.getName(), product.getPrice(), left, product.getVersion());
+                })
+                .toList();
+        return new BasketReservation(reserved, null);
+    }
+
+    @Override
+    public Mono<Void> release(Map<Long, Integer> quantities) {
+        // The decrement belongs to the order transaction, its rollback restores the stock.
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.java.challenge.store.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.dto.OrderResponseDto;
+import com.java.challenge.store.exception.BusinessException;
+import com.java.challenge.store.service.IdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Keeps idempotency keys in a bounded cache that expires them after the
+ * configured retention. Failed executions are forgotten so the client can retry.
+ */
+@Service
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, Entry> entries;
+
+    public InMemoryIdempotencyStore(
+            @Value("${store.idempotency.max-size:100000}") long maxSize,
+            @Value("${store.idempotency.retention:24h}") Duration retention
+    ) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    @Override
+    public Mono<OrderResponseDto> execute(
+            String key,
+            OrderListRequestDto request,
+            Supplier<Mono<OrderResponseDto>> createOrder
+    ) {
+        return Mono.defer(() -> {
+            Entry created = new Entry(request, Mono.defer(createOrder).cache());
+            Entry existing = entries.asMap().putIfAbsent(key, created);
+            Entry entry = existing != null ? existing : created;
+
+            if (!entry.request().equals(request)) {
+                return Mono.error(new BusinessException(
+                        "Idempotency-Key " + key + " was already used with a different request"
+                ));
+            }
+
+            return entry.result()
+                    .doOnError(ex -> entries.asMap().remove(key, entry));
+        });
+    }
+
+    private record Entry(OrderListRequestDto request, Mono<OrderResponseDto> result) {
+    }
+}
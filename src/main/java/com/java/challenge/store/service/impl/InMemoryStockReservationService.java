@@ -0,0 +1,272 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.exception.BusinessException;
+import com.java.challenge.store.exception.InsufficientStockException;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.service.StockReservationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the available stock of every product in a lock-free counter, so orders
+ * for the same hot product are serialized by compare-and-set instead of
+ * colliding on the row. Decrements are accumulated per product and written to
+ * {@code products.stock} in one batched statement every flush interval.
+ * <p>
+ * The counters are the source of truth while the service runs, so this mode is
+ * only valid with a single service instance.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "store.stock.reservation-mode", havingValue = "in-memory")
+public class InMemoryStockReservationService implements StockReservationService {
+
+    private final ProductRepository productRepository;
+    private final OrderMetrics orderMetrics;
+    private final Duration flushInterval;
+
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> pending = new ConcurrentHashMap<>();
+    // Amounts written by flushes so far; kept for deleted products too, so a read in flight never sees one go back.
+    private final Map<Long, AtomicLong> flushed = new ConcurrentHashMap<>();
+
+    private Disposable flusher;
+
+    public InMemoryStockReservationService(
+            ProductRepository productRepository,
+            OrderMetrics orderMetrics,
+            @Value("${store.stock.flush-interval:50ms}") Duration flushInterval
+    ) {
+        this.productRepository = productRepository;
+        this.orderMetrics = orderMetrics;
+        this.flushInterval = flushInterval;
+    }
+
+    @PostConstruct
+    void start() {
+        flusher = Flux.interval(flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.dispose();
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    @Override
+    public Mono<List<Product>> reserve(Map<Long, Integer> quantities) {
+        Long[] ids = quantities.keySet().toArray(Long[]::new);
+
+        return Mono.defer(() -> {
+            Map<Long, Long> flushedBefore = flushed(ids);
+            return orderMetrics.time(OrderMetrics.PRODUCT_LOOKUP, productRepository.findByIds(ids).collectList())
+                    .flatMap(products -> {
+                        if (products.size() < ids.length) {
+                            return Mono.error(
+                                    new BusinessException("Product for check items not found")
+                            );
+                        }
+                        return Mono.fromCallable(() -> orderMetrics.time(
+                                OrderMetrics.STOCK_UPDATE,
+                                () -> reserve(products, quantities, flushedBefore)
+                        ));
+                    });
+        });
+    }
+
+    @Override
+    public Mono<List<BasketReservation>> reserveEach(List<Map<Long, Integer>> baskets) {
+        Long[] ids = baskets.stream()
+                .flatMap(basket -> basket.keySet().stream())
+                .distinct()
+                .toArray(Long[]::new);
+
+        return Mono.defer(() -> {
+            Map<Long, Long> flushedBefore = flushed(ids);
+            return orderMetrics.time(OrderMetrics.PRODUCT_LOOKUP, productRepository.findByIds(ids).collectList())
+                    .map(products -> {
+                        Map<Long, Product> byId = products.stream()
+                                .collect(Collectors.toMap(Product::getId, Function.identity()));
+                        return orderMetrics.time(OrderMetrics.STOCK_UPDATE, () -> baskets.stream()
+                                .map(basket -> reserveBasket(basket, byId, flushedBefore))
+                                .toList());
+                    });
+        });
+    }
+
+    private BasketReservation reserveBasket(Map<Long, Integer> basket, Map<Long, Product> products, Map<Long, Long> flushedBefore) {
+        if (!products.keySet().containsAll(basket.keySet())) {
+            return new BasketReservation(null, new BusinessException("Product for check items not found"));
+        }
+        try {
+            List<Product> lines = basket.keySet().stream().map(products::get).toList();
+            return new BasketReservation(reserve(lines, basket, flushedBefore), null);
+        } catch (InsufficientStockException ex) {
+            return new BasketReservation(null, ex);
+        }
+    }
+
+    @Override
+    public Mono<Void> release(Map<Long, Integer> quantities) {
+        return Mono.fromRunnable(() -> quantities.forEach(this::giveBack));
+    }
+
+    /**
+     * A deleted product loses its counter and its unflushed decrements. When
+     * the stock column is overwritten, only the counter is dropped: it is loaded
+     * again on the next order, and the decrements of committed orders that are
+     * not flushed yet are kept, to come off the new stock both in the counter
+     * and in the table. Name and price changes leave both untouched.
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.ChangeType.DELETED) {
+            available.remove(event.productId());
+            pending.remove(event.productId());
+        } else if (event.type() == ProductChangedEvent.ChangeType.UPDATED && event.stockWritten()) {
+            available.remove(event.productId());
+        }
+    }
+
+    /**
+     * A counter is seeded from a row read before the call. Amounts flushed
+     * since that read started may be missing from the row while no longer
+     * pending, so they are taken off as well. When the row did include them
+     * the counter starts a little low until it is reloaded, never high.
+     */
+    private List<Product> reserve(List<Product> products, Map<Long, Integer> quantities, Map<Long, Long> flushedBefore) {
+        List<Product> reserved = new ArrayList<>(products.size());
+        List<Long> shortfalls = new ArrayList<>();
+        Map<Long, Integer> remaining = new HashMap<>();
+
+        for (Product product : products) {
+            Long id = product.getId();
+            AtomicInteger counter = available.computeIfAbsent(id, key -> new AtomicInteger(
+                    (int) (product.getStock() - unflushed(key) - (flushed(key) - flushedBefore.get(key)))
+            ));
+            int left = tryDecrement(counter, quantities.get(id));
+            if (left < 0) {
+                shortfalls.add(id);
+                remaining.put(id, counter.get());
+                continue;
+            }
+            reserved.add(new Product(id, product.getName(), product.getPrice(), left, product.getVersion()));
+        }
+
+        if (!shortfalls.isEmpty()) {
+            // A counter dropped meanwhile by onProductChanged is reloaded from the table, nothing to give back to it
+            reserved.forEach(product -> available.computeIfPresent(product.getId(), (id, counter) -> {
+                counter.addAndGet(quantities.get(id));
+                return counter;
+            }));
+            throw new InsufficientStockException(shortfalls, quantities, remaining);
+        }
+
+        reserved.forEach(product -> pending
+                .computeIfAbsent(product.getId(), key -> new AtomicInteger())
+                .addAndGet(quantities.get(product.getId())));
+        return reserved;
+    }
+
+    private int tryDecrement(AtomicInteger counter, int quantity) {
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return -1;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return current - quantity;
+            }
+        }
+    }
+
+    private void giveBack(Long productId, Integer quantity) {
+        AtomicInteger counter = available.get(productId);
+        if (counter != null) {
+            counter.addAndGet(quantity);
+        }
+        // A negative pending delta gives the stock back if it was already flushed.
+        pending.computeIfAbsent(productId, key -> new AtomicInteger()).addAndGet(-quantity);
+    }
+
+    private int unflushed(Long productId) {
+        AtomicInteger delta = pending.get(productId);
+        return delta == null ? 0 : delta.get();
+    }
+
+    private long flushed(Long productId) {
+        AtomicLong amount = flushed.get(productId);
+        return amount == null ? 0 : amount.get();
+    }
+
+    private Map<Long, Long> flushed(Long[] productIds) {
+        Map<Long, Long> amounts = new HashMap<>();
+        for (Long id : productIds) {
+            amounts.put(id, flushed(id));
+        }
+        return amounts;
+    }
+
+    /**
+     * Amounts stay pending until their write succeeds, so a counter reloaded
+     * while a flush is in flight still accounts for them, and a failed flush
+     * leaves them for the next one.
+     */
+    Mono<Void> flush() {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> amounts = new ArrayList<>();
+        pending.forEach((id, delta) -> {
+            int amount = delta.get();
+            if (amount != 0) {
+                ids.add(id);
+                amounts.add(amount);
+            }
+        });
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return productRepository.decrementStock(ids.toArray(Long[]::new), amounts.toArray(Integer[]::new))
+                .doOnSuccess(updated -> {
+                    for (int i = 0; i < ids.size(); i++) {
+                        int amount = amounts.get(i);
+                        // Counted as flushed before it stops being pending, so a counter seeded in between is low, not high
+                        flushed.computeIfAbsent(ids.get(i), key -> new AtomicLong()).addAndGet(amount);
+                        pending.computeIfPresent(ids.get(i), (id, delta) -> {
+                            delta.addAndGet(-amount);
+                            return delta;
+                        });
+                    }
+                })
+                .then()
+                .onErrorResume(ex -> {
+                    log.warn("Stock flush failed for {} products, it will be retried", ids.size(), ex);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,257 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderBatchResultDto;
+import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.exception.InsufficientStockException;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.outbox.OrderOutbox;
+import com.java.challenge.store.pricing.PricingEngine;
+import com.java.challenge.store.repository.OrderItemRepository;
+import com.java.challenge.store.repository.OrderRepository;
+import com.java.challenge.store.service.OrderBatchService;
+import com.java.challenge.store.service.StockReservationService;
+import com.java.challenge.store.service.StockReservationService.BasketReservation;
+import com.java.challenge.store.stats.OrderRollup;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Creates orders in chunks: each chunk reads and decrements the stock of all its
+ * orders together and inserts all of its orders and lines with multi-row
+ * statements, so a chunk costs seven round trips instead of six per order.
+ * A chunk that hits a deadlock or serialization failure is retried like a
+ * single order before its orders are reported as failed.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderBatchServiceImpl implements OrderBatchService {
+
+    private static final int CHUNK_SIZE = 100;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final StockReservationService stockReservationService;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderMetrics orderMetrics;
+    private final PricingEngine pricingEngine;
+    private final OrderOutbox orderOutbox;
+    private final OrderRollup orderRollup;
+    private final Validator validator;
+
+    @Override
+    public Flux<OrderBatchResultDto> createOrders(Flux<OrderListRequestDto> requests) {
+        return requests.index()
+                .buffer(CHUNK_SIZE)
+                .concatMap(this::createChunk);
+    }
+
+    private Flux<OrderBatchResultDto> createChunk(List<Tuple2<Long, OrderListRequestDto>> chunk) {
+        OrderBatchResultDto[] results = new OrderBatchResultDto[chunk.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Map<Long, Integer>> baskets = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            long index = chunk.get(i).getT1();
+            OrderListRequestDto request = chunk.get(i).getT2();
+            Map<String, String> violations = validate(request);
+            if (violations.isEmpty()) {
+                positions.add(i);
+                baskets.add(OrderServiceImpl.groupQuantities(request.getItems()));
+            } else {
+                results[i] = new OrderBatchResultDto(index, OrderBatchResultDto.REJECTED, null, "Invalid data", violations);
+            }
+        }
+        if (baskets.isEmpty()) {
+            return Flux.fromArray(results);
+        }
+
+        return Mono.defer(() -> {
+            AtomicReference<List<BasketReservation>> reserved = new AtomicReference<>();
+            return TransactionSynchronizationManager.forCurrentTransaction()
+                    .doOnNext(synchronization -> synchronization.registerSynchronization(
+                            releaseUnlessCommitted(reserved, baskets)
+                    ))
+                    .then(Mono.defer(() -> stockReservationService.reserveEach(baskets)))
+                    .doOnNext(reserved::set)
+                    .flatMap(reservations -> saveOrders(reservations, baskets))
+                    .as(transactionalOperator::transactional)
+                    .map(orders -> {
+                        Map<Long, Product> stockChanges = new LinkedHashMap<>();
+                        for (int n = 0; n < positions.size(); n++) {
+                            int position = positions.get(n);
+                            long index = chunk.get(position).getT1();
+                            BasketReservation reservation = reserved.get().get(n);
+                            if (reservation.reserved()) {
+                                reservation.products().forEach(product -> stockChanges.put(product.getId(), product));
+                                results[position] = new OrderBatchResultDto(
+                                        index, OrderBatchResultDto.CREATED, OrderServiceImpl.toResponseDto(orders.get(n)), null, null
+                                );
+                            } else {
+                                if (reservation.error() instanceof InsufficientStockException) {
+                                    orderMetrics.insufficientStock();
+                                }
+                                results[position] = new OrderBatchResultDto(
+                                        index, OrderBatchResultDto.REJECTED, null, reservation.error().getMessage(), null
+                                );
+                            }
+                        }
+                        publishStockChanges(stockChanges.values());
+                        return Arrays.asList(results);
+                    });
+        })
+                .retryWhen(OrderServiceImpl.LOCK_CONFLICT_RETRY)
+                .onErrorResume(ex -> Mono.just(failed(chunk, positions, results, ex)))
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    private Map<String, String> validate(OrderListRequestDto request) {
+        Set<ConstraintViolation<OrderListRequestDto>> violations = validator.validate(request);
+        return violations.stream()
+                .collect(Collectors.toMap(
+                        violation -> violation.getPropertyPath().toString(),
+                        ConstraintViolation::getMessage,
+                        (msg1, msg2) -> msg1
+                ));
+    }
+
+    /**
+     * Saves the orders whose basket was reserved and returns them aligned with
+     * the reservations, with {@code null} for the rejected ones.
+     */
+    private Mono<List<Order>> saveOrders(List<BasketReservation> reservations, List<Map<Long, Integer>> baskets) {
+        List<Integer> accepted = new ArrayList<>();
+        for (int n = 0; n < reservations.size(); n++) {
+            if (reservations.get(n).reserved()) {
+                accepted.add(n);
+            }
+        }
+        List<Order> orders = new ArrayList<>(Arrays.asList(new Order[reservations.size()]));
+        if (accepted.isEmpty()) {
+            return Mono.just(orders);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        return orderMetrics.time(OrderMetrics.ORDER_SAVE, orderRepository.nextIds(accepted.size())
+                .collectList()
+                .flatMap(ids -> {
+                    List<Order> created = new ArrayList<>(accepted.size());
+                    for (int k = 0; k < accepted.size(); k++) {
+                        int n = accepted.get(k);
+                        BigDecimal total = orderMetrics.time(
+                                OrderMetrics.TOTAL_CALCULATION,
+                                () -> pricingEngine.total(reservations.get(n).products(), baskets.get(n))
+                        );
+                        Order order = new Order(ids.get(k), now, total, "CONFIRMED ORDER.");
+                        orders.set(n, order);
+                        created.add(order);
+                    }
+                    return orderRepository.insertAll(
+                                    created.stream().map(Order::getId).toArray(Long[]::new),
+                                    created.stream().map(Order::getDate).toArray(LocalDateTime[]::new),
+                                    created.stream().map(Order::getTotal).toArray(BigDecimal[]::new),
+                                    created.stream().map(Order::getStatus).toArray(String[]::new)
+                            )
+                            .then(saveItems(accepted, orders, reservations, baskets))
+                            .then(orderOutbox.ordersConfirmed(accepted.stream()
+                                    .map(n -> OrderOutbox.confirmed(orders.get(n), reservations.get(n).products(), baskets.get(n)))
+                                    .toList()))
+                            .then(orderRollup.added(created));
+                })
+                .thenReturn(orders));
+    }
+
+    private Mono<Integer> saveItems(
+            List<Integer> accepted,
+            List<Order> orders,
+            List<BasketReservation> reservations,
+            List<Map<Long, Integer>> baskets
+    ) {
+        List<Long> orderIds = new ArrayList<>();
+        List<Long> productIds = new ArrayList<>();
+        List<Integer> amounts = new ArrayList<>();
+        List<BigDecimal> unitPrices = new ArrayList<>();
+        for (int n : accepted) {
+            for (Product product : reservations.get(n).products()) {
+                orderIds.add(orders.get(n).getId());
+                productIds.add(product.getId());
+                amounts.add(baskets.get(n).get(product.getId()));
+                unitPrices.add(product.getPrice());
+            }
+        }
+        return orderItemRepository.insertAll(
+                orderIds.toArray(Long[]::new),
+                productIds.toArray(Long[]::new),
+                amounts.toArray(Integer[]::new),
+                unitPrices.toArray(BigDecimal[]::new)
+        );
+    }
+
+    /**
+     * Gives the reserved baskets back when the chunk transaction ends without
+     * a commit: on an error, and also when the caller cancels, which rolls the
+     * transaction back without an error signal.
+     */
+    private TransactionSynchronization releaseUnlessCommitted(
+            AtomicReference<List<BasketReservation>> reserved,
+            List<Map<Long, Integer>> baskets
+    ) {
+        return new TransactionSynchronization() {
+            @Override
+            public Mono<Void> afterCompletion(int status) {
+                List<BasketReservation> reservations = reserved.get();
+                if (status == STATUS_COMMITTED || reservations == null) {
+                    return Mono.empty();
+                }
+                return Flux.range(0, reservations.size())
+                        .filter(n -> reservations.get(n).reserved())
+                        .concatMap(n -> stockReservationService.release(baskets.get(n)))
+                        .then();
+            }
+        };
+    }
+
+    private List<OrderBatchResultDto> failed(
+            List<Tuple2<Long, OrderListRequestDto>> chunk,
+            List<Integer> positions,
+            OrderBatchResultDto[] results,
+            Throwable ex
+    ) {
+        for (int position : positions) {
+            results[position] = new OrderBatchResultDto(
+                    chunk.get(position).getT1(), OrderBatchResultDto.FAILED, null, "Could not be stored: " + ex.getMessage(), null
+            );
+        }
+        return Arrays.asList(results);
+    }
+
+    private void publishStockChanges(Iterable<Product> products) {
+        products.forEach(product -> eventPublisher.publishEvent(new ProductChangedEvent(
+                ProductChangedEvent.ChangeType.STOCK_CHANGED,
+                product.getId(),
+                product
+        )));
+    }
+}
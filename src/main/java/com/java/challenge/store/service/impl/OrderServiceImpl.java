@@ -1,122 +1,249 @@
 package com.java.challenge.store.service.impl;
 
+import com.java.challenge.store.config.RoutingConnectionFactory;
+import com.java.challenge.store.dto.OrderDetailResponseDto;
 import com.java.challenge.store.dto.OrderItemDto;
+import com.java.challenge.store.dto.OrderItemResponseDto;
 import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.dto.OrderPatchRequestDto;
 import com.java.challenge.store.dto.OrderRequestDto;
 import com.java.challenge.store.dto.OrderResponseDto;
+import com.java.challenge.store.dto.PageResponseDto;
 import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.OrderDetailRow;
 import com.java.challenge.store.entity.Product;
-import com.java.challenge.store.exception.BusinessException;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.exception.BadRequestException;
+import com.java.challenge.store.exception.InsufficientStockException;
 import com.java.challenge.store.exception.ResourceNotFoundException;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.outbox.OrderOutbox;
+import com.java.challenge.store.pricing.PricingEngine;
+import com.java.challenge.store.repository.OrderItemRepository;
 import com.java.challenge.store.repository.OrderRepository;
-import com.java.challenge.store.repository.ProductRepository;
 import com.java.challenge.store.service.OrderService;
-import com.java.challenge.store.util.DiscountCalculator;
+import com.java.challenge.store.stats.OrderRollup;
+import com.java.challenge.store.service.StockReservationService;
+import com.java.challenge.store.util.KeysetPagination;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
-    private final ProductRepository productRepository;
+    private static final LocalDateTime SEARCH_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime SEARCH_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+    /**
+     * A deadlock or serialization failure aborts the whole transaction, which
+     * can simply run again; after the last attempt the error becomes a 409.
+     */
+    static final Retry LOCK_CONFLICT_RETRY = Retry.backoff(2, Duration.ofMillis(20))
+            .filter(PessimisticLockingFailureException.class::isInstance)
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final StockReservationService stockReservationService;
     private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderMetrics orderMetrics;
+    private final PricingEngine pricingEngine;
+    private final OrderOutbox orderOutbox;
+    private final OrderRollup orderRollup;
 
     @Override
     public Mono<OrderResponseDto> createOrder(OrderListRequestDto orderListRequestDto) {
+        Map<Long, Integer> quantities = groupQuantities(orderListRequestDto.getItems());
 
-        return Flux.fromIterable(orderListRequestDto.getItems())
-                .flatMap(item ->
-                        productRepository.findById(item.getProductId())
-                                .switchIfEmpty(Mono.error(
-                                        new BusinessException("Product for check items not found")
-                                ))
-                                .flatMap(producto -> validateAndUpdateStock(producto, item))
-                )
-                .collectList()
-                .flatMap(updatedProducts -> createOrder(updatedProducts, orderListRequestDto))
-                .map(this::toResponseDto)
-                .as(transactionalOperator::transactional);
+        return Mono.defer(() -> {
+            AtomicReference<List<Product>> reserved = new AtomicReference<>();
+            AtomicLong pipelineDone = new AtomicLong();
+            return TransactionSynchronizationManager.forCurrentTransaction()
+                    .doOnNext(synchronization -> synchronization.registerSynchronization(
+                            releaseUnlessCommitted(reserved, quantities)
+                    ))
+                    .then(Mono.defer(() -> stockReservationService.reserve(quantities)))
+                    .doOnNext(reserved::set)
+                    .flatMap(reservedProducts -> createOrder(reservedProducts, quantities))
+                    .map(OrderServiceImpl::toResponseDto)
+                    .doOnSuccess(order -> pipelineDone.set(System.nanoTime()))
+                    .as(transactionalOperator::transactional)
+                    .doOnSuccess(order -> {
+                        orderMetrics.record(
+                                OrderMetrics.TRANSACTION_COMMIT,
+                                Duration.ofNanos(System.nanoTime() - pipelineDone.get())
+                        );
+                        publishStockChanges(reserved.get());
+                    })
+                    .doOnError(InsufficientStockException.class, ex -> orderMetrics.insufficientStock());
+        }).retryWhen(LOCK_CONFLICT_RETRY);
     }
 
+    /**
+     * Gives the reservation back when the order transaction ends without a
+     * commit: on an error, and also when the caller cancels, which rolls the
+     * transaction back without an error signal.
+     */
+    private TransactionSynchronization releaseUnlessCommitted(
+            AtomicReference<List<Product>> reserved,
+            Map<Long, Integer> quantities
+    ) {
+        return new TransactionSynchronization() {
+            @Override
+            public Mono<Void> afterCompletion(int status) {
+                return status != STATUS_COMMITTED && reserved.get() != null
+                        ? stockReservationService.release(quantities)
+                        : Mono.empty();
+            }
+        };
+    }
+
+    /**
+     * Read from a replica first; an order created a moment ago may not have
+     * reached it yet, so a miss is retried on the primary.
+     */
     @Override
-    public Mono<OrderResponseDto> findById(Long id) {
-        return orderRepository.findById(id)
+    public Mono<OrderDetailResponseDto> findById(Long id) {
+        return orderRepository.findDetailById(id)
+                .collectList()
+                .filter(rows -> !rows.isEmpty())
+                .contextWrite(RoutingConnectionFactory.readOnly())
+                .switchIfEmpty(Mono.defer(() -> orderRepository.findDetailById(id).collectList()))
+                .filter(rows -> !rows.isEmpty())
                 .switchIfEmpty(Mono.error(
                         new ResourceNotFoundException("Order not found")
                 ))
-                .map(this::toResponseDto);
+                .map(this::toDetailResponseDto);
     }
 
     @Override
     public Flux<OrderResponseDto> findAll() {
         return orderRepository.findAll()
-                .map(this::toResponseDto);
+                .map(OrderServiceImpl::toResponseDto)
+                .contextWrite(RoutingConnectionFactory.readOnly());
+    }
+
+    @Override
+    public Mono<PageResponseDto<OrderResponseDto>> findPage(String cursor, Integer size) {
+        return KeysetPagination.page(cursor, size, orderRepository::findPage, Order::getId, OrderServiceImpl::toResponseDto)
+                .contextWrite(RoutingConnectionFactory.readOnly());
+    }
+
+    @Override
+    public Flux<OrderResponseDto> stream() {
+        return KeysetPagination.stream(orderRepository::findPage, Order::getId)
+                .map(OrderServiceImpl::toResponseDto)
+                .contextWrite(RoutingConnectionFactory.readOnly());
+    }
+
+    @Override
+    public Mono<PageResponseDto<OrderResponseDto>> search(
+            String status,
+            LocalDateTime from,
+            LocalDateTime to,
+            String cursor,
+            Integer size
+    ) {
+        return Mono.defer(() -> {
+            LocalDateTime start = from == null ? SEARCH_START : from;
+            LocalDateTime end = to == null ? SEARCH_END : to;
+            if (!start.isBefore(end)) {
+                return Mono.error(new BadRequestException("from must be before to"));
+            }
+            KeysetPagination.DateCursor after = KeysetPagination.decodeDateCursor(cursor);
+            LocalDateTime afterDate = after == null ? start : after.date();
+            long afterId = after == null ? 0L : after.id();
+            boolean anyStatus = status == null || status.isBlank();
+
+            return KeysetPagination.page(
+                    size,
+                    limit -> anyStatus
+                            ? orderRepository.searchByDate(start, end, afterDate, afterId, limit)
+                            : orderRepository.searchByStatus(status.trim(), start, end, afterDate, afterId, limit),
+                    order -> KeysetPagination.encodeDateCursor(order.getDate(), order.getId()),
+                    OrderServiceImpl::toResponseDto
+            );
+        }).contextWrite(RoutingConnectionFactory.readOnly());
     }
 
     @Override
     public Mono<OrderResponseDto> update(Long id, OrderRequestDto request) {
-        return orderRepository.findById(id)
+        return updateFields(id, request.getOrderDate(), request.getTotal(), request.getStatus());
+    }
+
+    @Override
+    public Mono<OrderResponseDto> patch(Long id, OrderPatchRequestDto request) {
+        if (request.getOrderDate() == null && request.getTotal() == null && request.getStatus() == null) {
+            return Mono.error(new BadRequestException("At least one of orderDate, total or status is required"));
+        }
+        return updateFields(id, request.getOrderDate(), request.getTotal(), request.getStatus());
+    }
+
+    @Override
+    public Mono<Void> delete(Long id) {
+        return orderRepository.removeById(id)
                 .switchIfEmpty(Mono.error(
                         new ResourceNotFoundException("Order not found")
                 ))
-                .flatMap(order -> {
-                    order.setStatus(request.getStatus());
-                    order.setTotal(request.getTotal());
-                    order.setDate(request.getOrderDate());
-                    return orderRepository.save(order);
-                })
-                .map(this::toResponseDto);
+                .flatMap(orderRollup::removed)
+                .as(transactionalOperator::transactional);
     }
 
-    @Override
-    public Mono<Void> delete(Long id) {
-        return orderRepository.findById(id)
+    private Mono<OrderResponseDto> updateFields(Long id, LocalDateTime date, BigDecimal total, String status) {
+        return orderRepository.updateFields(id, date, total, status)
                 .switchIfEmpty(Mono.error(
                         new ResourceNotFoundException("Order not found")
                 ))
-                .flatMap(orderRepository::delete);
+                .flatMap(row -> orderRollup.updated(row).thenReturn(row))
+                .as(transactionalOperator::transactional)
+                .map(row -> new OrderResponseDto(row.getId(), row.getDate(), row.getTotal(), row.getStatus()));
     }
 
-    private Mono<Product> validateAndUpdateStock(
-            Product product,
-            OrderItemDto item
-    ) {
-        return Mono.defer(() -> {
-            if (product.getStock() < item.getQuantity()) {
-                return Mono.error(
-                        new BusinessException("Insufficient stock for product " + product.getId())
-                );
-            }
+    static Map<Long, Integer> groupQuantities(List<OrderItemDto> items) {
+        return items.stream()
+                .collect(Collectors.toMap(
+                        OrderItemDto::getProductId,
+                        OrderItemDto::getQuantity,
+                        Integer::sum,
+                        LinkedHashMap::new
+                ));
+    }
 
-            product.setStock(product.getStock() - item.getQuantity());
-            return productRepository.save(product)
-                    .onErrorMap(
-                            OptimisticLockingFailureException.class,
-                            ex -> new BusinessException("Concurrent stock update detected, please retry")
-                    );
-        });
+    private void publishStockChanges(List<Product> products) {
+        products.forEach(product -> eventPublisher.publishEvent(new ProductChangedEvent(
+                ProductChangedEvent.ChangeType.STOCK_CHANGED,
+                product.getId(),
+                product
+        )));
     }
 
     private Mono<Order> createOrder(
             List<Product> products,
-            OrderListRequestDto request
+            Map<Long, Integer> quantities
     ) {
-        BigDecimal total = getTotalPrice(products, request);
-
-        BigDecimal totalWithDiscount =
-                DiscountCalculator.applyDiscount(total, products.size());
+        BigDecimal totalWithDiscount = orderMetrics.time(
+                OrderMetrics.TOTAL_CALCULATION,
+                () -> pricingEngine.total(products, quantities)
+        );
 
         Order order = new Order(
                 null,
@@ -125,29 +252,57 @@ public class OrderServiceImpl implements OrderService {
                 "CONFIRMED ORDER."
         );
 
-        return orderRepository.save(order);
+        return orderMetrics.time(
+                OrderMetrics.ORDER_SAVE,
+                orderRepository.save(order)
+                        .flatMap(saved -> saveItems(saved, products, quantities)
+                                .then(orderOutbox.ordersConfirmed(List.of(OrderOutbox.confirmed(saved, products, quantities))))
+                                .then(orderRollup.added(List.of(saved)))
+                                .thenReturn(saved))
+        );
     }
 
-    private BigDecimal getTotalPrice(
+    private Mono<Integer> saveItems(
+            Order order,
             List<Product> products,
-            OrderListRequestDto orderListRequestDto
+            Map<Long, Integer> quantities
     ) {
-        Map<Long, Integer> orders = orderListRequestDto.getItems().stream()
-                .collect(Collectors.toMap(
-                        OrderItemDto::getProductId,
-                        OrderItemDto::getQuantity
-                ));
+        int size = products.size();
+        Long[] orderIds = new Long[size];
+        Long[] productIds = new Long[size];
+        Integer[] amounts = new Integer[size];
+        BigDecimal[] unitPrices = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+            Product product = products.get(i);
+            orderIds[i] = order.getId();
+            productIds[i] = product.getId();
+            amounts[i] = quantities.get(product.getId());
+            unitPrices[i] = product.getPrice();
+        }
+        return orderItemRepository.insertAll(orderIds, productIds, amounts, unitPrices);
+    }
 
-        return products.stream()
-                .map(p ->
-                        p.getPrice().multiply(
-                                BigDecimal.valueOf(orders.get(p.getId()))
-                        )
-                )
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private OrderDetailResponseDto toDetailResponseDto(List<OrderDetailRow> rows) {
+        OrderDetailRow order = rows.get(0);
+        List<OrderItemResponseDto> items = rows.stream()
+                .filter(row -> row.getProductId() != null)
+                .map(row -> new OrderItemResponseDto(
+                        row.getProductId(),
+                        row.getQuantity(),
+                        row.getUnitPrice()
+                ))
+                .toList();
+
+        return new OrderDetailResponseDto(
+                order.getId(),
+                order.getDate(),
+                order.getTotal(),
+                order.getStatus(),
+                items
+        );
     }
 
-    private OrderResponseDto toResponseDto(Order order) {
+    static OrderResponseDto toResponseDto(Order order) {
         return new OrderResponseDto(
                 order.getId(),
                 order.getDate(),
@@ -0,0 +1,84 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.config.RoutingConnectionFactory;
+import com.java.challenge.store.dto.OrderStatsBackfillReportDto;
+import com.java.challenge.store.dto.OrderStatsPeriodDto;
+import com.java.challenge.store.dto.OrderStatsResponseDto;
+import com.java.challenge.store.exception.BadRequestException;
+import com.java.challenge.store.repository.OrderStatsRepository;
+import com.java.challenge.store.service.OrderStatsService;
+import com.java.challenge.store.stats.OrderRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Answers from the daily rollup, so a range costs one row per day at most
+ * whatever the number of orders.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderStatsServiceImpl implements OrderStatsService {
+
+    private static final Set<String> GRANULARITIES = Set.of("day", "week", "month");
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final OrderStatsRepository repository;
+    private final OrderRollup orderRollup;
+
+    @Override
+    public Mono<OrderStatsResponseDto> stats(LocalDate from, LocalDate to, String granularity) {
+        String unit = granularity == null ? "day" : granularity.toLowerCase(Locale.ROOT);
+        if (!GRANULARITIES.contains(unit)) {
+            return Mono.error(new BadRequestException("granularity must be one of day, week or month"));
+        }
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_RANGE_DAYS - 1) : from;
+        if (start.isAfter(end)) {
+            return Mono.error(new BadRequestException("from must not be after to"));
+        }
+
+        return repository.sumBy(unit, start, end)
+                .map(row -> new OrderStatsPeriodDto(
+                        row.getPeriod(),
+                        row.getOrderCount(),
+                        row.getRevenue(),
+                        average(row.getRevenue(), row.getOrderCount())
+                ))
+                .collectList()
+                .map(periods -> summary(start, end, unit, periods))
+                .contextWrite(RoutingConnectionFactory.readOnly());
+    }
+
+    @Override
+    public Mono<OrderStatsBackfillReportDto> backfill(LocalDate from, LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        return Mono.justOrEmpty(from)
+                .switchIfEmpty(repository.findFirstOrderDay())
+                .defaultIfEmpty(end)
+                .flatMap(start -> start.isAfter(end)
+                        ? Mono.error(new BadRequestException("from must not be after to"))
+                        : orderRollup.backfill(start, end));
+    }
+
+    private OrderStatsResponseDto summary(LocalDate from, LocalDate to, String unit, List<OrderStatsPeriodDto> periods) {
+        long orderCount = periods.stream().mapToLong(OrderStatsPeriodDto::getOrderCount).sum();
+        BigDecimal revenue = periods.stream()
+                .map(OrderStatsPeriodDto::getRevenue)
+                .reduce(BigDecimal.ZERO.setScale(2), BigDecimal::add);
+        return new OrderStatsResponseDto(from, to, unit, orderCount, revenue, average(revenue, orderCount), periods);
+    }
+
+    private static BigDecimal average(BigDecimal revenue, long orderCount) {
+        return orderCount == 0
+                ? BigDecimal.ZERO.setScale(2)
+                : revenue.divide(BigDecimal.valueOf(orderCount), 2, RoundingMode.HALF_UP);
+    }
+}
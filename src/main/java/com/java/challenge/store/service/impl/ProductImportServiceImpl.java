@@ -0,0 +1,255 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.ProductImportErrorDto;
+import com.java.challenge.store.dto.ProductImportReportDto;
+import com.java.challenge.store.dto.ProductImportRowDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.exception.BadRequestException;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.service.ProductImportService;
+import com.java.challenge.store.util.ProductImportParser;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports products in chunks: each chunk is written with at most two multi-row
+ * statements, and the next chunk is only parsed once the previous one is
+ * stored, so the request body is read as fast as the database can take it.
+ * Rows that do not fit the columns are rejected before writing; if a chunk
+ * still fails, its rows are written one by one so only the bad ones fail.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // Column limits of docs/schema.sql: name VARCHAR(255), price DECIMAL(10,2).
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    private final ProductRepository repository;
+    private final TransactionalOperator transactionalOperator;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public Mono<ProductImportReportDto> importProducts(Flux<String> lines, ProductImportParser parser) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            ImportProgress progress = new ImportProgress();
+
+            return lines.index()
+                    .filter(line -> !line.getT2().isBlank())
+                    .filter(line -> !header(parser, line.getT2()))
+                    .map(line -> parse(parser, line.getT1() + 1, line.getT2()))
+                    .buffer(CHUNK_SIZE)
+                    .concatMap(chunk -> write(chunk, progress))
+                    .then(Mono.defer(() -> progress.explicitIds
+                            ? repository.syncIdSequence().then()
+                            : Mono.empty()))
+                    .then(Mono.fromCallable(() -> progress.report(System.nanoTime() - started)));
+        });
+    }
+
+    private boolean header(ProductImportParser parser, String line) {
+        try {
+            return parser.header(line);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+    }
+
+    private ParsedRow parse(ProductImportParser parser, long line, String content) {
+        ProductImportRowDto row;
+        try {
+            row = parser.parse(content);
+        } catch (IllegalArgumentException ex) {
+            return ParsedRow.failed(line, ex.getMessage(), null);
+        }
+
+        Set<ConstraintViolation<ProductImportRowDto>> violations = validator.validate(row);
+        Map<String, String> details = violations.stream()
+                .collect(Collectors.toMap(
+                        violation -> violation.getPropertyPath().toString(),
+                        ConstraintViolation::getMessage,
+                        (msg1, msg2) -> msg1,
+                        LinkedHashMap::new
+                ));
+        columnLimits(row, details);
+        if (!details.isEmpty()) {
+            return ParsedRow.failed(line, "Invalid data", details);
+        }
+        return new ParsedRow(line, row, null);
+    }
+
+    private void columnLimits(ProductImportRowDto row, Map<String, String> details) {
+        String name = row.getName();
+        if (name != null && name.codePointCount(0, name.length()) > MAX_NAME_LENGTH) {
+            details.putIfAbsent("name", "name must be at most " + MAX_NAME_LENGTH + " characters");
+        }
+        // Postgres rounds to the scale of the column before checking the precision.
+        BigDecimal price = row.getPrice();
+        if (price != null && price.setScale(2, RoundingMode.HALF_UP).abs().compareTo(MAX_PRICE) > 0) {
+            details.putIfAbsent("price", "price must be at most " + MAX_PRICE);
+        }
+    }
+
+    private Mono<Void> write(List<ParsedRow> chunk, ImportProgress progress) {
+        progress.received += chunk.size();
+
+        Map<Long, ParsedRow> withId = new LinkedHashMap<>();
+        List<ParsedRow> withoutId = new ArrayList<>();
+        List<ParsedRow> valid = new ArrayList<>(chunk.size());
+        for (ParsedRow parsed : chunk) {
+            if (parsed.error() != null) {
+                progress.fail(parsed.error());
+                continue;
+            }
+            valid.add(parsed);
+            if (parsed.row().getId() != null) {
+                // A later row for the same id wins, as it would row by row.
+                withId.remove(parsed.row().getId());
+                withId.put(parsed.row().getId(), parsed);
+            } else {
+                withoutId.add(parsed);
+            }
+        }
+        if (valid.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<ParsedRow> upserts = new ArrayList<>(withId.values());
+        return upsert(upserts)
+                .concatWith(insert(withoutId))
+                .collectList()
+                .as(transactionalOperator::transactional)
+                .doOnNext(saved -> {
+                    progress.imported += valid.size();
+                    progress.explicitIds |= !upserts.isEmpty();
+                    saved.forEach(this::publish);
+                })
+                .then()
+                .onErrorResume(ex -> writeEach(valid, progress));
+    }
+
+    /**
+     * Writes the rows of a failed chunk one per transaction, so a row the
+     * database rejects does not take the rest of the chunk with it.
+     */
+    private Mono<Void> writeEach(List<ParsedRow> rows, ImportProgress progress) {
+        return Flux.fromIterable(rows)
+                .concatMap(parsed -> {
+                    boolean explicitId = parsed.row().getId() != null;
+                    return (explicitId ? upsert(List.of(parsed)) : insert(List.of(parsed)))
+                            .collectList()
+                            .as(transactionalOperator::transactional)
+                            .doOnNext(saved -> {
+                                progress.imported++;
+                                progress.explicitIds |= explicitId;
+                                saved.forEach(this::publish);
+                            })
+                            .then()
+                            .onErrorResume(ex -> {
+                                progress.fail(new ProductImportErrorDto(
+                                        parsed.line(),
+                                        "Could not be stored: " + ex.getMessage(),
+                                        null
+                                ));
+                                return Mono.empty();
+                            });
+                })
+                .then();
+    }
+
+    // Upserted rows start at version 0 only when the id did not exist yet.
+    private void publish(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(
+                product.getVersion() != null && product.getVersion() == 0
+                        ? ProductChangedEvent.ChangeType.CREATED
+                        : ProductChangedEvent.ChangeType.UPDATED,
+                product.getId(),
+                product
+        ));
+    }
+
+    private Flux<Product> upsert(List<ParsedRow> rows) {
+        if (rows.isEmpty()) {
+            return Flux.empty();
+        }
+        return repository.upsertAll(
+                rows.stream().map(parsed -> parsed.row().getId()).toArray(Long[]::new),
+                rows.stream().map(parsed -> parsed.row().getName()).toArray(String[]::new),
+                rows.stream().map(parsed -> parsed.row().getPrice()).toArray(BigDecimal[]::new),
+                rows.stream().map(parsed -> parsed.row().getStock()).toArray(Integer[]::new)
+        );
+    }
+
+    private Flux<Product> insert(List<ParsedRow> rows) {
+        if (rows.isEmpty()) {
+            return Flux.empty();
+        }
+        return repository.insertAll(
+                rows.stream().map(parsed -> parsed.row().getName()).toArray(String[]::new),
+                rows.stream().map(parsed -> parsed.row().getPrice()).toArray(BigDecimal[]::new),
+                rows.stream().map(parsed -> parsed.row().getStock()).toArray(Integer[]::new)
+        );
+    }
+
+    private record ParsedRow(long line, ProductImportRowDto row, ProductImportErrorDto error) {
+
+        static ParsedRow failed(long line, String message, Map<String, String> details) {
+            return new ParsedRow(line, null, new ProductImportErrorDto(line, message, details));
+        }
+    }
+
+    /**
+     * Counters of one import. Chunks are written one after the other, so it is
+     * never updated concurrently.
+     */
+    private static class ImportProgress {
+
+        private long received;
+        private long imported;
+        private long failed;
+        private boolean explicitIds;
+        private final List<ProductImportErrorDto> errors = new ArrayList<>();
+
+        private void fail(ProductImportErrorDto error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        private ProductImportReportDto report(long elapsedNanos) {
+            long elapsedMillis = elapsedNanos / 1_000_000;
+            double rowsPerSecond = elapsedNanos == 0 ? 0 : imported * 1_000_000_000d / elapsedNanos;
+            return new ProductImportReportDto(
+                    received,
+                    imported,
+                    failed,
+                    elapsedMillis,
+                    rowsPerSecond,
+                    errors,
+                    failed > errors.size()
+            );
+        }
+    }
+}
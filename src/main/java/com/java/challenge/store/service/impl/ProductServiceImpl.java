@@ -1,21 +1,33 @@
 package com.java.challenge.store.service.impl;
 
+import com.java.challenge.store.config.RoutingConnectionFactory;
+import com.java.challenge.store.dto.PageResponseDto;
+import com.java.challenge.store.dto.ProductPatchRequestDto;
 import com.java.challenge.store.dto.ProductRequestDto;
 import com.java.challenge.store.dto.ProductResponseDto;
 import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.exception.BadRequestException;
 import com.java.challenge.store.exception.ResourceNotFoundException;
 import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.search.ProductSearchIndex;
 import com.java.challenge.store.service.ProductService;
+import com.java.challenge.store.util.KeysetPagination;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex searchIndex;
 
     @Override
     public Mono<ProductResponseDto> create(ProductRequestDto request) {
@@ -28,50 +40,112 @@ public class ProductServiceImpl implements ProductService {
                     null
             );
             return repository.save(product);
-        }).map(this::toResponse);
+        })
+                .doOnNext(saved -> publish(ProductChangedEvent.ChangeType.CREATED, saved.getId(), saved))
+                .map(ProductServiceImpl::toResponse);
     }
 
+    /**
+     * Read from the primary: the product endpoint caches what it returns, and
+     * a row from a lagging replica would stay cached until it expires.
+     */
     @Override
     public Mono<ProductResponseDto> findById(Long id) {
         return repository.findById(id)
+                .map(ProductServiceImpl::toResponse)
                 .switchIfEmpty(Mono.error(
                         new ResourceNotFoundException("Product not found")
-                ))
-                .map(this::toResponse);
+                ));
     }
 
     @Override
     public Flux<ProductResponseDto> findAll() {
         return repository.findAll()
-                .map(this::toResponse);
+                .map(ProductServiceImpl::toResponse)
+                .contextWrite(RoutingConnectionFactory.readOnly());
+    }
+
+    @Override
+    public Mono<PageResponseDto<ProductResponseDto>> findPage(String cursor, Integer size) {
+        return KeysetPagination.page(cursor, size, repository::findPage, Product::getId, ProductServiceImpl::toResponse)
+                .contextWrite(RoutingConnectionFactory.readOnly());
+    }
+
+    @Override
+    public Flux<ProductResponseDto> stream() {
+        return KeysetPagination.stream(repository::findPage, Product::getId)
+                .map(ProductServiceImpl::toResponse)
+                .contextWrite(RoutingConnectionFactory.readOnly());
+    }
+
+    @Override
+    public Flux<ProductResponseDto> findAfter(Long afterId, int limit) {
+        return repository.findPage(afterId, limit)
+                .map(ProductServiceImpl::toResponse);
+    }
+
+    /**
+     * Served from the in-process index. Until its initial load finishes the
+     * query runs as a substring match in the database instead.
+     */
+    @Override
+    public Flux<ProductResponseDto> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            return Flux.error(new BadRequestException("Query is required"));
+        }
+        int size = KeysetPagination.pageSize(limit);
+        if (searchIndex.ready()) {
+            return Flux.defer(() -> Flux.fromIterable(searchIndex.search(query, size)));
+        }
+        String pattern = "%" + query.strip().replaceAll("([\\\\%_])", "\\\\$1") + "%";
+        return repository.searchByName(pattern, size)
+                .map(ProductServiceImpl::toResponse)
+                .contextWrite(RoutingConnectionFactory.readOnly());
     }
 
     @Override
     public Mono<ProductResponseDto> update(Long id, ProductRequestDto request) {
-        return repository.findById(id)
+        return updateFields(id, request.getName(), request.getPrice(), request.getStock());
+    }
+
+    @Override
+    public Mono<ProductResponseDto> patch(Long id, ProductPatchRequestDto request) {
+        if (request.getName() == null && request.getPrice() == null && request.getStock() == null) {
+            return Mono.error(new BadRequestException("At least one of name, price or stock is required"));
+        }
+        return updateFields(id, request.getName(), request.getPrice(), request.getStock());
+    }
+
+    @Override
+    public Mono<Void> delete(Long id) {
+        return repository.removeById(id)
+                .filter(deleted -> deleted > 0)
                 .switchIfEmpty(Mono.error(
                         new ResourceNotFoundException("Product not found")
                 ))
-                .flatMap(existing ->
-                        Mono.defer(() -> {
-                                    existing.setName(request.getName());
-                                    existing.setPrice(request.getPrice());
-                                    existing.setStock(request.getStock());
-                                    return repository.save(existing);
-                                })
-                ).map(this::toResponse);
+                .doOnNext(ignored -> publish(ProductChangedEvent.ChangeType.DELETED, id, null))
+                .then();
     }
 
-    @Override
-    public Mono<Void> delete(Long id) {
-        return repository.findById(id)
+    private Mono<ProductResponseDto> updateFields(Long id, String name, BigDecimal price, Integer stock) {
+        return repository.updateFields(id, name, price, stock)
                 .switchIfEmpty(Mono.error(
                         new ResourceNotFoundException("Product not found")
                 ))
-                .flatMap(repository::delete);
+                .doOnNext(saved -> eventPublisher.publishEvent(new ProductChangedEvent(
+                        ProductChangedEvent.ChangeType.UPDATED,
+                        id,
+                        saved,
+                        stock != null
+                )))
+                .map(ProductServiceImpl::toResponse);
+    }
+
+    private void publish(ProductChangedEvent.ChangeType type, Long id, Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(type, id, product));
     }
 
-    private ProductResponseDto toResponse(Product product) {
+    static ProductResponseDto toResponse(Product product) {
         return new ProductResponseDto(
                 product.getId(),
                 product.getName(),
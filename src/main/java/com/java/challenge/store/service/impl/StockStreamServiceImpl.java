@@ -0,0 +1,146 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.StockLevelDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.service.StockStreamService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans stock changes out to every subscriber through one multicast sink. Each
+ * subscriber drains its own buffer keyed by product, so a slow client gets the
+ * latest level of each product instead of every intermediate one, and the
+ * buffer never holds more than {@code buffer-size} products.
+ * <p>
+ * Changes are published after their transaction commits, possibly from
+ * different threads, so a level older by version than one already sent for
+ * that product is dropped instead of going back in time.
+ */
+@Service
+public class StockStreamServiceImpl implements StockStreamService {
+
+    private final Sinks.Many<StockLevelDto> changes = Sinks.many().multicast().directBestEffort();
+    private final int bufferSize;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+
+    // Highest version sent per product; a deleted product stays at Long.MAX_VALUE until it is created again.
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    public StockStreamServiceImpl(@Value("${store.stock.stream.buffer-size:1024}") int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public Flux<StockLevelDto> stream() {
+        return Flux.create(sink -> {
+            ConflatingBuffer buffer = new ConflatingBuffer(sink);
+            Disposable upstream = changes.asFlux().subscribe(buffer::offer, sink::error, sink::complete);
+            subscribers.incrementAndGet();
+            sink.onRequest(requested -> buffer.drain());
+            sink.onDispose(() -> {
+                upstream.dispose();
+                subscribers.decrementAndGet();
+            });
+        });
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        Product product = event.product();
+        StockLevelDto level = product == null
+                ? new StockLevelDto(event.productId(), 0, null, Instant.now())
+                : new StockLevelDto(event.productId(), product.getStock(), product.getVersion(), Instant.now());
+        // The check and the emission happen under one lock, so levels reach the sink in version order.
+        synchronized (versions) {
+            if (!advance(event.type(), level)) {
+                stale.incrementAndGet();
+                return;
+            }
+            changes.emitNext(level, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        }
+    }
+
+    private boolean advance(ProductChangedEvent.ChangeType type, StockLevelDto level) {
+        Long productId = level.getProductId();
+        if (level.getVersion() == null) {
+            versions.put(productId, Long.MAX_VALUE);
+            return true;
+        }
+        Long sent = versions.get(productId);
+        if (type != ProductChangedEvent.ChangeType.CREATED && sent != null && level.getVersion() < sent) {
+            return false;
+        }
+        versions.put(productId, level.getVersion());
+        return true;
+    }
+
+    public int subscribers() {
+        return subscribers.get();
+    }
+
+    public long conflated() {
+        return conflated.get();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    public long stale() {
+        return stale.get();
+    }
+
+    private final class ConflatingBuffer {
+
+        private final FluxSink<StockLevelDto> sink;
+        private final LinkedHashMap<Long, StockLevelDto> pending = new LinkedHashMap<>();
+
+        private ConflatingBuffer(FluxSink<StockLevelDto> sink) {
+            this.sink = sink;
+        }
+
+        private void offer(StockLevelDto level) {
+            synchronized (this) {
+                // Re-inserting moves the product to the end, so levels are sent in the order of their last change.
+                if (pending.remove(level.getProductId()) != null) {
+                    conflated.incrementAndGet();
+                } else if (pending.size() >= bufferSize) {
+                    Iterator<Long> eldest = pending.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    dropped.incrementAndGet();
+                }
+                pending.put(level.getProductId(), level);
+            }
+            drain();
+        }
+
+        private synchronized void drain() {
+            while (sink.requestedFromDownstream() > 0 && !pending.isEmpty()) {
+                // A fresh iterator per level: sink.next may request more and re-enter drain.
+                Iterator<StockLevelDto> levels = pending.values().iterator();
+                StockLevelDto level = levels.next();
+                levels.remove();
+                sink.next(level);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderResponseDto;
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.exception.ResourceNotFoundException;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.OrderRepository;
+import com.java.challenge.store.service.OrderStatusService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Queues status changes per order id and writes them every
+ * {@code flush-interval} with one statement per batch. A change queued while an
+ * older one for the same order is still waiting replaces it, so a burst of
+ * transitions costs a single write. Queued changes live in memory: those not
+ * yet flushed are lost if the process dies, which is why {@link Ack#FLUSHED}
+ * is the safe choice.
+ */
+@Slf4j
+@Service
+public class WriteBehindOrderStatusService implements OrderStatusService {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final OrderRepository orderRepository;
+    private final OrderMetrics orderMetrics;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Map<Long, PendingStatus> pending = new ConcurrentHashMap<>();
+    private Disposable flusher;
+
+    public WriteBehindOrderStatusService(
+            OrderRepository orderRepository,
+            OrderMetrics orderMetrics,
+            @Value("${store.order.status.flush-interval:100ms}") Duration flushInterval,
+            @Value("${store.order.status.batch-size:500}") int batchSize
+    ) {
+        this.orderRepository = orderRepository;
+        this.orderMetrics = orderMetrics;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        flusher = Flux.interval(flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.dispose();
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    @Override
+    public Mono<OrderResponseDto> updateStatus(Long id, String status, Ack ack) {
+        return Mono.defer(() -> {
+            Sinks.One<OrderResponseDto> written = ack == Ack.FLUSHED ? Sinks.one() : null;
+            pending.compute(id, (key, queued) -> {
+                if (queued == null) {
+                    return new PendingStatus(status, written);
+                }
+                orderMetrics.orderStatusCoalesced();
+                return queued.replace(status, written);
+            });
+            orderMetrics.orderStatusQueued();
+            return written == null ? Mono.empty() : written.asMono();
+        });
+    }
+
+    /**
+     * Writes everything queued so far, in batches of {@code batch-size}.
+     */
+    Mono<Void> flush() {
+        List<Map.Entry<Long, PendingStatus>> drained = new ArrayList<>();
+        for (Long id : pending.keySet()) {
+            PendingStatus queued = pending.remove(id);
+            if (queued != null) {
+                drained.add(Map.entry(id, queued));
+            }
+        }
+        if (drained.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return Flux.fromIterable(drained)
+                .buffer(batchSize)
+                .concatMap(this::write)
+                .then();
+    }
+
+    private Mono<Void> write(List<Map.Entry<Long, PendingStatus>> batch) {
+        return orderRepository.updateStatuses(
+                        batch.stream().map(Map.Entry::getKey).toArray(Long[]::new),
+                        batch.stream().map(entry -> entry.getValue().status).toArray(String[]::new)
+                )
+                .collectMap(Order::getId, Function.identity())
+                .doOnNext(updated -> {
+                    batch.forEach(entry -> entry.getValue().complete(updated.get(entry.getKey())));
+                    if (updated.size() < batch.size()) {
+                        unmatched(batch, updated);
+                    }
+                })
+                .onErrorResume(ex -> {
+                    log.warn("Order status flush failed for {} orders", batch.size(), ex);
+                    batch.forEach(entry -> retryOrFail(entry.getKey(), entry.getValue(), ex));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // Orders deleted after their change was queued: the change is dropped, as a direct update would match no row.
+    private void unmatched(List<Map.Entry<Long, PendingStatus>> batch, Map<Long, Order> updated) {
+        List<Long> ids = batch.stream()
+                .map(Map.Entry::getKey)
+                .filter(id -> !updated.containsKey(id))
+                .toList();
+        orderMetrics.orderStatusUnmatched(ids.size());
+        log.warn("Order status flush dropped the changes of {} orders that no longer exist: {}", ids.size(), ids);
+    }
+
+    private void retryOrFail(Long id, PendingStatus failed, Throwable ex) {
+        if (failed.attempts + 1 >= MAX_ATTEMPTS) {
+            failed.fail(ex);
+            return;
+        }
+        // A newer change queued meanwhile wins, taking over the waiting callers.
+        pending.merge(id, failed.retry(), (newer, retried) -> newer.adopt(retried));
+    }
+
+    /**
+     * Latest status queued for one order and the callers waiting for it to be
+     * written. Only mutated inside {@link ConcurrentHashMap#compute}.
+     */
+    private static final class PendingStatus {
+
+        private final String status;
+        private final List<Sinks.One<OrderResponseDto>> waiters;
+        private final int attempts;
+
+        private PendingStatus(String status, Sinks.One<OrderResponseDto> waiter) {
+            this(status, new ArrayList<>(), 0);
+            if (waiter != null) {
+                waiters.add(waiter);
+            }
+        }
+
+        private PendingStatus(String status, List<Sinks.One<OrderResponseDto>> waiters, int attempts) {
+            this.status = status;
+            this.waiters = waiters;
+            this.attempts = attempts;
+        }
+
+        private PendingStatus replace(String newStatus, Sinks.One<OrderResponseDto> waiter) {
+            PendingStatus replaced = new PendingStatus(newStatus, waiters, 0);
+            if (waiter != null) {
+                replaced.waiters.add(waiter);
+            }
+            return replaced;
+        }
+
+        private PendingStatus retry() {
+            return new PendingStatus(status, waiters, attempts + 1);
+        }
+
+        private PendingStatus adopt(PendingStatus older) {
+            waiters.addAll(older.waiters);
+            return this;
+        }
+
+        private void complete(Order order) {
+            if (order == null) {
+                fail(new ResourceNotFoundException("Order not found"));
+                return;
+            }
+            OrderResponseDto response = OrderServiceImpl.toResponseDto(order);
+            waiters.forEach(waiter -> waiter.tryEmitValue(response));
+        }
+
+        private void fail(Throwable ex) {
+            waiters.forEach(waiter -> waiter.tryEmitError(ex));
+        }
+    }
+}
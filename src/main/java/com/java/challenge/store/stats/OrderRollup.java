@@ -0,0 +1,187 @@
+package com.java.challenge.store.stats;
+
+import com.java.challenge.store.dto.OrderStatsBackfillReportDto;
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.OrderUpdateRow;
+import com.java.challenge.store.repository.OrderStatsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the per-day order count and revenue in {@code order_daily_stats}. The
+ * incremental methods must run inside the transaction that writes the orders,
+ * so their deltas commit or roll back with them. They only append the deltas,
+ * which are folded into the days every {@code store.stats.fold-interval}, so
+ * orders never wait for each other on the row of their day.
+ */
+@Slf4j
+@Component
+public class OrderRollup {
+
+    private static final int BACKFILL_CHUNK_DAYS = 31;
+    private static final int FOLD_BATCH_SIZE = 5000;
+
+    private final OrderStatsRepository repository;
+    private final TransactionalOperator transactionalOperator;
+    private final Duration foldInterval;
+
+    private Disposable folder;
+
+    public OrderRollup(
+            OrderStatsRepository repository,
+            TransactionalOperator transactionalOperator,
+            @Value("${store.stats.fold-interval:1s}") Duration foldInterval
+    ) {
+        this.repository = repository;
+        this.transactionalOperator = transactionalOperator;
+        this.foldInterval = foldInterval;
+    }
+
+    @PostConstruct
+    void start() {
+        folder = Flux.interval(foldInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> fold()
+                        .onErrorResume(ex -> {
+                            log.warn("Could not fold the order stats deltas, retrying on the next tick", ex);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        folder.dispose();
+    }
+
+    public Mono<Void> added(List<Order> orders) {
+        Map<LocalDate, Delta> deltas = new TreeMap<>();
+        orders.forEach(order -> add(deltas, order.getDate(), 1, order.getTotal()));
+        return apply(deltas);
+    }
+
+    public Mono<Void> updated(OrderUpdateRow row) {
+        if (row.getDate().toLocalDate().equals(row.getPreviousDate().toLocalDate())
+                && row.getTotal().compareTo(row.getPreviousTotal()) == 0) {
+            return Mono.empty();
+        }
+        Map<LocalDate, Delta> deltas = new TreeMap<>();
+        add(deltas, row.getPreviousDate(), -1, row.getPreviousTotal().negate());
+        add(deltas, row.getDate(), 1, row.getTotal());
+        return apply(deltas);
+    }
+
+    public Mono<Void> removed(Order order) {
+        Map<LocalDate, Delta> deltas = new TreeMap<>();
+        add(deltas, order.getDate(), -1, order.getTotal().negate());
+        return apply(deltas);
+    }
+
+    /**
+     * Adds the appended deltas to their days, {@value #FOLD_BATCH_SIZE} per
+     * transaction, and returns how many were folded.
+     */
+    public Mono<Long> fold() {
+        return foldBatch()
+                .expand(moved -> moved < FOLD_BATCH_SIZE ? Mono.empty() : foldBatch())
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Recomputes the days from {@code from} to {@code to}, both included, from
+     * the orders table in chunks of {@value #BACKFILL_CHUNK_DAYS} days, one
+     * transaction per chunk. Orders keep being accepted and never wait for it;
+     * only folding does.
+     */
+    public Mono<OrderStatsBackfillReportDto> backfill(LocalDate from, LocalDate to) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            LocalDate end = to.plusDays(1);
+            return Flux.<LocalDate, LocalDate>generate(() -> from, (chunkStart, sink) -> {
+                        if (chunkStart.isBefore(end)) {
+                            sink.next(chunkStart);
+                        } else {
+                            sink.complete();
+                        }
+                        return chunkStart.plusDays(BACKFILL_CHUNK_DAYS);
+                    })
+                    .concatMap(chunkStart -> rebuild(chunkStart, min(chunkStart.plusDays(BACKFILL_CHUNK_DAYS), end)))
+                    .reduce(new long[2], (totals, days) -> {
+                        totals[0]++;
+                        totals[1] += days;
+                        return totals;
+                    })
+                    .map(totals -> new OrderStatsBackfillReportDto(
+                            from,
+                            to,
+                            totals[0],
+                            totals[1],
+                            (System.nanoTime() - started) / 1_000_000
+                    ));
+        });
+    }
+
+    private Mono<Long> foldBatch() {
+        return repository.lockMaintenance()
+                .then(repository.fold(FOLD_BATCH_SIZE))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Integer> rebuild(LocalDate from, LocalDate to) {
+        return repository.lockMaintenance()
+                .thenMany(repository.rebuildRange(from, to))
+                .collectList()
+                .flatMap(days -> repository.deleteRangeExcept(from, to, days.toArray(LocalDate[]::new))
+                        .thenReturn(days.size()))
+                .as(transactionalOperator::transactional);
+    }
+
+    private static LocalDate min(LocalDate first, LocalDate second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    // Totals are rounded as the orders table stores them, so the rollup matches a rebuild.
+    private static void add(Map<LocalDate, Delta> deltas, LocalDateTime date, long count, BigDecimal revenue) {
+        BigDecimal rounded = revenue.setScale(2, RoundingMode.HALF_UP);
+        deltas.merge(date.toLocalDate(), new Delta(count, rounded), Delta::plus);
+    }
+
+    private Mono<Void> apply(Map<LocalDate, Delta> deltas) {
+        deltas.values().removeIf(Delta::isEmpty);
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+        return repository.appendAll(
+                deltas.keySet().toArray(LocalDate[]::new),
+                deltas.values().stream().map(Delta::count).toArray(Long[]::new),
+                deltas.values().stream().map(Delta::revenue).toArray(BigDecimal[]::new)
+        ).then();
+    }
+
+    private record Delta(long count, BigDecimal revenue) {
+
+        private Delta plus(Delta other) {
+            return new Delta(count + other.count, revenue.add(other.revenue));
+        }
+
+        private boolean isEmpty() {
+            return count == 0 && revenue.signum() == 0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.java.challenge.store.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Write counters by id, so a cache can tell whether the id changed while a
+ * load of it was running. Ids share a fixed number of stripes and memory does
+ * not grow with them; a write to another id of the same stripe only makes a
+ * load look stale, so its result is not stored and the next read loads again.
+ */
+public class Generations {
+
+    private final AtomicLongArray stripes;
+    private final int mask;
+
+    /**
+     * @param stripes rounded up to a power of two
+     */
+    public Generations(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    public long current(long id) {
+        return stripes.get(stripe(id));
+    }
+
+    /**
+     * Marks the id as written, to be called before dropping its cached entry.
+     */
+    public void bump(long id) {
+        stripes.incrementAndGet(stripe(id));
+    }
+
+    private int stripe(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & mask;
+    }
+}
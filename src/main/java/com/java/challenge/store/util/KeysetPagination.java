@@ -0,0 +1,144 @@
+package com.java.challenge.store.util;
+
+import com.java.challenge.store.dto.PageResponseDto;
+import com.java.challenge.store.exception.BadRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination on ascending ids, or on ascending dates with the id as tie
+ * breaker. Cursors are opaque to clients and only carry the key of the last row
+ * already returned.
+ */
+public class KeysetPagination {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final String CURSOR_PREFIX = "id:";
+    private static final String DATE_CURSOR_PREFIX = "at:";
+
+    public static int pageSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public static String encodeDateCursor(LocalDateTime lastDate, long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((DATE_CURSOR_PREFIX + lastDate + "/" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns {@code null} when there is no cursor, meaning the first page.
+     */
+    public static DateCursor decodeDateCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('/');
+            if (!decoded.startsWith(DATE_CURSOR_PREFIX) || separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new DateCursor(
+                    LocalDateTime.parse(decoded.substring(DATE_CURSOR_PREFIX.length(), separator)),
+                    Long.parseLong(decoded.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Loads one page, asking for one extra row to know whether a next page exists.
+     */
+    public static <E, R> Mono<PageResponseDto<R>> page(
+            String cursor,
+            Integer size,
+            BiFunction<Long, Integer, Flux<E>> pageLoader,
+            Function<E, Long> idOf,
+            Function<E, R> mapper
+    ) {
+        return Mono.defer(() -> {
+            long afterId = decodeCursor(cursor);
+            return page(size, limit -> pageLoader.apply(afterId, limit), row -> encodeCursor(idOf.apply(row)), mapper);
+        });
+    }
+
+    /**
+     * Same as {@link #page(String, Integer, BiFunction, Function, Function)}
+     * for loaders that decode their own cursor; {@code cursorOf} encodes the
+     * cursor of the last row of the page.
+     */
+    public static <E, R> Mono<PageResponseDto<R>> page(
+            Integer size,
+            Function<Integer, Flux<E>> pageLoader,
+            Function<E, String> cursorOf,
+            Function<E, R> mapper
+    ) {
+        return Mono.defer(() -> {
+            int limit = pageSize(size);
+            return pageLoader.apply(limit + 1)
+                    .collectList()
+                    .map(rows -> {
+                        boolean hasNext = rows.size() > limit;
+                        List<E> items = hasNext ? rows.subList(0, limit) : rows;
+                        String nextCursor = hasNext
+                                ? cursorOf.apply(items.get(items.size() - 1))
+                                : null;
+                        return new PageResponseDto<>(items.stream().map(mapper).toList(), nextCursor);
+                    });
+        });
+    }
+
+    /**
+     * Walks the whole table in bounded keyset chunks. The next chunk is only
+     * queried when the subscriber has consumed the previous one, so memory does
+     * not grow with the table size.
+     */
+    public static <E> Flux<E> stream(
+            BiFunction<Long, Integer, Flux<E>> pageLoader,
+            Function<E, Long> idOf
+    ) {
+        return pageLoader.apply(0L, STREAM_CHUNK_SIZE)
+                .collectList()
+                .expand(chunk -> chunk.size() < STREAM_CHUNK_SIZE
+                        ? Mono.empty()
+                        : pageLoader.apply(idOf.apply(chunk.get(chunk.size() - 1)), STREAM_CHUNK_SIZE).collectList())
+                .concatMapIterable(Function.identity(), 1);
+    }
+
+    public record DateCursor(LocalDateTime date, long id) {
+    }
+}
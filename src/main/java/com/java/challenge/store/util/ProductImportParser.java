@@ -0,0 +1,134 @@
+package com.java.challenge.store.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.ProductImportRowDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Parses bulk import rows one line at a time. NDJSON lines are product
+ * objects. CSV input starts with a header naming the columns {@code name},
+ * {@code price}, {@code stock} and optionally {@code id}, in any order; fields
+ * may be quoted with double quotes.
+ * <p>
+ * A CSV parser keeps the header, so use a new instance per import.
+ */
+public class ProductImportParser {
+
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> columns;
+
+    private ProductImportParser(ObjectMapper objectMapper, Map<String, Integer> columns) {
+        this.objectMapper = objectMapper;
+        this.columns = columns;
+    }
+
+    public static ProductImportParser ndjson(ObjectMapper objectMapper) {
+        return new ProductImportParser(objectMapper, null);
+    }
+
+    public static ProductImportParser csv() {
+        return new ProductImportParser(null, new HashMap<>());
+    }
+
+    /**
+     * Returns {@code true} when the line was consumed as the CSV header.
+     */
+    public boolean header(String line) {
+        if (columns == null || !columns.isEmpty()) {
+            return false;
+        }
+        List<String> names = splitCsv(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "price", "stock")) {
+            if (!header.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header must contain the column " + required);
+            }
+        }
+        columns = header;
+        return true;
+    }
+
+    public ProductImportRowDto parse(String line) {
+        return columns == null ? parseJson(line) : parseCsv(line);
+    }
+
+    private ProductImportRowDto parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, ProductImportRowDto.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Malformed JSON: " + ex.getOriginalMessage());
+        }
+    }
+
+    private ProductImportRowDto parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        ProductImportRowDto row = new ProductImportRowDto();
+        row.setId(parse(field(fields, "id"), "id", Long::valueOf));
+        row.setName(field(fields, "name"));
+        row.setPrice(parse(field(fields, "price"), "price", BigDecimal::new));
+        row.setStock(parse(field(fields, "stock"), "stock", Integer::valueOf));
+        return row;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private <T> T parse(String value, String column, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column + " is not a valid number: " + value);
+        }
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
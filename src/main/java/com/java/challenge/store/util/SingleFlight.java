@@ -0,0 +1,72 @@
+package com.java.challenge.store.util;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent loads of the same key onto a single call. The first
+ * caller starts the load and later callers join it until it completes, then the
+ * key is forgotten so the next call reads fresh data.
+ * <p>
+ * The load runs detached from the callers' subscriber context, so it must not
+ * be used for reads that belong to a transaction.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public Mono<V> execute(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            requests.increment();
+
+            CompletableFuture<V> created = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+            if (existing != null) {
+                coalesced.increment();
+                return Mono.fromFuture(existing, true);
+            }
+
+            Mono<V> load;
+            try {
+                load = loader.apply(key);
+            } catch (RuntimeException ex) {
+                // Thrown before there is a Mono to clean up after: fail the callers and forget the key here
+                inFlight.remove(key, created);
+                created.completeExceptionally(ex);
+                return Mono.fromFuture(created, true);
+            }
+            load.doFinally(signal -> inFlight.remove(key, created))
+                    .subscribe(
+                            created::complete,
+                            created::completeExceptionally,
+                            () -> created.complete(null)
+                    );
+            return Mono.fromFuture(created, true);
+        });
+    }
+
+    /**
+     * Number of calls received, including the coalesced ones.
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * Number of calls that joined a load already in flight instead of starting one.
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
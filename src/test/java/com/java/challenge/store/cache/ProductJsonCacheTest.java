@@ -0,0 +1,200 @@
+package com.java.challenge.store.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductJsonCache cache = new ProductJsonCache(objectMapper, 100, Duration.ofMinutes(5), DataSize.ofKilobytes(1));
+    private final AtomicInteger loads = new AtomicInteger();
+    private final TreeMap<Long, ProductResponseDto> rows = new TreeMap<>();
+    private final List<Long> pages = new ArrayList<>();
+
+    @Test
+    void encodesAProductOnceUntilItChanges() throws Exception {
+        ProductResponseDto lamp = new ProductResponseDto(1L, "Lamp", new BigDecimal("10.00"), 5);
+        Function<Long, Mono<ProductResponseDto>> loader = id -> {
+            loads.incrementAndGet();
+            return Mono.just(lamp);
+        };
+
+        ProductJsonCache.EncodedJson first = cache.product(1L, loader).block();
+        assertSame(first, cache.product(1L, loader).block());
+        assertEquals(objectMapper.writeValueAsString(lamp), text(first));
+
+        lamp.setStock(4);
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.STOCK_CHANGED, 1L, null));
+        ProductJsonCache.EncodedJson changed = cache.product(1L, loader).block();
+
+        assertEquals(2, loads.get());
+        assertNotEquals(first.etag(), changed.etag());
+        assertEquals(objectMapper.writeValueAsString(lamp), text(changed));
+    }
+
+    @Test
+    void storesAProductLoadRacingWithAWriteToAnotherProduct() {
+        Sinks.One<ProductResponseDto> row = Sinks.one();
+
+        StepVerifier.create(cache.product(1L, id -> {
+                    loads.incrementAndGet();
+                    return row.asMono();
+                }))
+                .then(() -> cache.invalidate(2L))
+                .then(() -> row.tryEmitValue(new ProductResponseDto(1L, "Lamp", new BigDecimal("10.00"), 5)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        cache.product(1L, id -> {
+            loads.incrementAndGet();
+            return Mono.just(new ProductResponseDto(1L, "Lamp", new BigDecimal("10.00"), 5));
+        }).block();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void aProductReadAfterAWriteDoesNotJoinTheLoadStartedBeforeIt() {
+        Sinks.One<ProductResponseDto> before = Sinks.one();
+
+        StepVerifier.create(cache.product(1L, id -> before.asMono()))
+                .then(() -> {
+                    cache.invalidate(1L);
+                    StepVerifier.create(cache.product(1L, id -> Mono.just(new ProductResponseDto(1L, "Lamp", new BigDecimal("10.00"), 4))))
+                            .expectNextMatches(json -> text(json).contains("\"stock\":4"))
+                            .verifyComplete();
+                })
+                .then(() -> before.tryEmitValue(new ProductResponseDto(1L, "Lamp", new BigDecimal("10.00"), 5)))
+                .expectNextMatches(json -> text(json).contains("\"stock\":5"))
+                .verifyComplete();
+
+        // The load that read the old row was not stored over the new one
+        StepVerifier.create(cache.product(1L, id -> Mono.just(new ProductResponseDto(1L, "Lamp", new BigDecimal("10.00"), 3))))
+                .expectNextMatches(json -> text(json).contains("\"stock\":4"))
+                .verifyComplete();
+        assertEquals(0, cache.coalescedProductLoads());
+    }
+
+    @Test
+    void aStockChangeReloadsOnlyTheChunkOfThatProduct() throws Exception {
+        row(1L, 5);
+        row(2L, 5);
+        row(600L, 5);
+
+        ProductJsonCache.EncodedJson first = cache.catalog(this::page).block();
+        assertSame(first, cache.catalog(this::page).block());
+        assertEquals(objectMapper.writeValueAsString(rows.values()), text(first));
+        assertEquals(List.of(0L), pages);
+
+        rows.get(600L).setStock(4);
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.STOCK_CHANGED, 600L, null));
+        ProductJsonCache.EncodedJson changed = cache.catalog(this::page).block();
+
+        // Only the ids 512 to 1023 were read again
+        assertEquals(List.of(0L, 511L), pages);
+        assertEquals(objectMapper.writeValueAsString(rows.values()), text(changed));
+        assertNotEquals(first.etag(), changed.etag());
+        assertEquals(1, cache.catalogHits());
+    }
+
+    @Test
+    void addsAndRemovesProductsInTheirChunks() throws Exception {
+        row(1L, 5);
+        row(2L, 5);
+        cache.catalog(this::page).block();
+
+        rows.remove(1L);
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 1L, null));
+        row(2000L, 3);
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.CREATED, 2000L, null));
+
+        assertEquals(objectMapper.writeValueAsString(rows.values()), text(cache.catalog(this::page).block()));
+        rows.clear();
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 2L, null));
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 2000L, null));
+        assertEquals("[]", text(cache.catalog(this::page).block()));
+    }
+
+    @Test
+    void aListingAfterAChangeDoesNotJoinAChunkLoadStartedBeforeIt() throws Exception {
+        row(1L, 5);
+        cache.catalog(this::page).block();
+
+        Sinks.Empty<Void> release = Sinks.empty();
+        rows.get(1L).setStock(4);
+        cache.invalidate(1L);
+        Mono<ProductJsonCache.EncodedJson> slow = cache.catalog((afterId, limit) ->
+                release.asMono().thenMany(page(afterId, limit)));
+        StepVerifier.create(slow)
+                .then(() -> {
+                    rows.get(1L).setStock(3);
+                    cache.invalidate(1L);
+                    assertTrue(text(cache.catalog(this::page).block()).contains("\"stock\":3"));
+                    release.tryEmitEmpty();
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(objectMapper.writeValueAsString(rows.values()), text(cache.catalog(this::page).block()));
+    }
+
+    @Test
+    void doesNotKeepACatalogLargerThanTheLimit() {
+        for (long id = 1; id <= 20; id++) {
+            rows.put(id, new ProductResponseDto(id, "x".repeat(100), new BigDecimal("10.00"), 5));
+        }
+
+        StepVerifier.create(cache.catalog(this::page)).verifyComplete();
+        StepVerifier.create(cache.catalog(this::page)).verifyComplete();
+        assertEquals(1, pages.size());
+        assertEquals(0, cache.catalogBytes());
+
+        // A stock change cannot make it fit, a deletion may
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.STOCK_CHANGED, 1L, null));
+        StepVerifier.create(cache.catalog(this::page)).verifyComplete();
+        assertEquals(1, pages.size());
+        for (long id = 1; id <= 15; id++) {
+            rows.remove(id);
+        }
+        cache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 15L, null));
+        StepVerifier.create(cache.catalog(this::page)).expectNextCount(1).verifyComplete();
+        assertNotEquals(0, cache.catalogBytes());
+    }
+
+    private void row(Long id, int stock) {
+        rows.put(id, new ProductResponseDto(id, "Lamp", new BigDecimal("10.00"), stock));
+    }
+
+    private Flux<ProductResponseDto> page(Long afterId, Integer limit) {
+        pages.add(afterId);
+        return Flux.fromIterable(List.copyOf(rows.tailMap(afterId, false).values())).take(limit);
+    }
+
+    private static String text(ProductJsonCache.EncodedJson json) {
+        return json.body(DefaultDataBufferFactory.sharedInstance)
+                .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+                .reduce(String::concat)
+                .block();
+    }
+}
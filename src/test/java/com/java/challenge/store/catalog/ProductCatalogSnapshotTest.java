@@ -0,0 +1,144 @@
+package com.java.challenge.store.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductCatalogSnapshotTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final ProductCatalogSnapshot snapshot = new ProductCatalogSnapshot(repository, Duration.ofMillis(1), Duration.ofMillis(10));
+
+    @Test
+    void writesTheSameJsonAsJacksonAcrossChunks() throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 1030; id++) {
+            products.add(product(id, "Product " + id, new BigDecimal(id + ".05"), (int) id, 0L));
+        }
+        products.add(product(2000L, "Café \"italiano\"\\ 250g\n\u0001 😀", new BigDecimal("0.50"), 0, 0L));
+        products.add(product(2001L, "Monitor", new BigDecimal("99999999.99"), 3, 0L));
+        products.forEach(snapshot::put);
+
+        assertEquals(jackson(products), json());
+    }
+
+    @Test
+    void writesAnEmptyArrayForAnEmptyCatalog() {
+        assertEquals("[]", json());
+    }
+
+    @Test
+    void appliesChangesInIdOrderAndIgnoresOlderVersions() throws Exception {
+        snapshot.put(product(10L, "Lamp", new BigDecimal("10.00"), 5, 1L));
+        snapshot.put(product(30L, "Desk", new BigDecimal("30.00"), 5, 1L));
+        snapshot.onProductChanged(new ProductChangedEvent(
+                ProductChangedEvent.ChangeType.CREATED, 20L, product(20L, "Chair", new BigDecimal("20.00"), 5, 0L)));
+        snapshot.onProductChanged(new ProductChangedEvent(
+                ProductChangedEvent.ChangeType.STOCK_CHANGED, 10L, product(10L, "Lamp", new BigDecimal("10.00"), 4, 2L)));
+        snapshot.put(product(10L, "Lamp", new BigDecimal("10.00"), 5, 1L));
+        snapshot.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 30L, null));
+
+        assertEquals(jackson(List.of(
+                product(10L, "Lamp", new BigDecimal("10.00"), 4, 2L),
+                product(20L, "Chair", new BigDecimal("20.00"), 5, 0L)
+        )), json());
+    }
+
+    @Test
+    void replaysChangesPublishedDuringTheLoad() throws Exception {
+        Sinks.Many<Product> firstPage = Sinks.many().unicast().onBackpressureBuffer();
+        when(repository.findPage(eq(0L), anyInt())).thenReturn(firstPage.asFlux());
+
+        snapshot.load();
+        firstPage.tryEmitNext(product(1L, "Lamp", new BigDecimal("10.00"), 5, 1L));
+        snapshot.onProductChanged(new ProductChangedEvent(
+                ProductChangedEvent.ChangeType.UPDATED, 2L, product(2L, "Big chair", new BigDecimal("25.00"), 5, 2L)));
+        snapshot.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 1L, null));
+        firstPage.tryEmitNext(product(2L, "Chair", new BigDecimal("20.00"), 5, 1L));
+        assertFalse(snapshot.ready());
+
+        firstPage.tryEmitComplete();
+
+        assertTrue(snapshot.ready());
+        assertEquals(jackson(List.of(product(2L, "Big chair", new BigDecimal("25.00"), 5, 2L))), json());
+    }
+
+    @Test
+    void retriesAFailedLoadUntilItFinishes() throws Exception {
+        when(repository.findPage(any(), anyInt())).thenReturn(
+                Flux.error(new DataAccessResourceFailureException("connection refused")),
+                Flux.just(product(1L, "Lamp", new BigDecimal("10.00"), 5, 1L))
+        );
+
+        snapshot.load();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!snapshot.ready() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        snapshot.stop();
+        assertTrue(snapshot.ready());
+        assertEquals(jackson(List.of(product(1L, "Lamp", new BigDecimal("10.00"), 5, 1L))), json());
+    }
+
+    @Test
+    void readsKeysetPagesLikeTheProductsTable() {
+        snapshot.put(product(10L, "Lamp", new BigDecimal("10.00"), 5, 1L));
+        snapshot.put(product(20L, "Chair", new BigDecimal("20.50"), 3, 1L));
+        snapshot.put(product(30L, "Desk", new BigDecimal("30.00"), 1, 1L));
+
+        assertEquals(List.of(
+                new ProductResponseDto(10L, "Lamp", new BigDecimal("10.00"), 5),
+                new ProductResponseDto(20L, "Chair", new BigDecimal("20.50"), 3)
+        ), snapshot.findAfter(0L, 2));
+        assertEquals(List.of(new ProductResponseDto(30L, "Desk", new BigDecimal("30.00"), 1)), snapshot.findAfter(20L, 2));
+        assertEquals(List.of(new ProductResponseDto(30L, "Desk", new BigDecimal("30.00"), 1)), snapshot.findAfter(25L, 2));
+        assertEquals(List.of(), snapshot.findAfter(30L, 2));
+    }
+
+    private String json() {
+        return snapshot.writeJson(DefaultDataBufferFactory.sharedInstance)
+                .map(buffer -> {
+                    String chunk = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return chunk;
+                })
+                .reduce(String::concat)
+                .block();
+    }
+
+    private String jackson(List<Product> products) throws Exception {
+        return objectMapper.writeValueAsString(products.stream()
+                .map(product -> new ProductResponseDto(
+                        product.getId(), product.getName(), product.getPrice(), product.getStock()))
+                .toList());
+    }
+
+    private static Product product(Long id, String name, BigDecimal price, Integer stock, Long version) {
+        return new Product(id, name, price, stock, version);
+    }
+}
@@ -0,0 +1,90 @@
+package com.java.challenge.store.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoutingConnectionFactoryTest {
+
+    private final ConnectionPool primary = pool();
+    private final ConnectionPool first = pool();
+    private final ConnectionPool second = pool();
+    private final Connection primaryConnection = connection(primary);
+    private final Connection firstConnection = connection(first);
+    private final Connection secondConnection = connection(second);
+    private final RoutingConnectionFactory factory = new RoutingConnectionFactory(
+            primary,
+            replicas(),
+            Duration.ofHours(1)
+    );
+
+    @AfterEach
+    void tearDown() {
+        factory.dispose();
+    }
+
+    @Test
+    void sendsOnlyReadOnlyConnectionsToReplicasInRoundRobin() {
+        StepVerifier.create(factory.create()).expectNext(primaryConnection).verifyComplete();
+        StepVerifier.create(factory.create().contextWrite(RoutingConnectionFactory.readOnly()))
+                .expectNext(firstConnection)
+                .verifyComplete();
+        StepVerifier.create(factory.create().contextWrite(RoutingConnectionFactory.readOnly()))
+                .expectNext(secondConnection)
+                .verifyComplete();
+    }
+
+    @Test
+    void fallsBackToThePrimaryAndSkipsAFailingReplica() {
+        when(first.create()).thenReturn(Mono.error(new IllegalStateException("replica down")));
+
+        StepVerifier.create(factory.create().contextWrite(RoutingConnectionFactory.readOnly()))
+                .expectNext(primaryConnection)
+                .verifyComplete();
+        StepVerifier.create(factory.create().contextWrite(RoutingConnectionFactory.readOnly()))
+                .expectNext(secondConnection)
+                .verifyComplete();
+        StepVerifier.create(factory.create().contextWrite(RoutingConnectionFactory.readOnly()))
+                .expectNext(secondConnection)
+                .verifyComplete();
+    }
+
+    @Test
+    void sendsReadOnlyConnectionsToThePrimaryWithoutReplicas() {
+        RoutingConnectionFactory withoutReplicas = new RoutingConnectionFactory(primary, Map.of(), Duration.ofHours(1));
+        try {
+            StepVerifier.create(withoutReplicas.create().contextWrite(RoutingConnectionFactory.readOnly()))
+                    .expectNext(primaryConnection)
+                    .verifyComplete();
+        } finally {
+            withoutReplicas.dispose();
+        }
+    }
+
+    private Map<String, ConnectionPool> replicas() {
+        Map<String, ConnectionPool> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", first);
+        replicas.put("replica-1", second);
+        return replicas;
+    }
+
+    private static ConnectionPool pool() {
+        return mock(ConnectionPool.class);
+    }
+
+    private static Connection connection(ConnectionPool pool) {
+        Connection connection = mock(Connection.class);
+        when(pool.create()).thenReturn(Mono.just(connection));
+        return connection;
+    }
+}
@@ -0,0 +1,67 @@
+package com.java.challenge.store.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.cache.ProductJsonCache;
+import com.java.challenge.store.catalog.ProductCatalogWriter;
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.service.ProductImportService;
+import com.java.challenge.store.service.ProductService;
+import com.java.challenge.store.service.StockStreamService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductControllerTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final ProductJsonCache productJsonCache = mock(ProductJsonCache.class);
+    private final WebTestClient client = WebTestClient.bindToController(new ProductController(
+            productService,
+            mock(ProductImportService.class),
+            new ObjectMapper(),
+            mock(StockStreamService.class),
+            mock(ProductCatalogWriter.class),
+            productJsonCache
+    )).build();
+
+    @Test
+    void listsProductsAsNewlineDelimitedJson() {
+        when(productService.stream()).thenReturn(Flux.just(
+                new ProductResponseDto(1L, "Lamp", new BigDecimal("10.00"), 3),
+                new ProductResponseDto(2L, "Desk", new BigDecimal("100.00"), 1)
+        ));
+
+        client.get().uri("/api/products")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(ProductResponseDto.class).hasSize(2);
+    }
+
+    @Test
+    void listsProductsAsAJsonArrayByDefault() {
+        when(productJsonCache.catalog(any())).thenReturn(Mono.just(new ProductJsonCache.EncodedJson(
+                List.of(ByteBuffer.wrap("[{\"id\":1,\"name\":\"Lamp\",\"price\":10.00,\"stock\":3}]".getBytes(StandardCharsets.UTF_8))),
+                "\"1\""
+        )));
+
+        client.get().uri("/api/products")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBodyList(ProductResponseDto.class).hasSize(1);
+    }
+}
@@ -0,0 +1,65 @@
+package com.java.challenge.store.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.entity.OutboxMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileOutboxSinkTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendsOneJsonLinePerMessageWithThePayloadAsAnObject() throws Exception {
+        Path file = directory.resolve("outbox/order-events.ndjson");
+        FileOutboxSink sink = new FileOutboxSink(objectMapper, file);
+
+        sink.publish(List.of(message(1L, 10L), message(2L, 11L))).block();
+        sink.publish(List.of(message(3L, 12L))).block();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals(10L, first.get("aggregateId").asLong());
+        assertEquals(OrderOutbox.ORDER_CONFIRMED, first.get("eventType").asText());
+        assertTrue(first.get("payload").isObject());
+        assertEquals("25.00", first.get("payload").get("total").asText());
+        assertEquals(12L, objectMapper.readTree(lines.get(2)).get("aggregateId").asLong());
+    }
+
+    @Test
+    void writesNothingWhenAPayloadIsNotJson() {
+        Path file = directory.resolve("order-events.ndjson");
+        FileOutboxSink sink = new FileOutboxSink(objectMapper, file);
+        OutboxMessage broken = new OutboxMessage(2L, 11L, OrderOutbox.ORDER_CONFIRMED, "{not json", LocalDateTime.now());
+
+        // The relay rolls the claim back on this error, so no line may be left behind for the batch
+        StepVerifier.create(sink.publish(List.of(message(1L, 10L), broken))).verifyError();
+        assertTrue(Files.notExists(file));
+    }
+
+    private static OutboxMessage message(Long id, Long orderId) {
+        return new OutboxMessage(
+                id,
+                orderId,
+                OrderOutbox.ORDER_CONFIRMED,
+                "{\"id\":" + orderId + ",\"total\":\"25.00\"}",
+                LocalDateTime.of(2024, 5, 1, 12, 0)
+        );
+    }
+}
@@ -0,0 +1,73 @@
+package com.java.challenge.store.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.OutboxMessage;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.repository.memory.MemoryDatabase;
+import com.java.challenge.store.repository.memory.MemoryOutboxRepository;
+import com.java.challenge.store.repository.memory.MemoryTransactionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderOutboxTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final MemoryDatabase database = new MemoryDatabase();
+    private final MemoryOutboxRepository repository = new MemoryOutboxRepository(database);
+    private final TransactionalOperator transactionalOperator =
+            TransactionalOperator.create(new MemoryTransactionManager(database));
+    private final OrderOutbox outbox = new OrderOutbox(repository, objectMapper);
+
+    @Test
+    void writesOneConfirmedEventPerOrderWithItsLines() throws Exception {
+        Product lamp = new Product(1L, "Lamp", new BigDecimal("10.00"), 3, 1L);
+        Product desk = new Product(2L, "Desk", new BigDecimal("100.00"), 1, 1L);
+
+        StepVerifier.create(outbox.ordersConfirmed(List.of(
+                        OrderOutbox.confirmed(order(7L, "120.00"), List.of(lamp, desk), Map.of(1L, 2, 2L, 1)),
+                        OrderOutbox.confirmed(order(8L, "10.00"), List.of(lamp), Map.of(1L, 1))
+                )))
+                .expectNext(2)
+                .verifyComplete();
+
+        List<OutboxMessage> messages = repository.findAll().collectList().block();
+        assertEquals(List.of(7L, 8L), messages.stream().map(OutboxMessage::getAggregateId).toList());
+        assertEquals(OrderOutbox.ORDER_CONFIRMED, messages.get(0).getEventType());
+        JsonNode payload = objectMapper.readTree(messages.get(0).getPayload());
+        assertEquals(7L, payload.get("id").asLong());
+        assertEquals(2, payload.get("items").size());
+        assertEquals(2, payload.get("items").get(0).get("quantity").asInt());
+    }
+
+    @Test
+    void anEventExistsOnlyIfTheOrderTransactionCommits() {
+        Mono<Integer> failedOrder = outbox.ordersConfirmed(List.of(
+                        OrderOutbox.confirmed(order(7L, "10.00"), List.of(), Map.of())))
+                .then(Mono.error(new IllegalStateException("order insert failed")));
+
+        StepVerifier.create(failedOrder.as(transactionalOperator::transactional)).verifyError(IllegalStateException.class);
+        assertEquals(0L, repository.count().block());
+    }
+
+    @Test
+    void writesNothingForNoOrders() {
+        StepVerifier.create(outbox.ordersConfirmed(List.of())).expectNext(0).verifyComplete();
+        assertEquals(0L, repository.count().block());
+    }
+
+    private static Order order(Long id, String total) {
+        return new Order(id, LocalDateTime.of(2024, 5, 1, 12, 0), new BigDecimal(total), "CONFIRMED ORDER.");
+    }
+}
@@ -0,0 +1,90 @@
+package com.java.challenge.store.outbox;
+
+import com.java.challenge.store.entity.OutboxMessage;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.memory.MemoryDatabase;
+import com.java.challenge.store.repository.memory.MemoryOutboxRepository;
+import com.java.challenge.store.repository.memory.MemoryTransactionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutboxRelayTest {
+
+    private final MemoryDatabase database = new MemoryDatabase();
+    private final MemoryOutboxRepository repository = new MemoryOutboxRepository(database);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<List<OutboxMessage>> batches = new ArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final OutboxSink sink = messages -> Mono.defer(() -> {
+        if (failuresLeft.getAndDecrement() > 0) {
+            return Mono.error(new IllegalStateException("sink unavailable"));
+        }
+        batches.add(messages);
+        return Mono.empty();
+    });
+    private final OutboxRelay relay = new OutboxRelay(
+            repository,
+            sink,
+            TransactionalOperator.create(new MemoryTransactionManager(database)),
+            new OrderMetrics(registry),
+            Duration.ofHours(1),
+            100
+    );
+
+    @Test
+    void deliversEveryMessageInIdOrderAndDeletesIt() {
+        insert(250);
+
+        assertEquals(250L, relay.drain().block());
+
+        assertEquals(List.of(100, 100, 50), batches.stream().map(List::size).toList());
+        assertEquals(
+                LongStream.rangeClosed(1, 250).boxed().toList(),
+                batches.stream().flatMap(List::stream).map(OutboxMessage::getAggregateId).toList()
+        );
+        assertEquals(0L, repository.count().block());
+        assertEquals(250.0, registry.get("store.outbox.published").counter().count());
+    }
+
+    @Test
+    void keepsTheBatchWhenTheSinkFailsAndDeliversItOnTheNextDrain() {
+        insert(3);
+        failuresLeft.set(1);
+
+        assertEquals(0L, relay.drain().block());
+        // The claim was rolled back with the failed delivery
+        assertEquals(3L, repository.count().block());
+        assertEquals(1.0, registry.get("store.outbox.failures").counter().count());
+
+        assertEquals(3L, relay.drain().block());
+        assertEquals(List.of(1L, 2L, 3L), batches.get(0).stream().map(OutboxMessage::getAggregateId).toList());
+        assertEquals(0L, repository.count().block());
+    }
+
+    @Test
+    void anEmptyOutboxDeliversNothing() {
+        assertEquals(0L, relay.drain().block());
+        assertEquals(0, batches.size());
+    }
+
+    private void insert(int count) {
+        Long[] aggregateIds = LongStream.rangeClosed(1, count).boxed().toArray(Long[]::new);
+        String[] eventTypes = new String[count];
+        String[] payloads = new String[count];
+        for (int i = 0; i < count; i++) {
+            eventTypes[i] = OrderOutbox.ORDER_CONFIRMED;
+            payloads[i] = "{\"id\":" + aggregateIds[i] + "}";
+        }
+        repository.insertAll(aggregateIds, eventTypes, payloads).block();
+    }
+}
@@ -0,0 +1,82 @@
+package com.java.challenge.store.pricing;
+
+import com.java.challenge.store.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PricingEngineTest {
+
+    private final PricingEngine engine = new PricingEngine(PricingEngine.standardRules());
+
+    @Test
+    void matchesBigDecimalPricingForRandomBaskets() {
+        Random random = new Random(7);
+        for (int run = 0; run < 10_000; run++) {
+            int lines = 1 + random.nextInt(12);
+            List<Product> products = new ArrayList<>();
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (long id = 1; id <= lines; id++) {
+                BigDecimal price = BigDecimal.valueOf(1 + random.nextInt(150_000), random.nextInt(3));
+                products.add(new Product(id, "Product " + id, price, 100, 0L));
+                quantities.put(id, 1 + random.nextInt(10));
+            }
+
+            BigDecimal expected = bigDecimalTotal(products, quantities);
+            BigDecimal actual = engine.total(products, quantities);
+
+            assertEquals(expected, actual, () -> "basket " + products + " " + quantities);
+        }
+    }
+
+    @Test
+    void appliesDiscountsOnlyAboveThresholds() {
+        assertEquals(new BigDecimal("1000.00"), engine.total(basket("1000.00", 1), Map.of(1L, 1)));
+        assertEquals(new BigDecimal("900.009"), engine.total(basket("1000.01", 1), Map.of(1L, 1)));
+    }
+
+    @Test
+    void fallsBackForPricesWithMoreThanTwoDecimals() {
+        List<Product> products = basket("10.005", 1);
+
+        assertEquals(new BigDecimal("30.015"), engine.total(products, Map.of(1L, 3)));
+    }
+
+    @Test
+    void rejectsRulesAddingUpToMoreThanEverything() {
+        List<DiscountRule> rules = List.of(
+                new DiscountRule(DiscountRule.Metric.SUBTOTAL, BigDecimal.ZERO, new BigDecimal("0.6")),
+                new DiscountRule(DiscountRule.Metric.DISTINCT_PRODUCTS, BigDecimal.ZERO, new BigDecimal("0.5"))
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> new PricingEngine(rules));
+    }
+
+    private List<Product> basket(String price, long id) {
+        return List.of(new Product(id, "Product " + id, new BigDecimal(price), 100, 0L));
+    }
+
+    // Pricing as it was done before the engine, with BigDecimal everywhere.
+    private BigDecimal bigDecimalTotal(List<Product> products, Map<Long, Integer> quantities) {
+        BigDecimal total = products.stream()
+                .map(p -> p.getPrice().multiply(BigDecimal.valueOf(quantities.get(p.getId()))))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        BigDecimal discount = BigDecimal.ZERO;
+        if (total.compareTo(BigDecimal.valueOf(1000)) > 0) {
+            discount = discount.add(BigDecimal.valueOf(0.10));
+        }
+        if (products.size() > 5) {
+            discount = discount.add(BigDecimal.valueOf(0.05));
+        }
+        return total.multiply(BigDecimal.ONE.subtract(discount));
+    }
+}
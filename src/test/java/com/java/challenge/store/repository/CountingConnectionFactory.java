@@ -0,0 +1,94 @@
+package com.java.challenge.store.repository;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the round trips made through the connections it creates: every
+ * statement executed, and every transaction begun, committed or rolled back.
+ * Wrap it in a pool, so connections are counted however they are reused.
+ */
+public class CountingConnectionFactory implements ConnectionFactory {
+
+    private static final Set<String> TRANSACTION_METHODS = Set.of("beginTransaction", "commitTransaction", "rollbackTransaction");
+
+    private final ConnectionFactory delegate;
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder transactionCommands = new LongAdder();
+
+    public CountingConnectionFactory(ConnectionFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.from(delegate.create()).map(connection -> proxy(Connection.class, connection, (target, method, result) -> {
+            if (method.equals("createStatement")) {
+                return proxy(Statement.class, (Statement) result, (statement, statementMethod, executed) -> {
+                    if (statementMethod.equals("execute")) {
+                        statements.increment();
+                    }
+                    return executed;
+                });
+            }
+            if (TRANSACTION_METHODS.contains(method)) {
+                transactionCommands.increment();
+            }
+            return result;
+        }));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    public long statements() {
+        return statements.sum();
+    }
+
+    /**
+     * Statements plus the BEGIN, COMMIT and ROLLBACK sent for transactions.
+     */
+    public long roundTrips() {
+        return statements.sum() + transactionCommands.sum();
+    }
+
+    public void reset() {
+        statements.reset();
+        transactionCommands.reset();
+    }
+
+    private interface Interceptor<T> {
+
+        Object afterCall(T target, String method, Object result);
+    }
+
+    // Calls that return the target itself, like Statement.bind, return the proxy instead.
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Interceptor<T> interceptor) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            if (result == target) {
+                return proxy;
+            }
+            return interceptor.afterCall(target, method.getName(), result);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,141 @@
+package com.java.challenge.store.repository;
+
+import com.java.challenge.store.entity.Order;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the search queries against a real Postgres seeded with a large table:
+ * the plans must use the search indexes, and a page must cost about the same
+ * whether the table holds ten thousand or a million orders.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OrderSearchQueryTest {
+
+    private static final int SMALL_TABLE = 10_000;
+    private static final int LARGE_TABLE = 1_000_000;
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 3, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 3, 8, 0, 0);
+
+    @Container
+    private static final GenericContainer<?> POSTGRES = TestDatabase.postgres();
+
+    private static ConnectionPool pool;
+    private static DatabaseClient client;
+    private static OrderRepository repository;
+
+    @BeforeAll
+    static void createSchema() {
+        pool = TestDatabase.pool(TestDatabase.counting(POSTGRES), 1);
+        TestDatabase.createSchema(pool);
+        client = DatabaseClient.create(pool);
+        repository = TestDatabase.repository(pool, OrderRepository.class);
+    }
+
+    @AfterAll
+    static void close() {
+        pool.dispose();
+    }
+
+    @Test
+    void searchUsesTheIndexesAndLatencyStaysFlatAsTheTableGrows() throws Exception {
+        seed(SMALL_TABLE);
+        assertEquals(21, searchPage().size());
+        long smallNanos = medianPageNanos();
+
+        seed(LARGE_TABLE - SMALL_TABLE);
+        assertUsesIndex(searchByStatusSql(), "idx_orders_status_order_date", true);
+        assertUsesIndex(searchByDateSql(), "idx_orders_order_date", false);
+        long largeNanos = medianPageNanos();
+
+        assertTrue(
+                largeNanos < smallNanos * 3 + Duration.ofMillis(2).toNanos(),
+                () -> "page took " + largeNanos / 1000 + "us with " + LARGE_TABLE
+                        + " orders and " + smallNanos / 1000 + "us with " + SMALL_TABLE
+        );
+    }
+
+    // Spreads the orders over a year with four statuses, so a week of one status is a small slice.
+    private void seed(int orders) {
+        client.sql("""
+                        INSERT INTO orders (order_date, total, status)
+                        SELECT TIMESTAMP '2024-01-01' + random() * INTERVAL '365 days',
+                               round((random() * 500 + 1)::numeric, 2),
+                               (ARRAY['CONFIRMED ORDER.', 'SHIPPED', 'DELIVERED', 'CANCELLED'])[1 + (n % 4)]
+                        FROM generate_series(1, :orders) AS n
+                        """)
+                .bind("orders", orders)
+                .then()
+                .then(client.sql("ANALYZE orders").then())
+                .block();
+    }
+
+    private List<Order> searchPage() {
+        return repository.searchByStatus("SHIPPED", FROM, TO, FROM, 0L, 21).collectList().block();
+    }
+
+    private long medianPageNanos() {
+        for (int i = 0; i < 20; i++) {
+            searchPage();
+        }
+        long[] samples = new long[51];
+        for (int i = 0; i < samples.length; i++) {
+            long started = System.nanoTime();
+            searchPage();
+            samples[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private void assertUsesIndex(String sql, String index, boolean byStatus) {
+        DatabaseClient.GenericExecuteSpec explain = client.sql("EXPLAIN (FORMAT TEXT) " + sql);
+        if (byStatus) {
+            explain = explain.bind("status", "SHIPPED");
+        }
+        String plan = explain
+                .bind("from", FROM)
+                .bind("to", TO)
+                .bind("afterDate", FROM)
+                .bind("afterId", 0L)
+                .bind("limit", 21)
+                .map(row -> row.get(0, String.class))
+                .all()
+                .collectList()
+                .map(lines -> String.join("\n", lines))
+                .block();
+
+        assertTrue(plan.contains(index), () -> "expected " + index + " in plan:\n" + plan);
+        assertFalse(plan.contains("Seq Scan"), () -> "unexpected sequential scan in plan:\n" + plan);
+    }
+
+    private static String searchByStatusSql() throws NoSuchMethodException {
+        return OrderRepository.class.getMethod(
+                "searchByStatus",
+                String.class, LocalDateTime.class, LocalDateTime.class, LocalDateTime.class, long.class, int.class
+        ).getAnnotation(Query.class).value();
+    }
+
+    private static String searchByDateSql() throws NoSuchMethodException {
+        return OrderRepository.class.getMethod(
+                "searchByDate",
+                LocalDateTime.class, LocalDateTime.class, LocalDateTime.class, long.class, int.class
+        ).getAnnotation(Query.class).value();
+    }
+}
@@ -0,0 +1,109 @@
+package com.java.challenge.store.repository;
+
+import com.java.challenge.store.entity.OutboxMessage;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Claims outbox batches from two transactions at once against a real Postgres:
+ * the second one skips the rows locked by the first instead of waiting, and
+ * rows of a rolled back claim are claimed again.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OutboxRepositoryTest {
+
+    @Container
+    private static final GenericContainer<?> POSTGRES = TestDatabase.postgres();
+
+    private static ConnectionPool pool;
+    private static OutboxRepository outbox;
+    private static TransactionalOperator transactions;
+
+    @BeforeAll
+    static void createSchema() {
+        pool = TestDatabase.pool(TestDatabase.counting(POSTGRES), 4);
+        TestDatabase.createSchema(pool);
+        outbox = TestDatabase.repository(pool, OutboxRepository.class);
+        transactions = TransactionalOperator.create(new R2dbcTransactionManager(pool));
+    }
+
+    @AfterAll
+    static void close() {
+        pool.dispose();
+    }
+
+    @BeforeEach
+    void fillOutbox() {
+        DatabaseClient.create(pool).sql("DELETE FROM order_outbox").then().block();
+        Long[] orders = LongStream.rangeClosed(1, 10).boxed().toArray(Long[]::new);
+        outbox.insertAll(orders, fill(10, "ORDER_CONFIRMED"), fill(10, "{}")).block();
+    }
+
+    @Test
+    void aSecondRelaySkipsTheRowsClaimedByTheFirst() throws Exception {
+        Sinks.Empty<Void> delivery = Sinks.empty();
+        AtomicReference<List<Long>> first = new AtomicReference<>();
+        CompletableFuture<Void> firstRelay = outbox.claimBatch(5)
+                .map(OutboxMessage::getAggregateId)
+                .collectSortedList()
+                .doOnNext(first::set)
+                .flatMap(claimed -> delivery.asMono())
+                .as(transactions::transactional)
+                .onErrorResume(error -> Mono.empty())
+                .toFuture();
+        awaitClaim(first);
+
+        // Returns while the first transaction still holds its rows
+        List<Long> second = outbox.claimBatch(10)
+                .map(OutboxMessage::getAggregateId)
+                .collectSortedList()
+                .as(transactions::transactional)
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), first.get());
+        assertEquals(List.of(6L, 7L, 8L, 9L, 10L), second);
+
+        // A failed delivery rolls the claim back, so those rows are delivered later
+        delivery.tryEmitError(new IllegalStateException("sink unavailable"));
+        firstRelay.get(5, TimeUnit.SECONDS);
+        List<Long> retried = outbox.claimBatch(10)
+                .map(OutboxMessage::getAggregateId)
+                .collectSortedList()
+                .as(transactions::transactional)
+                .block(Duration.ofSeconds(5));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), retried);
+    }
+
+    private static void awaitClaim(AtomicReference<List<Long>> claimed) {
+        Mono.fromSupplier(claimed::get)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)))
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static String[] fill(int count, String value) {
+        String[] values = new String[count];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
@@ -0,0 +1,74 @@
+package com.java.challenge.store.repository;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Postgres for the tests that measure the statements of a flow: the container,
+ * a pooled connection factory that counts round trips, the schema of
+ * {@code docs/schema.sql} and the repositories on top of it.
+ */
+public final class TestDatabase {
+
+    private TestDatabase() {
+    }
+
+    public static GenericContainer<?> postgres() {
+        return new GenericContainer<>("postgres:16-alpine")
+                .withEnv("POSTGRES_DB", "storedb")
+                .withEnv("POSTGRES_USER", "store")
+                .withEnv("POSTGRES_PASSWORD", "store")
+                .withExposedPorts(5432)
+                .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*", 2));
+    }
+
+    public static CountingConnectionFactory counting(GenericContainer<?> postgres) {
+        return new CountingConnectionFactory(ConnectionFactories.get(ConnectionFactoryOptions.builder()
+                .option(ConnectionFactoryOptions.DRIVER, "postgresql")
+                .option(ConnectionFactoryOptions.HOST, postgres.getHost())
+                .option(ConnectionFactoryOptions.PORT, postgres.getMappedPort(5432))
+                .option(ConnectionFactoryOptions.DATABASE, "storedb")
+                .option(ConnectionFactoryOptions.USER, "store")
+                .option(ConnectionFactoryOptions.PASSWORD, "store")
+                .build()));
+    }
+
+    public static ConnectionPool pool(ConnectionFactory connectionFactory, int size) {
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(size)
+                .maxSize(size)
+                .build());
+    }
+
+    public static void createSchema(ConnectionFactory connectionFactory) {
+        String schema;
+        try {
+            schema = Files.readString(Path.of("docs/schema.sql"));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        DatabaseClient client = DatabaseClient.create(connectionFactory);
+        Flux.fromIterable(Arrays.stream(schema.split(";")).map(String::trim).filter(sql -> !sql.isEmpty()).toList())
+                .concatMap(sql -> client.sql(sql).then())
+                .blockLast();
+    }
+
+    public static <T> T repository(ConnectionFactory connectionFactory, Class<T> type) {
+        return new R2dbcRepositoryFactory(new R2dbcEntityTemplate(connectionFactory)).getRepository(type);
+    }
+}
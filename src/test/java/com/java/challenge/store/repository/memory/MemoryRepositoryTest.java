@@ -0,0 +1,88 @@
+package com.java.challenge.store.repository.memory;
+
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemoryRepositoryTest {
+
+    private final MemoryDatabase database = new MemoryDatabase();
+    private final MemoryProductRepository products = new MemoryProductRepository(database);
+    private final MemoryOrderRepository orders = new MemoryOrderRepository(database);
+    private final MemoryOrderItemRepository orderItems = new MemoryOrderItemRepository(database);
+    private final TransactionalOperator transactionalOperator =
+            TransactionalOperator.create(new MemoryTransactionManager(database));
+
+    @Test
+    void rejectsAStaleVersion() {
+        Product saved = products.save(new Product(null, "Lamp", new BigDecimal("10.005"), 5, null)).block();
+        assertEquals(0L, saved.getVersion());
+
+        Product first = products.findById(saved.getId()).block();
+        Product second = products.findById(saved.getId()).block();
+        first.setStock(4);
+        products.save(first).block();
+        second.setStock(3);
+
+        StepVerifier.create(products.save(second)).verifyError(OptimisticLockingFailureException.class);
+        Product stored = products.findById(saved.getId()).block();
+        assertEquals(4, stored.getStock());
+        assertEquals(1L, stored.getVersion());
+        assertEquals(new BigDecimal("10.01"), stored.getPrice());
+    }
+
+    @Test
+    void rollsBackEveryStatementOfAFailedTransaction() {
+        Product lamp = products.save(new Product(null, "Lamp", new BigDecimal("10.00"), 5, null)).block();
+
+        Mono<Integer> order = products.reserveStock(new Long[]{lamp.getId()}, new Integer[]{2}).then(
+                orders.save(new Order(null, LocalDateTime.now(), new BigDecimal("20.00"), "CONFIRMED ORDER."))
+                        .flatMap(saved -> orderItems.insertAll(
+                                new Long[]{saved.getId(), saved.getId() + 1},
+                                new Long[]{lamp.getId(), lamp.getId()},
+                                new Integer[]{1, 1},
+                                new BigDecimal[]{BigDecimal.TEN, BigDecimal.TEN}
+                        )));
+
+        StepVerifier.create(order.as(transactionalOperator::transactional))
+                .verifyError(DataIntegrityViolationException.class);
+        assertEquals(5, products.findById(lamp.getId()).block().getStock());
+        assertEquals(0L, products.findById(lamp.getId()).block().getVersion());
+        assertEquals(0L, orders.count().block());
+        assertEquals(0L, orderItems.count().block());
+    }
+
+    @Test
+    void runsConcurrentTransactionsOneAtATime() {
+        Product lamp = products.save(new Product(null, "Lamp", new BigDecimal("10.00"), 100, null)).block();
+        Long[] ids = {lamp.getId()};
+
+        // Read then write, as the database reservation does: without isolation some reads would be stale.
+        List<Integer> reserved = Flux.range(0, 200)
+                .flatMap(i -> products.findByIdsForUpdate(ids).single()
+                        .publishOn(Schedulers.parallel())
+                        .flatMap(product -> product.getStock() > 0
+                                ? products.updateFields(product.getId(), null, null, product.getStock() - 1).thenReturn(1)
+                                : Mono.just(0))
+                        .as(transactionalOperator::transactional))
+                .collectList()
+                .block();
+
+        assertEquals(100, reserved.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(0, products.findById(lamp.getId()).block().getStock());
+        assertEquals(100L, products.findById(lamp.getId()).block().getVersion());
+    }
+}
@@ -0,0 +1,75 @@
+package com.java.challenge.store.search;
+
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexLoaderTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final ProductSearchIndex index = new ProductSearchIndex();
+    private ProductSearchIndexLoader loader;
+
+    @AfterEach
+    void stop() {
+        loader.stop();
+    }
+
+    @Test
+    void retriesAFailedLoadUntilItFinishes() {
+        when(repository.findPage(any(), anyInt())).thenReturn(
+                Flux.error(new DataAccessResourceFailureException("connection refused")),
+                Flux.error(new DataAccessResourceFailureException("connection refused")),
+                Flux.just(product(1L, "Desk lamp"))
+        );
+        loader = new ProductSearchIndexLoader(repository, index, Duration.ofMillis(1), Duration.ofMillis(10));
+
+        loader.load();
+
+        verify(repository, timeout(5000).times(3)).findPage(any(), anyInt());
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!index.ready() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(index.ready());
+        assertEquals(List.of(1L), index.search("lamp", 10).stream().map(ProductResponseDto::getId).toList());
+    }
+
+    @Test
+    void aFailedLoadStopsBufferingChangesUntilTheRetry() {
+        when(repository.findPage(any(), anyInt()))
+                .thenReturn(Flux.error(new DataAccessResourceFailureException("connection refused")));
+        loader = new ProductSearchIndexLoader(repository, index, Duration.ofHours(1), Duration.ofHours(1));
+
+        loader.load();
+        verify(repository, times(1)).findPage(any(), anyInt());
+        index.put(product(2L, "Office chair"));
+
+        assertFalse(index.ready());
+        // Written straight into the sorted postings, not held back for a load that is not running
+        assertEquals(1, index.search("chair", 10).size());
+    }
+
+    private static Product product(Long id, String name) {
+        return new Product(id, name, new BigDecimal("10.00"), 1, 0L);
+    }
+}
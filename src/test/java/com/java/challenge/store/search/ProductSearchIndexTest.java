@@ -0,0 +1,75 @@
+package com.java.challenge.store.search;
+
+import com.java.challenge.store.dto.ProductResponseDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void matchesEveryWordByPrefixIgnoringCaseAndAccents() {
+        index.put(product(1L, "Café molido 500g", 1L));
+        index.put(product(2L, "Cafetera italiana", 1L));
+        index.put(product(3L, "Té verde", 1L));
+
+        assertEquals(List.of(1L, 2L), ids(index.search("CAFE", 10)));
+        assertEquals(List.of(2L), ids(index.search("caf ital", 10)));
+        assertTrue(index.search("verde cafe", 10).isEmpty());
+        assertTrue(index.search("  -- ", 10).isEmpty());
+    }
+
+    @Test
+    void ranksWholeWordsBeforePrefixes() {
+        index.put(product(1L, "Mouse pad with wireless charging", 1L));
+        index.put(product(2L, "Wireless mousepad", 1L));
+        index.put(product(3L, "Wireless mouse", 1L));
+
+        assertEquals(List.of(3L, 1L, 2L), ids(index.search("wireless mouse", 10)));
+        assertEquals(List.of(3L, 1L), ids(index.search("wireless mouse", 2)));
+    }
+
+    @Test
+    void followsProductChangesAndIgnoresOlderVersions() {
+        index.put(product(1L, "Blue lamp", 2L));
+        index.onProductChanged(new ProductChangedEvent(
+                ProductChangedEvent.ChangeType.UPDATED, 1L, product(1L, "Red lamp", 3L)));
+        index.put(product(1L, "Blue lamp", 2L));
+
+        assertTrue(index.search("blue", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("red", 10)));
+
+        index.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 1L, null));
+
+        assertTrue(index.search("lamp", 10).isEmpty());
+        assertEquals(0, index.terms());
+    }
+
+    @Test
+    void doesNotIndexAgainAProductDeletedDuringTheLoad() {
+        index.loadStarted();
+        index.remove(1L);
+        index.load(product(1L, "Desk lamp", 1L));
+        index.load(product(2L, "Floor lamp", 1L));
+        index.loadFinished();
+
+        assertTrue(index.ready());
+        assertEquals(List.of(2L), ids(index.search("lamp", 10)));
+    }
+
+    private static Product product(Long id, String name, Long version) {
+        return new Product(id, name, BigDecimal.ONE, 5, version);
+    }
+
+    private static List<Long> ids(List<ProductResponseDto> products) {
+        return products.stream().map(ProductResponseDto::getId).toList();
+    }
+}
@@ -0,0 +1,109 @@
+package com.java.challenge.store.search;
+
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.repository.TestDatabase;
+import io.r2dbc.pool.ConnectionPool;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads the search index from a real Postgres with 100,000 products and
+ * compares the p99 latency of its searches with the ILIKE query of
+ * {@code searchByName} that serves searches until the index is ready.
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+class ProductSearchLatencyTest {
+
+    private static final int PRODUCTS = 100_000;
+    private static final int WARMUP = 50;
+    private static final int QUERIES = 500;
+    private static final int LIMIT = 20;
+    private static final String[] QUERIES_BY_WORD = {"lamp", "oak desk", "steel mirror", "12345", "99999"};
+
+    @Container
+    private static final GenericContainer<?> POSTGRES = TestDatabase.postgres();
+
+    private static ConnectionPool pool;
+    private static ProductRepository products;
+    private static ProductSearchIndex index;
+
+    @BeforeAll
+    static void loadIndex() {
+        pool = TestDatabase.pool(TestDatabase.counting(POSTGRES), 4);
+        TestDatabase.createSchema(pool);
+        products = TestDatabase.repository(pool, ProductRepository.class);
+
+        DatabaseClient.create(pool)
+                .sql("""
+                        INSERT INTO products (name, price, stock)
+                        SELECT (ARRAY['Blue', 'Red', 'Oak', 'Steel', 'Green'])[1 + n % 5] || ' '
+                            || (ARRAY['lamp', 'chair', 'desk', 'shelf', 'table', 'stool', 'mirror'])[1 + n % 7] || ' '
+                            || n, 10.00, 100
+                        FROM generate_series(1, :products) AS n
+                        """)
+                .bind("products", PRODUCTS)
+                .then()
+                .block();
+
+        index = new ProductSearchIndex();
+        ProductSearchIndexLoader loader = new ProductSearchIndexLoader(products, index, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        loader.load();
+        long deadline = System.nanoTime() + Duration.ofMinutes(1).toNanos();
+        while (!index.ready() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        loader.stop();
+    }
+
+    @AfterAll
+    static void close() {
+        pool.dispose();
+    }
+
+    @Test
+    void theIndexAnswersWithALowerP99ThanIlike() {
+        assertTrue(index.ready());
+        assertEquals(PRODUCTS, index.size());
+
+        long ilike = p99Nanos(i -> products.searchByName("%" + query(i) + "%", LIMIT).collectList().block());
+        long indexed = p99Nanos(i -> index.search(query(i), LIMIT));
+
+        String report = String.format("%d products, %d queries: ILIKE p99 %d us, index p99 %d us",
+                PRODUCTS, QUERIES, ilike / 1000, indexed / 1000);
+        log.info(report);
+        assertTrue(indexed * 10 < ilike, report);
+    }
+
+    // Common words let the ILIKE scan stop after the first matches, product numbers make it read the table.
+    private static String query(int i) {
+        return QUERIES_BY_WORD[i % QUERIES_BY_WORD.length];
+    }
+
+    private static long p99Nanos(IntConsumer search) {
+        for (int i = 0; i < WARMUP; i++) {
+            search.accept(i);
+        }
+        long[] samples = new long[QUERIES];
+        for (int i = 0; i < samples.length; i++) {
+            long started = System.nanoTime();
+            search.accept(WARMUP + i);
+            samples[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length * 99 / 100];
+    }
+}
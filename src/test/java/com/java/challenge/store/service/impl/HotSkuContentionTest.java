@@ -0,0 +1,157 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.exception.InsufficientStockException;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.CountingConnectionFactory;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.repository.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * One product with 1,000 units and 1,000 concurrent orders for one unit each,
+ * against a real Postgres: the versioned read and save the engines replaced
+ * loses most orders to version conflicts, while the database and in-memory
+ * reservations sell every unit and none more.
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+class HotSkuContentionTest {
+
+    private static final int ORDERS = 1_000;
+    private static final int CONNECTIONS = 20;
+    private static final Long SKU = 1L;
+
+    @Container
+    private static final GenericContainer<?> POSTGRES = TestDatabase.postgres();
+
+    private static CountingConnectionFactory counting;
+    private static ConnectionPool pool;
+    private static DatabaseClient client;
+    private static ProductRepository products;
+    private static TransactionalOperator transactions;
+    private static OrderMetrics metrics;
+
+    @BeforeAll
+    static void createSchema() {
+        counting = TestDatabase.counting(POSTGRES);
+        pool = TestDatabase.pool(counting, CONNECTIONS);
+        TestDatabase.createSchema(pool);
+        client = DatabaseClient.create(pool);
+        products = TestDatabase.repository(pool, ProductRepository.class);
+        transactions = TransactionalOperator.create(new R2dbcTransactionManager(pool));
+        metrics = new OrderMetrics(new SimpleMeterRegistry());
+
+        client.sql("INSERT INTO products (id, name, price, stock) VALUES (:id, 'Flash sale', 10.00, 0)")
+                .bind("id", SKU)
+                .then()
+                .block();
+    }
+
+    @AfterAll
+    static void close() {
+        pool.dispose();
+    }
+
+    @BeforeEach
+    void restock() {
+        client.sql("UPDATE products SET stock = :stock WHERE id = :id")
+                .bind("stock", ORDERS)
+                .bind("id", SKU)
+                .then()
+                .block();
+    }
+
+    @Test
+    void versionedSavesLoseOrdersToConflicts() {
+        Result result = run("versioned save", () -> products.findById(SKU)
+                .flatMap(product -> {
+                    if (product.getStock() < 1) {
+                        return Mono.error(new IllegalStateException("Insufficient stock"));
+                    }
+                    product.setStock(product.getStock() - 1);
+                    return products.save(product);
+                })
+                .then()
+                .as(transactions::transactional));
+
+        assertTrue(result.sold() < ORDERS, result::toString);
+        assertEquals(ORDERS - result.sold(), stock());
+    }
+
+    @Test
+    void databaseReservationSellsEveryUnit() {
+        DatabaseStockReservationService reservations = new DatabaseStockReservationService(products, metrics);
+
+        Result result = run("database reservation", () -> reservations.reserve(Map.of(SKU, 1))
+                .then()
+                .as(transactions::transactional));
+
+        assertEquals(ORDERS, result.sold(), result::toString);
+        assertEquals(0, stock());
+    }
+
+    @Test
+    void inMemoryReservationSellsEveryUnitAndFlushesOnce() {
+        InMemoryStockReservationService reservations = new InMemoryStockReservationService(products, metrics, Duration.ofHours(1));
+
+        Result result = run("in-memory reservation", () -> reservations.reserve(Map.of(SKU, 1))
+                .then()
+                .as(transactions::transactional));
+        assertEquals(ORDERS, result.sold(), result::toString);
+
+        counting.reset();
+        reservations.flush().block();
+        assertEquals(1, counting.statements());
+        assertEquals(0, stock());
+        StepVerifier.create(reservations.reserve(Map.of(SKU, 1))).verifyError(InsufficientStockException.class);
+    }
+
+    private static Result run(String name, Supplier<Mono<Void>> order) {
+        counting.reset();
+        long started = System.nanoTime();
+        long sold = Flux.range(0, ORDERS)
+                .flatMap(i -> Mono.defer(order)
+                        .thenReturn(true)
+                        .onErrorReturn(false), ORDERS)
+                .filter(Boolean::booleanValue)
+                .count()
+                .block();
+        Result result = new Result(name, sold, counting.roundTrips(), (System.nanoTime() - started) / 1_000_000);
+        log.info("{}", result);
+        return result;
+    }
+
+    private static int stock() {
+        return products.findById(SKU).block().getStock();
+    }
+
+    private record Result(String name, long sold, long roundTrips, long millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d of %d orders sold in %d ms, %d round trips", name, sold, ORDERS, millis, roundTrips);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderItemDto;
+import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.dto.OrderResponseDto;
+import com.java.challenge.store.exception.BusinessException;
+import com.java.challenge.store.exception.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryIdempotencyStoreTest {
+
+    private final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(100, Duration.ofHours(24));
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Test
+    void concurrentRequestsWithTheSameKeyShareTheOrderInFlight() {
+        Sinks.One<OrderResponseDto> order = Sinks.one();
+
+        Mono<OrderResponseDto> first = store.execute("key-1", request(1L, 2), () -> count(order.asMono()));
+        Mono<OrderResponseDto> second = store.execute("key-1", request(1L, 2), () -> count(order.asMono()));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> order.tryEmitValue(order(10L)))
+                .expectNextMatches(both -> both.getT1().getId() == 10L && both.getT2().getId() == 10L)
+                .verifyComplete();
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void replaysTheStoredOrderForALaterRequest() {
+        StepVerifier.create(store.execute("key-1", request(1L, 2), () -> count(Mono.just(order(10L)))))
+                .expectNextMatches(response -> response.getId() == 10L)
+                .verifyComplete();
+        StepVerifier.create(store.execute("key-1", request(1L, 2), () -> count(Mono.just(order(11L)))))
+                .expectNextMatches(response -> response.getId() == 10L)
+                .verifyComplete();
+
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void rejectsAKeyReusedWithADifferentRequest() {
+        store.execute("key-1", request(1L, 2), () -> count(Mono.just(order(10L)))).block();
+
+        // BusinessException is answered with 409 Conflict
+        StepVerifier.create(store.execute("key-1", request(1L, 3), () -> count(Mono.just(order(11L)))))
+                .expectErrorSatisfies(error -> {
+                    assertEquals(BusinessException.class, error.getClass());
+                    assertEquals("Idempotency-Key key-1 was already used with a different request", error.getMessage());
+                })
+                .verify();
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void forgetsTheKeyWhenTheOrderFails() {
+        InsufficientStockException outOfStock = new InsufficientStockException(List.of(1L), Map.of(1L, 2), Map.of(1L, 0));
+
+        StepVerifier.create(store.execute("key-1", request(1L, 2), () -> count(Mono.error(outOfStock))))
+                .verifyErrorMatches(error -> error == outOfStock);
+        StepVerifier.create(store.execute("key-1", request(1L, 2), () -> count(Mono.just(order(10L)))))
+                .expectNextMatches(response -> response.getId() == 10L)
+                .verifyComplete();
+
+        assertEquals(2, created.get());
+    }
+
+    private Mono<OrderResponseDto> count(Mono<OrderResponseDto> result) {
+        created.incrementAndGet();
+        return result;
+    }
+
+    private static OrderListRequestDto request(Long productId, int quantity) {
+        OrderItemDto item = new OrderItemDto();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderListRequestDto request = new OrderListRequestDto();
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    private static OrderResponseDto order(Long id) {
+        return new OrderResponseDto(id, LocalDateTime.now(), new BigDecimal("20.00"), "CREATED");
+    }
+}
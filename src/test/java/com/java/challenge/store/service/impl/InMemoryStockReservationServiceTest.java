@@ -0,0 +1,174 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.exception.InsufficientStockException;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.memory.MemoryDatabase;
+import com.java.challenge.store.repository.memory.MemoryProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryStockReservationServiceTest {
+
+    private final MemoryDatabase database = new MemoryDatabase();
+    private final AtomicInteger failingFlushes = new AtomicInteger();
+    private volatile Runnable afterRead = () -> {
+    };
+    private final MemoryProductRepository products = new MemoryProductRepository(database) {
+        @Override
+        public Flux<Product> findByIds(Long[] ids) {
+            return super.findByIds(ids)
+                    .collectList()
+                    .doOnNext(rows -> afterRead.run())
+                    .flatMapMany(Flux::fromIterable);
+        }
+
+        @Override
+        public Mono<Integer> decrementStock(Long[] ids, Integer[] quantities) {
+            return failingFlushes.getAndDecrement() > 0
+                    ? Mono.error(new TransientDataAccessResourceException("connection lost"))
+                    : super.decrementStock(ids, quantities);
+        }
+    };
+    private final InMemoryStockReservationService service = new InMemoryStockReservationService(
+            products,
+            new OrderMetrics(new SimpleMeterRegistry()),
+            Duration.ofHours(1)
+    );
+
+    @Test
+    void reservesEveryLineOrNone() {
+        Long lamp = product(5);
+        Long chair = product(1);
+
+        StepVerifier.create(service.reserve(Map.of(lamp, 2, chair, 2)))
+                .verifyError(InsufficientStockException.class);
+
+        // The lamps taken before the chair came up short were given back
+        StepVerifier.create(service.reserve(Map.of(lamp, 5)).map(List::size)).expectNext(1).verifyComplete();
+        StepVerifier.create(service.reserve(Map.of(lamp, 1))).verifyError(InsufficientStockException.class);
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(0, stock(lamp));
+        assertEquals(1, stock(chair));
+    }
+
+    @Test
+    void releaseGivesTheStockBackBeforeAndAfterTheFlush() {
+        Long lamp = product(5);
+
+        service.reserve(Map.of(lamp, 3)).block();
+        StepVerifier.create(service.release(Map.of(lamp, 3))).verifyComplete();
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(5, stock(lamp));
+
+        service.reserve(Map.of(lamp, 2)).block();
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(3, stock(lamp));
+        StepVerifier.create(service.release(Map.of(lamp, 2))).verifyComplete();
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(5, stock(lamp));
+        StepVerifier.create(service.reserve(Map.of(lamp, 5)).map(List::size)).expectNext(1).verifyComplete();
+    }
+
+    @Test
+    void keepsFailedDecrementsForTheNextFlush() {
+        Long lamp = product(5);
+        service.reserve(Map.of(lamp, 2)).block();
+
+        failingFlushes.set(1);
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(5, stock(lamp));
+
+        service.reserve(Map.of(lamp, 1)).block();
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(2, stock(lamp));
+    }
+
+    @Test
+    void nameChangeKeepsTheCounterAndUnflushedDecrements() {
+        Long lamp = product(5);
+        service.reserve(Map.of(lamp, 2)).block();
+
+        Product renamed = products.updateFields(lamp, "Desk lamp", null, null).block();
+        service.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.UPDATED, lamp, renamed, false));
+
+        StepVerifier.create(service.reserve(Map.of(lamp, 4))).verifyError(InsufficientStockException.class);
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(3, stock(lamp));
+    }
+
+    @Test
+    void stockOverwriteReloadsTheCounterWithoutDroppingUnflushedDecrements() {
+        Long lamp = product(5);
+        service.reserve(Map.of(lamp, 2)).block();
+
+        Product restocked = products.updateFields(lamp, null, null, 10).block();
+        service.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.UPDATED, lamp, restocked, true));
+
+        // 10 stored, 2 of them already sold to an order whose decrement is not flushed yet
+        StepVerifier.create(service.reserve(Map.of(lamp, 8)).map(List::size)).expectNext(1).verifyComplete();
+        StepVerifier.create(service.reserve(Map.of(lamp, 1))).verifyError(InsufficientStockException.class);
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(0, stock(lamp));
+    }
+
+    @Test
+    void aFlushBetweenTheReadAndTheSeedingDoesNotOversell() {
+        Long lamp = product(10);
+        service.reserve(Map.of(lamp, 3)).block();
+        // The counter is dropped and seeded again by the next order, while 3 are still pending
+        service.onProductChanged(new ProductChangedEvent(
+                ProductChangedEvent.ChangeType.UPDATED, lamp, products.findById(lamp).block(), true));
+
+        // The row is read with stock 10, then the 3 are flushed before the counter is seeded
+        afterRead = () -> {
+            afterRead = () -> {
+            };
+            service.flush().block();
+        };
+        service.reserve(Map.of(lamp, 1)).block();
+
+        assertEquals(7, stock(lamp));
+        StepVerifier.create(service.reserve(Map.of(lamp, 7))).verifyError(InsufficientStockException.class);
+        StepVerifier.create(service.reserve(Map.of(lamp, 6)).map(List::size)).expectNext(1).verifyComplete();
+    }
+
+    @Test
+    void concurrentOrdersForOneProductNeverOversell() {
+        Long lamp = product(100);
+
+        List<Boolean> reserved = Flux.range(0, 1_000)
+                .flatMap(i -> service.reserve(Map.of(lamp, 1))
+                        .map(products -> true)
+                        .onErrorReturn(InsufficientStockException.class, false)
+                        .subscribeOn(Schedulers.parallel()))
+                .collectList()
+                .block();
+
+        assertEquals(100, reserved.stream().filter(Boolean::booleanValue).count());
+        StepVerifier.create(service.flush()).verifyComplete();
+        assertEquals(0, stock(lamp));
+    }
+
+    private Long product(int stock) {
+        return products.save(new Product(null, "Lamp", new BigDecimal("10.00"), stock, null)).block().getId();
+    }
+
+    private int stock(Long id) {
+        return products.findById(id).block().getStock();
+    }
+}
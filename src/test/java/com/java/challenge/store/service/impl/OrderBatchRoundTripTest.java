@@ -0,0 +1,147 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderBatchResultDto;
+import com.java.challenge.store.dto.OrderItemDto;
+import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.outbox.OrderOutbox;
+import com.java.challenge.store.pricing.PricingEngine;
+import com.java.challenge.store.repository.CountingConnectionFactory;
+import com.java.challenge.store.repository.OrderItemRepository;
+import com.java.challenge.store.repository.OrderRepository;
+import com.java.challenge.store.repository.OrderStatsRepository;
+import com.java.challenge.store.repository.OutboxRepository;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.repository.TestDatabase;
+import com.java.challenge.store.stats.OrderRollup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import jakarta.validation.Validation;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends the same orders through {@code POST /api/orders/batch}'s service and
+ * through {@code createOrder} one by one, against a real Postgres: the batch
+ * must need at least ten times fewer round trips.
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+class OrderBatchRoundTripTest {
+
+    private static final int PRODUCTS = 100;
+    private static final int ORDERS = 500;
+    private static final int LINES = 3;
+
+    @Container
+    private static final GenericContainer<?> POSTGRES = TestDatabase.postgres();
+
+    private static CountingConnectionFactory counting;
+    private static ConnectionPool pool;
+    private static OrderServiceImpl orderService;
+    private static OrderBatchServiceImpl orderBatchService;
+
+    @BeforeAll
+    static void createSchema() {
+        counting = TestDatabase.counting(POSTGRES);
+        pool = TestDatabase.pool(counting, 4);
+        TestDatabase.createSchema(pool);
+
+        OrderRepository orders = TestDatabase.repository(pool, OrderRepository.class);
+        OrderItemRepository items = TestDatabase.repository(pool, OrderItemRepository.class);
+        ProductRepository products = TestDatabase.repository(pool, ProductRepository.class);
+        TransactionalOperator transactions = TransactionalOperator.create(new R2dbcTransactionManager(pool));
+        OrderMetrics metrics = new OrderMetrics(new SimpleMeterRegistry());
+        DatabaseStockReservationService reservations = new DatabaseStockReservationService(products, metrics);
+        PricingEngine pricing = new PricingEngine(PricingEngine.standardRules());
+        OrderOutbox outbox = new OrderOutbox(
+                TestDatabase.repository(pool, OutboxRepository.class),
+                Jackson2ObjectMapperBuilder.json().build()
+        );
+        OrderRollup rollup = new OrderRollup(
+                TestDatabase.repository(pool, OrderStatsRepository.class), transactions, Duration.ofHours(1)
+        );
+
+        orderService = new OrderServiceImpl(
+                orders, items, reservations, transactions, event -> { }, metrics, pricing, outbox, rollup
+        );
+        orderBatchService = new OrderBatchServiceImpl(
+                orders, items, reservations, transactions, event -> { }, metrics, pricing, outbox, rollup,
+                Validation.buildDefaultValidatorFactory().getValidator()
+        );
+
+        DatabaseClient.create(pool)
+                .sql("INSERT INTO products (name, price, stock) SELECT 'Product ' || n, 10.00, 1000000 FROM generate_series(1, :products) AS n")
+                .bind("products", PRODUCTS)
+                .then()
+                .block();
+    }
+
+    @AfterAll
+    static void close() {
+        pool.dispose();
+    }
+
+    @Test
+    void theBatchCutsRoundTripsByAnOrderOfMagnitude() {
+        List<OrderListRequestDto> requests = requests();
+
+        counting.reset();
+        long started = System.nanoTime();
+        long looped = Flux.fromIterable(requests)
+                .concatMap(request -> orderService.createOrder(request))
+                .count()
+                .block();
+        long loopMillis = (System.nanoTime() - started) / 1_000_000;
+        long loopRoundTrips = counting.roundTrips();
+
+        counting.reset();
+        started = System.nanoTime();
+        List<OrderBatchResultDto> results = orderBatchService.createOrders(Flux.fromIterable(requests))
+                .collectList()
+                .block();
+        long batchMillis = (System.nanoTime() - started) / 1_000_000;
+        long batchRoundTrips = counting.roundTrips();
+
+        String report = String.format("%d orders: createOrder loop %d round trips in %d ms, batch %d round trips in %d ms",
+                ORDERS, loopRoundTrips, loopMillis, batchRoundTrips, batchMillis);
+        log.info(report);
+        assertEquals(ORDERS, looped);
+        assertTrue(results.stream().allMatch(result -> OrderBatchResultDto.CREATED.equals(result.getStatus())), report);
+        assertTrue(batchRoundTrips * 10 <= loopRoundTrips, report);
+    }
+
+    private static List<OrderListRequestDto> requests() {
+        List<OrderListRequestDto> requests = new ArrayList<>(ORDERS);
+        for (int order = 0; order < ORDERS; order++) {
+            List<OrderItemDto> items = new ArrayList<>(LINES);
+            for (int line = 0; line < LINES; line++) {
+                OrderItemDto item = new OrderItemDto();
+                item.setProductId(1L + (order * 7L + line * 31L) % PRODUCTS);
+                item.setQuantity(1);
+                items.add(item);
+            }
+            OrderListRequestDto request = new OrderListRequestDto();
+            request.setItems(items);
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,193 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderBatchResultDto;
+import com.java.challenge.store.dto.OrderItemDto;
+import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.outbox.OrderOutbox;
+import com.java.challenge.store.pricing.PricingEngine;
+import com.java.challenge.store.repository.OrderItemRepository;
+import com.java.challenge.store.repository.OrderRepository;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.repository.memory.MemoryDatabase;
+import com.java.challenge.store.repository.memory.MemoryTransactionManager;
+import com.java.challenge.store.stats.OrderRollup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderBatchServiceImplTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final OrderOutbox orderOutbox = mock(OrderOutbox.class);
+    private final OrderRollup orderRollup = mock(OrderRollup.class);
+    private final OrderMetrics metrics = new OrderMetrics(new SimpleMeterRegistry());
+    private final InMemoryStockReservationService reservations =
+            new InMemoryStockReservationService(productRepository, metrics, Duration.ofHours(1));
+    private final List<ProductChangedEvent> events = new ArrayList<>();
+    private final OrderBatchServiceImpl service = new OrderBatchServiceImpl(
+            orderRepository,
+            orderItemRepository,
+            reservations,
+            TransactionalOperator.create(new MemoryTransactionManager(new MemoryDatabase())),
+            event -> events.add((ProductChangedEvent) event),
+            metrics,
+            new PricingEngine(PricingEngine.standardRules()),
+            orderOutbox,
+            orderRollup,
+            Validation.buildDefaultValidatorFactory().getValidator()
+    );
+
+    OrderBatchServiceImplTest() {
+        when(productRepository.findByIds(any())).thenReturn(Flux.just(
+                new Product(1L, "Lamp", new BigDecimal("10.00"), 2, 0L),
+                new Product(2L, "Desk", new BigDecimal("100.00"), 5, 0L)
+        ));
+        when(orderRepository.nextIds(anyInt())).thenAnswer(inv -> Flux.range(1, inv.getArgument(0)).map(Long::valueOf));
+        when(orderRepository.insertAll(any(), any(), any(), any())).thenAnswer(inv -> Mono.just(((Long[]) inv.getArgument(0)).length));
+        when(orderItemRepository.insertAll(any(), any(), any(), any())).thenAnswer(inv -> Mono.just(((Long[]) inv.getArgument(0)).length));
+        when(orderOutbox.ordersConfirmed(any())).thenReturn(Mono.just(0));
+        when(orderRollup.added(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void reportsEveryOrderInTheOrderItWasSent() {
+        List<OrderBatchResultDto> results = createOrders(
+                request(item(2L, 1)),
+                request(item(1L, 0)),
+                request(item(1L, 3)),
+                request(item(3L, 1)),
+                request(item(1L, 1), item(2L, 2))
+        );
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), results.stream().map(OrderBatchResultDto::getIndex).toList());
+        assertEquals(OrderBatchResultDto.CREATED, results.get(0).getStatus());
+        assertEquals(new BigDecimal("100.00"), results.get(0).getOrder().getTotal());
+
+        assertEquals(OrderBatchResultDto.REJECTED, results.get(1).getStatus());
+        assertEquals("Invalid data", results.get(1).getError());
+        assertEquals("quantity must be greater than zero", results.get(1).getDetails().get("items[0].quantity"));
+
+        assertEquals(OrderBatchResultDto.REJECTED, results.get(2).getStatus());
+        assertTrue(results.get(2).getError().startsWith("Insufficient stock for products 1"), results.get(2).getError());
+        assertNull(results.get(2).getOrder());
+
+        assertEquals(OrderBatchResultDto.REJECTED, results.get(3).getStatus());
+        assertEquals("Product for check items not found", results.get(3).getError());
+
+        assertEquals(OrderBatchResultDto.CREATED, results.get(4).getStatus());
+        assertEquals(2L, results.get(4).getOrder().getId());
+    }
+
+    @Test
+    void allocatesStockToOrdersInTheOrderTheyWereSent() {
+        List<OrderBatchResultDto> results = createOrders(
+                request(item(1L, 1)),
+                request(item(1L, 2)),
+                request(item(1L, 1)),
+                request(item(1L, 1))
+        );
+
+        assertEquals(
+                List.of(OrderBatchResultDto.CREATED, OrderBatchResultDto.REJECTED, OrderBatchResultDto.CREATED, OrderBatchResultDto.REJECTED),
+                results.stream().map(OrderBatchResultDto::getStatus).toList()
+        );
+        // One stock change per product, with the level left by the last order of the chunk
+        assertEquals(1, events.size());
+        assertEquals(0, events.get(0).product().getStock());
+    }
+
+    @Test
+    void aChunkThatCannotBeStoredFailsItsOrdersAndReleasesTheirStock() {
+        // The first chunk fails to store its lines, the retry stores them
+        doReturn(Mono.error(new DataAccessResourceFailureException("connection lost")))
+                .doAnswer(inv -> Mono.just(((Long[]) inv.getArgument(0)).length))
+                .when(orderItemRepository).insertAll(any(), any(), any(), any());
+
+        List<OrderBatchResultDto> failed = createOrders(
+                request(item(1L, 2)),
+                request(item(1L, 1)),
+                request(item(2L, 0))
+        );
+
+        assertEquals(
+                List.of(OrderBatchResultDto.FAILED, OrderBatchResultDto.FAILED, OrderBatchResultDto.REJECTED),
+                failed.stream().map(OrderBatchResultDto::getStatus).toList()
+        );
+        assertEquals("Could not be stored: connection lost", failed.get(0).getError());
+        assertTrue(events.isEmpty());
+
+        List<OrderBatchResultDto> retried = createOrders(request(item(1L, 2)));
+        assertEquals(OrderBatchResultDto.CREATED, retried.get(0).getStatus());
+    }
+
+    @Test
+    void retriesAChunkThatHitALockConflict() {
+        doReturn(Mono.error(new CannotAcquireLockException("deadlock detected")))
+                .doAnswer(inv -> Mono.just(((Long[]) inv.getArgument(0)).length))
+                .when(orderItemRepository).insertAll(any(), any(), any(), any());
+
+        List<OrderBatchResultDto> results = createOrders(request(item(1L, 2)), request(item(1L, 1)));
+
+        // The first attempt gave its stock back before the retry reserved it again
+        assertEquals(
+                List.of(OrderBatchResultDto.CREATED, OrderBatchResultDto.REJECTED),
+                results.stream().map(OrderBatchResultDto::getStatus).toList()
+        );
+    }
+
+    @Test
+    void aCancelledChunkReleasesItsStock() {
+        Sinks.One<Integer> lines = Sinks.one();
+        doReturn(lines.asMono())
+                .doAnswer(inv -> Mono.just(((Long[]) inv.getArgument(0)).length))
+                .when(orderItemRepository).insertAll(any(), any(), any(), any());
+
+        // Cancelled while its lines are being inserted
+        service.createOrders(Flux.just(request(item(1L, 2)))).subscribe().dispose();
+
+        List<OrderBatchResultDto> retried = createOrders(request(item(1L, 2)));
+        assertEquals(OrderBatchResultDto.CREATED, retried.get(0).getStatus());
+    }
+
+    private List<OrderBatchResultDto> createOrders(OrderListRequestDto... requests) {
+        return service.createOrders(Flux.just(requests)).collectList().block();
+    }
+
+    private static OrderListRequestDto request(OrderItemDto... items) {
+        OrderListRequestDto request = new OrderListRequestDto();
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    private static OrderItemDto item(Long productId, int quantity) {
+        OrderItemDto item = new OrderItemDto();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,101 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderItemDto;
+import com.java.challenge.store.dto.OrderListRequestDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.outbox.OrderOutbox;
+import com.java.challenge.store.pricing.PricingEngine;
+import com.java.challenge.store.repository.OrderItemRepository;
+import com.java.challenge.store.repository.OrderRepository;
+import com.java.challenge.store.repository.memory.MemoryDatabase;
+import com.java.challenge.store.repository.memory.MemoryTransactionManager;
+import com.java.challenge.store.service.StockReservationService;
+import com.java.challenge.store.stats.OrderRollup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceImplTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final StockReservationService stockReservationService = mock(StockReservationService.class);
+    private final OrderServiceImpl service = new OrderServiceImpl(
+            orderRepository,
+            mock(OrderItemRepository.class),
+            stockReservationService,
+            TransactionalOperator.create(new MemoryTransactionManager(new MemoryDatabase())),
+            mock(ApplicationEventPublisher.class),
+            new OrderMetrics(new SimpleMeterRegistry()),
+            new PricingEngine(PricingEngine.standardRules()),
+            mock(OrderOutbox.class),
+            mock(OrderRollup.class)
+    );
+
+    @Test
+    void releasesTheReservationWhenTheCallerCancels() {
+        when(stockReservationService.reserve(any())).thenReturn(Mono.just(List.of(lamp())));
+        when(stockReservationService.release(any())).thenReturn(Mono.empty());
+        when(orderRepository.save(any())).thenReturn(Mono.never());
+
+        StepVerifier.create(service.createOrder(request()))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(100))
+                .thenCancel()
+                .verify();
+
+        verify(stockReservationService, timeout(1_000)).release(Map.of(1L, 2));
+    }
+
+    @Test
+    void retriesALockConflictAndReleasesEachFailedAttempt() {
+        when(stockReservationService.reserve(any())).thenReturn(Mono.just(List.of(lamp())));
+        when(stockReservationService.release(any())).thenReturn(Mono.empty());
+        when(orderRepository.save(any())).thenReturn(Mono.error(new PessimisticLockingFailureException("deadlock detected")));
+
+        StepVerifier.create(service.createOrder(request()))
+                .verifyError(PessimisticLockingFailureException.class);
+
+        verify(stockReservationService, times(3)).reserve(Map.of(1L, 2));
+        verify(stockReservationService, times(3)).release(Map.of(1L, 2));
+    }
+
+    @Test
+    void doesNotReleaseWhenNothingWasReserved() {
+        when(stockReservationService.reserve(any())).thenReturn(Mono.error(new IllegalStateException("boom")));
+
+        StepVerifier.create(service.createOrder(request())).verifyError(IllegalStateException.class);
+
+        verify(stockReservationService, never()).release(any());
+    }
+
+    private static Product lamp() {
+        return new Product(1L, "Lamp", new BigDecimal("10.00"), 3, 1L);
+    }
+
+    private static OrderListRequestDto request() {
+        OrderItemDto item = new OrderItemDto();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        OrderListRequestDto request = new OrderListRequestDto();
+        request.setItems(List.of(item));
+        return request;
+    }
+}
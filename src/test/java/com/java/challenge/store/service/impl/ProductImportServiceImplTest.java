@@ -0,0 +1,102 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.ProductImportReportDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.repository.memory.MemoryDatabase;
+import com.java.challenge.store.repository.memory.MemoryTransactionManager;
+import com.java.challenge.store.util.ProductImportParser;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductImportServiceImplTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final List<ProductChangedEvent> events = new ArrayList<>();
+    private final ProductImportServiceImpl service = new ProductImportServiceImpl(
+            repository,
+            TransactionalOperator.create(new MemoryTransactionManager(new MemoryDatabase())),
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            event -> events.add((ProductChangedEvent) event)
+    );
+
+    @Test
+    void rejectsRowsThatDoNotFitTheColumnsBeforeWritingTheChunk() {
+        when(repository.insertAll(any(), any(), any())).thenAnswer(inv -> {
+            String[] names = inv.getArgument(0);
+            return Flux.range(0, names.length).map(i -> new Product(10L + i, names[i], BigDecimal.TEN, 1, 0L));
+        });
+
+        ProductImportReportDto report = importCsv(
+                "name,price,stock",
+                "Lamp,10.00,1",
+                "x".repeat(256) + ",10.00,1",
+                "Desk,99999999.995,1",
+                "Chair,99999999.99,1"
+        );
+
+        assertEquals(4, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(3L, report.getErrors().get(0).getLine());
+        assertEquals("name must be at most 255 characters", report.getErrors().get(0).getDetails().get("name"));
+        assertEquals(4L, report.getErrors().get(1).getLine());
+        assertEquals("price must be at most 99999999.99", report.getErrors().get(1).getDetails().get("price"));
+        verify(repository, times(1)).insertAll(any(), any(), any());
+    }
+
+    @Test
+    void writesTheRowsOfAFailedChunkOneByOne() {
+        when(repository.insertAll(any(), any(), any())).thenAnswer(inv -> {
+            String[] names = inv.getArgument(0);
+            if (List.of(names).contains("Broken")) {
+                return Flux.error(new DataIntegrityViolationException("value rejected"));
+            }
+            return Flux.just(new Product(10L, names[0], BigDecimal.TEN, 1, 0L));
+        });
+
+        ProductImportReportDto report = importCsv("name,price,stock", "Lamp,10.00,1", "Broken,10.00,1", "Desk,10.00,1");
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(3L, report.getErrors().get(0).getLine());
+        assertEquals("Could not be stored: value rejected", report.getErrors().get(0).getMessage());
+        // The chunk, then one statement per row
+        verify(repository, times(4)).insertAll(any(), any(), any());
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    void publishesCreatedForNewIdsAndUpdatedForExistingOnes() {
+        when(repository.upsertAll(any(), any(), any(), any())).thenReturn(Flux.just(
+                new Product(1L, "Lamp", BigDecimal.TEN, 1, 0L),
+                new Product(2L, "Desk", BigDecimal.TEN, 1, 3L)
+        ));
+        when(repository.syncIdSequence()).thenReturn(Mono.just(2L));
+
+        importCsv("id,name,price,stock", "1,Lamp,10.00,1", "2,Desk,10.00,1");
+
+        assertEquals(ProductChangedEvent.ChangeType.CREATED, events.get(0).type());
+        assertEquals(ProductChangedEvent.ChangeType.UPDATED, events.get(1).type());
+    }
+
+    private ProductImportReportDto importCsv(String... lines) {
+        return service.importProducts(Flux.just(lines), ProductImportParser.csv()).block();
+    }
+}
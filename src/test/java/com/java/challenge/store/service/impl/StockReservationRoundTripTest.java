@@ -0,0 +1,149 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.CountingConnectionFactory;
+import com.java.challenge.store.repository.ProductRepository;
+import com.java.challenge.store.repository.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the basket reservation with the flow it replaced, one read and one
+ * versioned save per line, against a real Postgres: statements per basket and
+ * p99 latency of a 20-line basket.
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+class StockReservationRoundTripTest {
+
+    private static final int PRODUCTS = 1_000;
+    private static final int WARMUP = 50;
+    private static final int ORDERS = 500;
+
+    @Container
+    private static final GenericContainer<?> POSTGRES = TestDatabase.postgres();
+
+    private static CountingConnectionFactory counting;
+    private static ConnectionPool pool;
+    private static ProductRepository products;
+    private static TransactionalOperator transactions;
+    private static DatabaseStockReservationService reservations;
+
+    @BeforeAll
+    static void createSchema() {
+        counting = TestDatabase.counting(POSTGRES);
+        pool = TestDatabase.pool(counting, 4);
+        TestDatabase.createSchema(pool);
+        products = TestDatabase.repository(pool, ProductRepository.class);
+        transactions = TransactionalOperator.create(new R2dbcTransactionManager(pool));
+        reservations = new DatabaseStockReservationService(products, new OrderMetrics(new SimpleMeterRegistry()));
+
+        DatabaseClient.create(pool)
+                .sql("INSERT INTO products (name, price, stock) SELECT 'Product ' || n, 10.00, 1000000 FROM generate_series(1, :products) AS n")
+                .bind("products", PRODUCTS)
+                .then()
+                .block();
+    }
+
+    @AfterAll
+    static void close() {
+        pool.dispose();
+    }
+
+    @Test
+    void aBasketCostsTwoStatementsWhateverItsSize() {
+        for (int lines : new int[]{1, 5, 20}) {
+            Map<Long, Integer> basket = basket(lines, lines);
+
+            assertEquals(2L * lines, statements(() -> reservePerItem(basket)));
+            assertEquals(2, statements(() -> reserveBasket(basket)));
+        }
+    }
+
+    @Test
+    void aTwentyLineBasketHasALowerP99ThanThePerItemFlow() {
+        counting.reset();
+        long perItem = p99Nanos(order -> reservePerItem(basket(20, order)));
+        long perItemRoundTrips = counting.roundTrips() / (WARMUP + ORDERS);
+
+        counting.reset();
+        long basket = p99Nanos(order -> reserveBasket(basket(20, order)));
+        long basketRoundTrips = counting.roundTrips() / (WARMUP + ORDERS);
+
+        String report = String.format("20-line basket: per item %d round trips, p99 %d us; basket %d round trips, p99 %d us",
+                perItemRoundTrips, perItem / 1000, basketRoundTrips, basket / 1000);
+        log.info(report);
+        assertTrue(basket * 2 < perItem, report);
+    }
+
+    // The flow before the basket reservation: each line read and saved with its version, one after the other.
+    private static Mono<Void> reservePerItem(Map<Long, Integer> basket) {
+        return Flux.fromIterable(new TreeMap<>(basket).entrySet())
+                .concatMap(line -> products.findById(line.getKey())
+                        .flatMap(product -> {
+                            if (product.getStock() < line.getValue()) {
+                                return Mono.error(new IllegalStateException("Insufficient stock for product " + product.getId()));
+                            }
+                            product.setStock(product.getStock() - line.getValue());
+                            return products.save(product);
+                        }))
+                .then()
+                .as(transactions::transactional);
+    }
+
+    private static Mono<Void> reserveBasket(Map<Long, Integer> basket) {
+        return reservations.reserve(basket)
+                .then()
+                .as(transactions::transactional);
+    }
+
+    // Distinct products for every line, spread over the table so consecutive orders touch different rows.
+    private static Map<Long, Integer> basket(int lines, int order) {
+        Map<Long, Integer> basket = new TreeMap<>();
+        for (int line = 0; line < lines; line++) {
+            basket.put(1L + (order * 37L + line * 53L) % PRODUCTS, 1);
+        }
+        return basket;
+    }
+
+    private static long statements(Supplier<Mono<Void>> order) {
+        counting.reset();
+        order.get().block();
+        return counting.statements();
+    }
+
+    private static long p99Nanos(IntFunction<Mono<Void>> order) {
+        for (int i = 0; i < WARMUP; i++) {
+            order.apply(i).block();
+        }
+        long[] samples = new long[ORDERS];
+        for (int i = 0; i < samples.length; i++) {
+            long started = System.nanoTime();
+            order.apply(WARMUP + i).block();
+            samples[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length * 99 / 100];
+    }
+}
@@ -0,0 +1,117 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.StockLevelDto;
+import com.java.challenge.store.entity.Product;
+import com.java.challenge.store.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StockStreamServiceImplTest {
+
+    @Test
+    void slowSubscriberReceivesOnlyTheLatestLevelOfEachProduct() {
+        StockStreamServiceImpl service = new StockStreamServiceImpl(16);
+
+        StepVerifier.create(service.stream().map(StockLevelDto::getStock), 0)
+                .then(() -> {
+                    service.onProductChanged(stockChanged(1L, 10));
+                    service.onProductChanged(stockChanged(2L, 20));
+                    service.onProductChanged(stockChanged(1L, 9));
+                    service.onProductChanged(stockChanged(1L, 8));
+                })
+                .thenRequest(10)
+                .expectNext(20, 8)
+                .thenCancel()
+                .verify();
+
+        assertEquals(2, service.conflated());
+        assertEquals(0, service.subscribers());
+    }
+
+    @Test
+    void dropsTheOldestProductWhenTheBufferIsFull() {
+        StockStreamServiceImpl service = new StockStreamServiceImpl(2);
+
+        StepVerifier.create(service.stream().map(StockLevelDto::getProductId), 0)
+                .then(() -> {
+                    service.onProductChanged(stockChanged(1L, 1));
+                    service.onProductChanged(stockChanged(2L, 2));
+                    service.onProductChanged(stockChanged(3L, 3));
+                })
+                .thenRequest(10)
+                .expectNext(2L, 3L)
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, service.dropped());
+    }
+
+    @Test
+    void deletedProductsAreReportedWithoutStock() {
+        StockStreamServiceImpl service = new StockStreamServiceImpl(16);
+
+        StepVerifier.create(service.stream().map(StockLevelDto::getStock))
+                .then(() -> service.onProductChanged(
+                        new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 1L, null)
+                ))
+                .expectNext(0)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void dropsALevelOlderThanOneAlreadySentForThatProduct() {
+        StockStreamServiceImpl service = new StockStreamServiceImpl(16);
+
+        StepVerifier.create(service.stream().map(StockLevelDto::getStock))
+                .then(() -> {
+                    // The order that left 8 committed after the one that left 7 but was published later
+                    service.onProductChanged(stockChanged(1L, 7, 3L));
+                    service.onProductChanged(stockChanged(1L, 8, 2L));
+                    service.onProductChanged(stockChanged(2L, 5, 1L));
+                })
+                .expectNext(7, 5)
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, service.stale());
+    }
+
+    @Test
+    void aProductCreatedAgainAfterItsDeleteIsStreamed() {
+        StockStreamServiceImpl service = new StockStreamServiceImpl(16);
+
+        StepVerifier.create(service.stream().map(StockLevelDto::getStock))
+                .then(() -> {
+                    service.onProductChanged(stockChanged(1L, 7, 3L));
+                    service.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 1L, null));
+                    service.onProductChanged(stockChanged(1L, 6, 4L));
+                    service.onProductChanged(new ProductChangedEvent(
+                            ProductChangedEvent.ChangeType.CREATED,
+                            1L,
+                            new Product(1L, "Product 1", BigDecimal.TEN, 50, 0L)
+                    ));
+                })
+                .expectNext(7, 0, 50)
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, service.stale());
+    }
+
+    private ProductChangedEvent stockChanged(Long id, int stock) {
+        return stockChanged(id, stock, 0L);
+    }
+
+    private ProductChangedEvent stockChanged(Long id, int stock, long version) {
+        return new ProductChangedEvent(
+                ProductChangedEvent.ChangeType.STOCK_CHANGED,
+                id,
+                new Product(id, "Product " + id, BigDecimal.TEN, stock, version)
+        );
+    }
+}
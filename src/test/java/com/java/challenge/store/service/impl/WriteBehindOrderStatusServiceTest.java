@@ -0,0 +1,80 @@
+package com.java.challenge.store.service.impl;
+
+import com.java.challenge.store.dto.OrderResponseDto;
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.exception.ResourceNotFoundException;
+import com.java.challenge.store.metrics.OrderMetrics;
+import com.java.challenge.store.repository.OrderRepository;
+import com.java.challenge.store.service.OrderStatusService.Ack;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WriteBehindOrderStatusServiceTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WriteBehindOrderStatusService service = new WriteBehindOrderStatusService(
+            orderRepository,
+            new OrderMetrics(registry),
+            Duration.ofHours(1),
+            500
+    );
+
+    @Test
+    void writesOnlyTheLatestStatusOfEachOrderInOneStatement() {
+        when(orderRepository.updateStatuses(any(), any())).thenReturn(Flux.just(order(1L, "DELIVERED")));
+
+        Mono<OrderResponseDto> first = service.updateStatus(1L, "SHIPPED", Ack.FLUSHED).cache();
+        Mono<OrderResponseDto> second = service.updateStatus(1L, "DELIVERED", Ack.FLUSHED).cache();
+        first.subscribe();
+        second.subscribe();
+        StepVerifier.create(service.updateStatus(2L, "CANCELLED", Ack.ACCEPTED)).verifyComplete();
+        Mono<OrderResponseDto> missing = service.updateStatus(3L, "SHIPPED", Ack.FLUSHED).cache();
+        missing.subscribe(order -> { }, ex -> { });
+
+        StepVerifier.create(service.flush()).verifyComplete();
+
+        verify(orderRepository, times(1)).updateStatuses(
+                new Long[]{1L, 2L, 3L},
+                new String[]{"DELIVERED", "CANCELLED", "SHIPPED"}
+        );
+        StepVerifier.create(first.map(OrderResponseDto::getStatus)).expectNext("DELIVERED").verifyComplete();
+        StepVerifier.create(second.map(OrderResponseDto::getStatus)).expectNext("DELIVERED").verifyComplete();
+        StepVerifier.create(missing).verifyError(ResourceNotFoundException.class);
+        // Orders 2 and 3 matched no row
+        assertEquals(2.0, registry.counter("store.order.status.unmatched").count());
+    }
+
+    @Test
+    void keepsFailedChangesQueuedForTheNextFlush() {
+        when(orderRepository.updateStatuses(any(), any()))
+                .thenReturn(Flux.error(new IllegalStateException("database down")))
+                .thenReturn(Flux.just(order(1L, "SHIPPED")));
+
+        Mono<OrderResponseDto> update = service.updateStatus(1L, "SHIPPED", Ack.FLUSHED).cache();
+        update.subscribe();
+
+        StepVerifier.create(service.flush()).verifyComplete();
+        StepVerifier.create(service.flush()).verifyComplete();
+
+        StepVerifier.create(update.map(OrderResponseDto::getStatus)).expectNext("SHIPPED").verifyComplete();
+    }
+
+    private Order order(Long id, String status) {
+        return new Order(id, LocalDateTime.now(), BigDecimal.TEN, status);
+    }
+}
@@ -0,0 +1,113 @@
+package com.java.challenge.store.stats;
+
+import com.java.challenge.store.entity.Order;
+import com.java.challenge.store.entity.OrderUpdateRow;
+import com.java.challenge.store.repository.OrderStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderRollupTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+
+    private final OrderStatsRepository repository = mock(OrderStatsRepository.class);
+    private final TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+    private final OrderRollup rollup = new OrderRollup(repository, transactionalOperator, Duration.ofHours(1));
+
+    @Test
+    void addsOrdersGroupedByDayWithStoredRounding() {
+        when(repository.appendAll(any(), any(), any())).thenReturn(Mono.just(2));
+
+        StepVerifier.create(rollup.added(List.of(
+                order(MONDAY.atTime(9, 0), "900.009"),
+                order(MONDAY.atTime(18, 30), "10.00"),
+                order(MONDAY.plusDays(1).atTime(8, 0), "5.50")
+        ))).verifyComplete();
+
+        verify(repository).appendAll(
+                new LocalDate[]{MONDAY, MONDAY.plusDays(1)},
+                new Long[]{2L, 1L},
+                new BigDecimal[]{new BigDecimal("910.01"), new BigDecimal("5.50")}
+        );
+    }
+
+    @Test
+    void movesAnOrderBetweenDaysWhenItsDateChanges() {
+        when(repository.appendAll(any(), any(), any())).thenReturn(Mono.just(2));
+        OrderUpdateRow row = new OrderUpdateRow(
+                1L, MONDAY.plusDays(2).atStartOfDay(), new BigDecimal("20.00"), "CONFIRMED ORDER.",
+                MONDAY.atTime(12, 0), new BigDecimal("15.00")
+        );
+
+        StepVerifier.create(rollup.updated(row)).verifyComplete();
+
+        verify(repository).appendAll(
+                new LocalDate[]{MONDAY, MONDAY.plusDays(2)},
+                new Long[]{-1L, 1L},
+                new BigDecimal[]{new BigDecimal("-15.00"), new BigDecimal("20.00")}
+        );
+    }
+
+    @Test
+    void skipsUpdatesThatOnlyChangeTheStatus() {
+        OrderUpdateRow row = new OrderUpdateRow(
+                1L, MONDAY.atTime(12, 0), new BigDecimal("15.00"), "SHIPPED",
+                MONDAY.atTime(12, 0), new BigDecimal("15.00")
+        );
+
+        StepVerifier.create(rollup.updated(row)).verifyComplete();
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void foldsInBatchesUntilFewerDeltasThanABatchAreLeft() {
+        runsInTransaction();
+        when(repository.lockMaintenance()).thenReturn(Mono.just(1));
+        when(repository.fold(5000)).thenReturn(Mono.just(5000L), Mono.just(5000L), Mono.just(12L));
+
+        StepVerifier.create(rollup.fold()).expectNext(10_012L).verifyComplete();
+
+        verify(repository, times(3)).lockMaintenance();
+        verify(repository, times(3)).fold(5000);
+    }
+
+    @Test
+    void backfillDropsTheDaysLeftWithoutOrders() {
+        runsInTransaction();
+        when(repository.lockMaintenance()).thenReturn(Mono.just(1));
+        when(repository.rebuildRange(MONDAY, MONDAY.plusDays(7))).thenReturn(Flux.just(MONDAY, MONDAY.plusDays(2)));
+        when(repository.deleteRangeExcept(any(), any(), any())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(rollup.backfill(MONDAY, MONDAY.plusDays(6)))
+                .expectNextMatches(report -> report.getDaysWithOrders() == 2)
+                .verifyComplete();
+
+        verify(repository).deleteRangeExcept(MONDAY, MONDAY.plusDays(7), new LocalDate[]{MONDAY, MONDAY.plusDays(2)});
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runsInTransaction() {
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private Order order(LocalDateTime date, String total) {
+        return new Order(null, date, new BigDecimal(total), "CONFIRMED ORDER.");
+    }
+}
@@ -0,0 +1,104 @@
+package com.java.challenge.store.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.challenge.store.dto.ProductImportRowDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductImportParserTest {
+
+    @Test
+    void readsCsvColumnsInTheOrderOfTheHeader() {
+        ProductImportParser parser = ProductImportParser.csv();
+
+        assertTrue(parser.header(" Stock ,price,NAME,id"));
+        ProductImportRowDto row = parser.parse("7, 12.50 ,Lamp,3");
+
+        assertEquals(3L, row.getId());
+        assertEquals("Lamp", row.getName());
+        assertEquals(new BigDecimal("12.50"), row.getPrice());
+        assertEquals(7, row.getStock());
+    }
+
+    @Test
+    void onlyTheFirstCsvLineIsTheHeader() {
+        ProductImportParser parser = ProductImportParser.csv();
+
+        assertTrue(parser.header("name,price,stock"));
+        assertFalse(parser.header("name,price,stock"));
+    }
+
+    @Test
+    void rejectsAHeaderWithoutARequiredColumn() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> ProductImportParser.csv().header("name,stock"));
+
+        assertEquals("CSV header must contain the column price", ex.getMessage());
+    }
+
+    @Test
+    void keepsCommasAndEscapedQuotesInsideQuotedFields() {
+        ProductImportParser parser = ProductImportParser.csv();
+        parser.header("name,price,stock");
+
+        ProductImportRowDto row = parser.parse("\"Lamp, \"\"desk\"\" model\",\"10.00\",2");
+
+        assertEquals("Lamp, \"desk\" model", row.getName());
+        assertEquals(new BigDecimal("10.00"), row.getPrice());
+        assertEquals(2, row.getStock());
+    }
+
+    @Test
+    void leavesEmptyAndMissingCsvFieldsNull() {
+        ProductImportParser parser = ProductImportParser.csv();
+        parser.header("id,name,price,stock");
+
+        ProductImportRowDto row = parser.parse(",Lamp,,");
+        ProductImportRowDto shorter = parser.parse("1,Lamp");
+
+        assertNull(row.getId());
+        assertNull(row.getPrice());
+        assertNull(row.getStock());
+        assertNull(shorter.getStock());
+    }
+
+    @Test
+    void rejectsAnUnterminatedQuoteAndANonNumericColumn() {
+        ProductImportParser parser = ProductImportParser.csv();
+        parser.header("name,price,stock");
+
+        assertEquals("Unterminated quoted field",
+                assertThrows(IllegalArgumentException.class, () -> parser.parse("\"Lamp,10.00,2")).getMessage());
+        assertEquals("stock is not a valid number: two",
+                assertThrows(IllegalArgumentException.class, () -> parser.parse("Lamp,10.00,two")).getMessage());
+    }
+
+    @Test
+    void readsNdjsonObjectsAndHasNoHeader() {
+        ProductImportParser parser = ProductImportParser.ndjson(new ObjectMapper());
+
+        assertFalse(parser.header("{\"name\":\"Lamp\",\"price\":10.00,\"stock\":2}"));
+        ProductImportRowDto row = parser.parse("{\"id\":4,\"name\":\"Lamp \\\"desk\\\", tall\",\"price\":10.00,\"stock\":2}");
+
+        assertEquals(4L, row.getId());
+        assertEquals("Lamp \"desk\", tall", row.getName());
+        assertEquals(0, new BigDecimal("10.00").compareTo(row.getPrice()));
+        assertEquals(2, row.getStock());
+    }
+
+    @Test
+    void rejectsMalformedNdjson() {
+        ProductImportParser parser = ProductImportParser.ndjson(new ObjectMapper());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"name\":"));
+
+        assertTrue(ex.getMessage().startsWith("Malformed JSON: "), ex.getMessage());
+    }
+}
@@ -0,0 +1,115 @@
+package com.java.challenge.store.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentCallsForTheSameKeyShareOneLoad() {
+        Sinks.One<Integer> value = Sinks.one();
+
+        Mono<Integer> first = singleFlight.execute("a", key -> load(value.asMono()));
+        Mono<Integer> second = singleFlight.execute("a", key -> load(Mono.just(2)));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> value.tryEmitValue(1))
+                .expectNextMatches(both -> both.getT1() == 1 && both.getT2() == 1)
+                .verifyComplete();
+        assertEquals(1, loads.get());
+        assertEquals(2, singleFlight.requests());
+        assertEquals(1, singleFlight.coalesced());
+    }
+
+    @Test
+    void differentKeysAreLoadedSeparately() {
+        Sinks.One<Integer> a = Sinks.one();
+        Sinks.One<Integer> b = Sinks.one();
+
+        StepVerifier.create(Mono.zip(
+                        singleFlight.execute("a", key -> load(a.asMono())),
+                        singleFlight.execute("b", key -> load(b.asMono()))))
+                .then(() -> assertEquals(2, singleFlight.inFlight()))
+                .then(() -> {
+                    a.tryEmitValue(1);
+                    b.tryEmitValue(2);
+                })
+                .expectNextMatches(both -> both.getT1() == 1 && both.getT2() == 2)
+                .verifyComplete();
+        assertEquals(2, loads.get());
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    @Test
+    void forgetsTheKeyOnceTheLoadCompletes() {
+        StepVerifier.create(singleFlight.execute("a", key -> load(Mono.just(1)))).expectNext(1).verifyComplete();
+        assertEquals(0, singleFlight.inFlight());
+
+        StepVerifier.create(singleFlight.execute("a", key -> load(Mono.just(2)))).expectNext(2).verifyComplete();
+        assertEquals(2, loads.get());
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    @Test
+    void sharesTheErrorAndForgetsTheKeyWhenTheLoadFails() {
+        Sinks.One<Integer> value = Sinks.one();
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        StepVerifier.create(Mono.zip(
+                        singleFlight.execute("a", key -> load(value.asMono())),
+                        singleFlight.execute("a", key -> load(Mono.just(2)))))
+                .then(() -> value.tryEmitError(failure))
+                .verifyErrorMatches(error -> error == failure);
+        assertEquals(0, singleFlight.inFlight());
+
+        StepVerifier.create(singleFlight.execute("a", key -> load(Mono.just(3)))).expectNext(3).verifyComplete();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void aLoaderThrowingFailsTheCallAndForgetsTheKey() {
+        StepVerifier.create(singleFlight.execute("a", key -> {
+                    throw new IllegalStateException("no connection");
+                }))
+                .verifyErrorMessage("no connection");
+        assertEquals(0, singleFlight.inFlight());
+
+        StepVerifier.create(singleFlight.execute("a", key -> load(Mono.just(1))))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void anEmptyLoadCompletesEveryCallerEmpty() {
+        StepVerifier.create(singleFlight.execute("a", key -> load(Mono.empty()))).verifyComplete();
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void aCallerCancellingDoesNotCancelTheLoadOthersWaitFor() {
+        Sinks.One<Integer> value = Sinks.one();
+
+        StepVerifier.create(singleFlight.execute("a", key -> load(value.asMono())))
+                .thenCancel()
+                .verify();
+        StepVerifier.create(singleFlight.execute("a", key -> load(Mono.just(2))))
+                .then(() -> value.tryEmitValue(1))
+                .expectNext(1)
+                .verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    private Mono<Integer> load(Mono<Integer> result) {
+        loads.incrementAndGet();
+        return result;
+    }
+}